@@ -0,0 +1,177 @@
+package org.example.techstarsscraper.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Pages the benchmarks parse.
+ * <p>
+ * Saved pages are read from {@code src/jmh/resources/fixtures/{listing,detail}/*.html}, or from the directory
+ * in the {@code jmh.fixtures} system property. With the {@code jmh.archive} system property set to a copy of a
+ * {@link PageArchive} directory, the newest archived copy of every job page and all archived listing cards are
+ * added as well. Synthetic pages shaped like the board's markup are generated from a fixed seed, so runs are
+ * comparable with each other whatever else is in the corpus.
+ */
+final class Fixtures {
+
+    static final String BASE_URL = "https://jobs.techstars.com/jobs";
+
+    private static final String[] WORDS = ("lorem ipsum dolor sit amet consectetur adipiscing elit sed do eiusmod " +
+            "tempor incididunt ut labore et dolore magna aliqua 2024 team 5 years remote hybrid").split(" ");
+    private static final String[] FUNCTIONS = {"Software Engineering", "Sales & Business Development", "Marketing",
+            "Operations", "Design", "Data Science"};
+    private static final String[] LOCATIONS = {"Berlin, Germany", "New York, NY, USA", "Remote",
+            "London, England, United Kingdom", "São Paulo, SP, Brazil", "Austin, TX, USA, North America"};
+    private static final String[] DATES = {"Posted on Aug 11, 2025", "Posted on September 3, 2025",
+            "Posted on Jan 2, 2024", "Posted today"};
+    private static final String[] TAGS = {"Fintech", "Health", "Hospital & Health Care", "AI", "SaaS", "Robotics",
+            "Climate", "11 - 50 employees", "51 - 200 employees"};
+
+    private Fixtures() {
+    }
+
+    static List<String> detailPages(int syntheticCount) {
+        List<String> pages = new ArrayList<>(savedPages("detail"));
+        pages.addAll(archivedPages(PageArchive.Kind.JOB_PAGE));
+        Random random = new Random(42);
+        for (int i = 0; i < syntheticCount; i++) {
+            pages.add(syntheticDetailPage(random, i));
+        }
+        return pages;
+    }
+
+    static List<String> listingPages(int syntheticCards) {
+        List<String> pages = new ArrayList<>(savedPages("listing"));
+        pages.addAll(archivedPages(PageArchive.Kind.LISTING_CARDS));
+        pages.add(syntheticListingPage(new Random(7), syntheticCards));
+        return pages;
+    }
+
+    static String[] locations() {
+        return LOCATIONS.clone();
+    }
+
+    static String[] dates() {
+        return DATES.clone();
+    }
+
+    private static List<String> savedPages(String kind) {
+        Path dir = Path.of(System.getProperty("jmh.fixtures", "src/jmh/resources/fixtures")).resolve(kind);
+        if (!Files.isDirectory(dir)) return List.of();
+        try (Stream<Path> files = Files.list(dir)) {
+            List<String> pages = new ArrayList<>();
+            for (Path file : files.filter(f -> f.toString().endsWith(".html")).sorted().toList()) {
+                pages.add(Files.readString(file, StandardCharsets.UTF_8));
+            }
+            return pages;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static List<String> archivedPages(PageArchive.Kind kind) {
+        String directory = System.getProperty("jmh.archive");
+        if (directory == null) return List.of();
+        PageArchive archive = new PageArchive(true, directory, DataSize.ofMegabytes(256), new SimpleMeterRegistry());
+        try (PageArchive.Snapshot snapshot = archive.snapshot()) {
+            List<PageArchive.Entry> entries = kind == PageArchive.Kind.JOB_PAGE
+                    ? snapshot.latest(kind) : snapshot.entries(kind);
+            List<String> pages = new ArrayList<>(entries.size());
+            for (PageArchive.Entry entry : entries) {
+                PageArchive.Record record = snapshot.read(entry);
+                String charset = record.charset();
+                pages.add(new String(record.body(), charset != null && Charset.isSupported(charset)
+                        ? Charset.forName(charset) : StandardCharsets.UTF_8));
+            }
+            return pages;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            archive.close();
+        }
+    }
+
+    private static String syntheticDetailPage(Random random, int n) {
+        StringBuilder html = new StringBuilder(32 * 1024);
+        html.append("<!DOCTYPE html><html><head><title>Job ").append(n).append("</title><script>")
+                .append("var x=1;".repeat(200)).append("</script></head><body><div id=\"__next\"><header><nav><ul>");
+        for (int i = 0; i < 80; i++) {
+            html.append("<li><a href=\"/jobs?page=").append(i).append("\">Link ").append(i).append("</a><span>")
+                    .append(words(random, 4)).append("</span></li>");
+        }
+        html.append("</ul></nav></header><main><div data-testid=\"content\"><div><div>")
+                .append("<img data-testid=\"image\" alt=\"Company ").append(n)
+                .append("\" src=\"https://cdn.getro.com/companies/company-").append(n).append(".png\">")
+                .append("<div><p>Company ").append(n).append("</p><span>Series B</span></div></div>")
+                .append("<h2>").append(words(random, 3)).append("</h2><div>")
+                .append("<div>").append(pick(random, FUNCTIONS)).append("</div>")
+                .append("<div>").append(pick(random, LOCATIONS)).append("</div>")
+                .append("<div>$").append(80 + random.nextInt(80)).append("k</div>")
+                .append("<div>").append(pick(random, DATES)).append("</div></div>");
+        if (random.nextBoolean()) {
+            html.append("<a type=\"button\" data-testid=\"button\" href=\"https://company-").append(n)
+                    .append(".example/careers\">Apply now</a>");
+        } else {
+            html.append("<a type=\"button\" data-testid=\"button-apply-now\" href=\"/apply/").append(n)
+                    .append("\">Apply now</a>");
+        }
+        html.append("<a href=\"/companies/company-").append(n).append("\">Company ").append(n).append("</a></div>")
+                .append("<div data-testid=\"careerPage\">");
+        for (int section = 0; section < 4 + random.nextInt(8); section++) {
+            html.append("<h3>").append(words(random, 3)).append("</h3><p>").append(words(random, 60)).append("</p><ul>");
+            for (int item = 0; item < 6; item++) {
+                html.append("<li>").append(words(random, 12)).append("</li>");
+            }
+            html.append("</ul>");
+        }
+        html.append("</div></div></main><footer>");
+        for (int i = 0; i < 40; i++) {
+            html.append("<div><a href=\"/x").append(i).append("\">Footer ").append(i).append("</a><p>")
+                    .append(words(random, 10)).append("</p></div>");
+        }
+        return html.append("</footer></div></body></html>").toString();
+    }
+
+    private static String syntheticListingPage(Random random, int cards) {
+        StringBuilder html = new StringBuilder(cards * 1024);
+        html.append("<!DOCTYPE html><html><head><title>Jobs</title></head><body><div id=\"__next\"><main>");
+        for (int i = 0; i < cards; i++) {
+            html.append("<div itemscope itemtype=\"https://schema.org/JobPosting\" class=\"job-card\">")
+                    .append("<a href=\"/companies/company-").append(i % 97).append("\"><img alt=\"logo\" src=\"/logo.png\"></a>")
+                    .append("<div><a href=\"/companies/company-").append(i % 97).append("/jobs/").append(100000 + i)
+                    .append("-").append(words(random, 3).replace(' ', '-')).append("?utm_source=board#content\">")
+                    .append("<div itemprop=\"title\">").append(words(random, 3)).append("</div></a>")
+                    .append("<div itemprop=\"hiringOrganization\">Company ").append(i % 97).append("</div>")
+                    .append("<div><span>").append(pick(random, LOCATIONS)).append("</span></div><div>");
+            for (int t = 0; t < 1 + random.nextInt(4); t++) {
+                html.append("<div data-testid=\"tag\"> ").append(pick(random, TAGS)).append(" </div>");
+            }
+            html.append("</div><meta itemprop=\"datePosted\" content=\"2025-08-11\"></div></div>");
+        }
+        return html.append("</main></div></body></html>").toString();
+    }
+
+    private static String words(Random random, int count) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) sb.append(' ');
+            sb.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return sb.toString();
+    }
+
+    private static String pick(Random random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+}
@@ -0,0 +1,68 @@
+package org.example.techstarsscraper.service;
+
+import org.example.techstarsscraper.model.Job;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Field extraction from job detail pages, on already parsed documents, including the parse,
+ * and streamed from the page source. The {@code legacy} benchmarks run the extraction that
+ * {@link JobPageExtractor} replaced, as a baseline.
+ * Each invocation handles the next page of the corpus.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JobPageExtractorBenchmark {
+
+    private static final String JOB_URL = "https://jobs.techstars.com/companies/company/jobs/1#content";
+
+    private final JobPageExtractor extractor = new JobPageExtractor();
+    private final LegacyJobPageExtractor legacyExtractor = new LegacyJobPageExtractor();
+    private List<String> pages;
+    private List<Document> documents;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        pages = Fixtures.detailPages(32);
+        documents = pages.stream().map(html -> Jsoup.parse(html, JOB_URL)).toList();
+    }
+
+    @Benchmark
+    public Job extract() {
+        return extractor.extract(documents.get(next++ % documents.size()), JOB_URL);
+    }
+
+    @Benchmark
+    public Job legacyExtract() {
+        return legacyExtractor.extract(documents.get(next++ % documents.size()), JOB_URL);
+    }
+
+    @Benchmark
+    public Job parseAndExtract() {
+        String html = pages.get(next++ % pages.size());
+        return extractor.extract(Jsoup.parse(html, JOB_URL), JOB_URL);
+    }
+
+    @Benchmark
+    public Job legacyParseAndExtract() {
+        String html = pages.get(next++ % pages.size());
+        return legacyExtractor.extract(Jsoup.parse(html, JOB_URL), JOB_URL);
+    }
+
+    @Benchmark
+    public Job streamAndExtract() throws IOException {
+        String html = pages.get(next++ % pages.size());
+        return extractor.extract(new StringReader(html), JOB_URL, Integer.MAX_VALUE);
+    }
+}
@@ -0,0 +1,93 @@
+package org.example.techstarsscraper.service;
+
+import org.example.techstarsscraper.dto.LocationInfo;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The steps of job page extraction, one field at a time: the walk that finds the anchor elements, then each field
+ * read from the anchors found beforehand. Each invocation handles the next page of the corpus.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JobPageFieldBenchmark {
+
+    private static final String JOB_URL = "https://jobs.techstars.com/companies/company/jobs/1#content";
+
+    private List<Document> documents;
+    private List<Element[]> slots;
+    private List<Element> careerPages;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        documents = Fixtures.detailPages(32).stream().map(html -> Jsoup.parse(html, JOB_URL)).toList();
+        List<JobPageExtractor.Anchors> anchors = documents.stream().map(JobPageExtractor.Anchors::find).toList();
+        slots = anchors.stream().map(JobPageExtractor.Anchors::slots).toList();
+        careerPages = anchors.stream().map(JobPageExtractor.Anchors::careerPage).toList();
+    }
+
+    private Element[] nextSlots() {
+        return slots.get(next++ % slots.size());
+    }
+
+    @Benchmark
+    public JobPageExtractor.Anchors anchors() {
+        return JobPageExtractor.Anchors.find(documents.get(next++ % documents.size()));
+    }
+
+    @Benchmark
+    public String positionName() {
+        Element position = nextSlots()[JobPageExtractor.POSITION_SLOT];
+        return position != null ? position.text().trim() : null;
+    }
+
+    @Benchmark
+    public String organizationTitle() {
+        Element[] slots = nextSlots();
+        Element logo = slots[JobPageExtractor.LOGO_SLOT];
+        String logoUrl = logo != null ? JobPageExtractor.toAbsoluteUrl(logo, "src", JOB_URL) : null;
+        return JobPageExtractor.extractOrganizationTitle(logo, logoUrl, slots[JobPageExtractor.COMPANY_LINK_SLOT]);
+    }
+
+    @Benchmark
+    public String organizationUrl() {
+        Element[] slots = nextSlots();
+        Element apply = slots[JobPageExtractor.APPLY_BUTTON_SLOT] != null
+                ? slots[JobPageExtractor.APPLY_BUTTON_SLOT] : slots[JobPageExtractor.APPLY_NOW_BUTTON_SLOT];
+        return apply != null ? JobPageExtractor.toAbsoluteUrl(apply, "href", JOB_URL) : null;
+    }
+
+    @Benchmark
+    public LocationInfo location() {
+        Element location = JobPageExtractor.findLocationElement(nextSlots()[JobPageExtractor.POSTED_SLOT]);
+        return JobPageExtractor.splitLocation(location != null ? location.text().trim() : null);
+    }
+
+    @Benchmark
+    public String laborFunction() {
+        return JobPageExtractor.extractLaborFunction(
+                JobPageExtractor.findLocationElement(nextSlots()[JobPageExtractor.POSTED_SLOT]));
+    }
+
+    @Benchmark
+    public Long postedDate() {
+        Element posted = nextSlots()[JobPageExtractor.POSTED_SLOT];
+        return JobPageExtractor.parseDateToEpoch(posted != null ? posted.text() : null);
+    }
+
+    @Benchmark
+    public String description() {
+        Element careerPage = careerPages.get(next++ % careerPages.size());
+        return careerPage != null ? careerPage.html().trim() : "";
+    }
+}
@@ -0,0 +1,48 @@
+package org.example.techstarsscraper.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Job card extraction from a rendered listing page.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ListingExtractionBenchmark {
+
+    @Param({"200", "1000"})
+    public int cards;
+
+    private BrowserListingSource listingSource;
+    private List<String> pages;
+    private List<Document> documents;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        listingSource = new BrowserListingSource(null, null, Fixtures.BASE_URL, 1, 200, new SimpleMeterRegistry());
+        pages = Fixtures.listingPages(cards);
+        documents = pages.stream().map(html -> Jsoup.parse(html, Fixtures.BASE_URL)).toList();
+    }
+
+    @Benchmark
+    public Map<String, List<String>> extractJobTagsMap() {
+        return listingSource.extractJobTagsMap(documents.get(next++ % documents.size()));
+    }
+
+    @Benchmark
+    public Map<String, List<String>> parseAndExtractJobTagsMap() {
+        String html = pages.get(next++ % pages.size());
+        return listingSource.extractJobTagsMap(Jsoup.parse(html, Fixtures.BASE_URL));
+    }
+}
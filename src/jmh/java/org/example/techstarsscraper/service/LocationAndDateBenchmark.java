@@ -0,0 +1,29 @@
+package org.example.techstarsscraper.service;
+
+import org.example.techstarsscraper.dto.LocationInfo;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LocationAndDateBenchmark {
+
+    private final String[] locations = Fixtures.locations();
+    private final String[] dates = Fixtures.dates();
+    private int next;
+
+    @Benchmark
+    public LocationInfo splitLocation() {
+        return JobPageExtractor.splitLocation(locations[next++ % locations.length]);
+    }
+
+    @Benchmark
+    public Long parseDate() {
+        return JobPageExtractor.parseDateToEpoch(dates[next++ % dates.length]);
+    }
+}
@@ -1,39 +1,189 @@
 package org.example.techstarsscraper.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
-import org.example.techstarsscraper.model.Job;
-import org.example.techstarsscraper.service.GoogleSheetsService;
-import org.example.techstarsscraper.service.ScraperService;
+import org.example.techstarsscraper.dto.JobFilter;
+import org.example.techstarsscraper.dto.ScrapeNodeStatus;
+import org.example.techstarsscraper.dto.ScrapeRunStatus;
+import org.example.techstarsscraper.repository.JobQueryRepository;
+import org.example.techstarsscraper.service.FrontierWorker;
+import org.example.techstarsscraper.service.JobQueryService;
+import org.example.techstarsscraper.service.ScrapeRun;
+import org.example.techstarsscraper.service.ScrapeRunManager;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api")
 @Slf4j
 public class ScrapeController {
-    private final ScraperService scraperService;
+    private final ScrapeRunManager scrapeRunManager;
+    private final JobQueryService jobQueryService;
+    private final FrontierWorker frontierWorker;
+    private final ObjectMapper objectMapper;
 
-    public ScrapeController(ScraperService scraperService ) {
-        this.scraperService = scraperService;
+    public ScrapeController(ScrapeRunManager scrapeRunManager, JobQueryService jobQueryService,
+                            FrontierWorker frontierWorker, ObjectMapper objectMapper) {
+        this.scrapeRunManager = scrapeRunManager;
+        this.jobQueryService = jobQueryService;
+        this.frontierWorker = frontierWorker;
+        this.objectMapper = objectMapper;
     }
 
     @PostMapping("/scrape")
-    public ResponseEntity<?> scrape(@RequestParam("function") String jobFunction) {
+    public ResponseEntity<?> scrape(@RequestParam("function") String jobFunction,
+                                    @RequestParam(value = "full", defaultValue = "false") boolean full) {
         try {
-            List<Job> result = scraperService.scrapeByFunction(jobFunction);
-            return ResponseEntity.ok(Map.of("saved", result.size()));
+            return accepted(scrapeRunManager.submit(jobFunction, full));
+        } catch (RejectedExecutionException e) {
+            log.warn("Scrape queue is full, rejecting scrape for function '{}'", jobFunction);
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(Map.of("error", "Scrape queue is full"));
         } catch (Exception e) {
-            log.error("Error during scraping", e);
+            log.error("Error while queuing scrape", e);
             return ResponseEntity.status(500).body(Map.of("error", e.getMessage()));
         }
     }
 
+    @PostMapping("/scrape/sweep")
+    public ResponseEntity<?> sweep(@RequestParam("function") List<String> jobFunctions,
+                                   @RequestParam(value = "full", defaultValue = "false") boolean full) {
+        try {
+            return accepted(scrapeRunManager.submit(jobFunctions, full));
+        } catch (RejectedExecutionException e) {
+            log.warn("Scrape queue is full, rejecting sweep over {} functions", jobFunctions.size());
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(Map.of("error", "Scrape queue is full"));
+        } catch (Exception e) {
+            log.error("Error while queuing sweep", e);
+            return ResponseEntity.status(500).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    private static ResponseEntity<?> accepted(ScrapeRunManager.Submission submission) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(Map.of(
+                "id", submission.run().id(),
+                "state", submission.run().state().name(),
+                "coalesced", submission.coalesced()));
+    }
+
+    @GetMapping("/scrape/nodes")
+    public List<ScrapeNodeStatus> getNodes() {
+        return frontierWorker.nodes();
+    }
+
+    @GetMapping("/scrape/{id}")
+    public ResponseEntity<ScrapeRunStatus> getRun(@PathVariable("id") String id) {
+        return scrapeRunManager.find(id)
+                .map(run -> ResponseEntity.ok(run.toStatus()))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @DeleteMapping("/scrape/{id}")
+    public ResponseEntity<?> cancelRun(@PathVariable("id") String id) {
+        Optional<ScrapeRun> run = scrapeRunManager.find(id);
+        if (run.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        if (!scrapeRunManager.cancel(id)) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", "Scrape run has already finished"));
+        }
+        return ResponseEntity.ok(run.get().toStatus());
+    }
+
 
     @GetMapping("/jobs")
-    public ResponseEntity<List<Job>> getAll() {
-        return ResponseEntity.ok(scraperService.findAll());
+    public ResponseEntity<?> getJobs(@RequestParam(name = "limit", required = false) Integer limit,
+                                     @RequestParam(name = "cursor", required = false) String cursor,
+                                     @RequestParam(name = "sort", defaultValue = "id") String sort,
+                                     @RequestParam(name = "function", required = false) String laborFunction,
+                                     @RequestParam(name = "country", required = false) String country,
+                                     @RequestParam(name = "tag", required = false) String tag,
+                                     @RequestParam(name = "closed", required = false) Boolean closed,
+                                     @RequestParam(name = "includeDescription", defaultValue = "false") boolean includeDescription) {
+        try {
+            JobFilter filter = new JobFilter(laborFunction, country, tag, closed);
+            return ResponseEntity.ok(jobQueryService.findPage(filter, parseSort(sort), limit, cursor, includeDescription));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/jobs/search")
+    public ResponseEntity<?> searchJobs(@RequestParam(name = "q", required = false) String query,
+                                        @RequestParam(name = "limit", required = false) Integer limit,
+                                        @RequestParam(name = "offset", defaultValue = "0") int offset,
+                                        @RequestParam(name = "function", required = false) String laborFunction,
+                                        @RequestParam(name = "country", required = false) String country,
+                                        @RequestParam(name = "tag", required = false) String tag,
+                                        @RequestParam(name = "closed", required = false) Boolean closed,
+                                        @RequestParam(name = "includeDescription", defaultValue = "false") boolean includeDescription) {
+        try {
+            JobFilter filter = new JobFilter(laborFunction, country, tag, closed);
+            return ResponseEntity.ok(jobQueryService.search(query, filter, limit, offset, includeDescription));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping(value = "/jobs/export", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> exportJobs(@RequestParam(name = "function", required = false) String laborFunction,
+                                                            @RequestParam(name = "country", required = false) String country,
+                                                            @RequestParam(name = "tag", required = false) String tag,
+                                                            @RequestParam(name = "closed", required = false) Boolean closed,
+                                                            @RequestParam(name = "includeDescription", defaultValue = "false") boolean includeDescription) {
+        JobFilter filter = new JobFilter(laborFunction, country, tag, closed);
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator generator = objectMapper.createGenerator(out)) {
+                generator.setRootValueSeparator(null);
+                jobQueryService.export(filter, includeDescription, job -> {
+                    try {
+                        generator.writeObject(job);
+                        generator.writeRaw('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType("application/x-ndjson")).body(body);
+    }
+
+    @PostMapping("/jobs/reextract")
+    public ResponseEntity<?> reextractJobs() {
+        try {
+            ScrapeRunManager.Submission submission = scrapeRunManager.submitReextraction();
+            if (submission.coalesced()) {
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of(
+                        "error", "A re-extraction is already running",
+                        "id", submission.run().id()));
+            }
+            return accepted(submission);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        } catch (RejectedExecutionException e) {
+            log.warn("Scrape queue is full, rejecting re-extraction");
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(Map.of("error", "Scrape queue is full"));
+        } catch (Exception e) {
+            log.error("Error while queuing re-extraction", e);
+            return ResponseEntity.status(500).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    private static JobQueryRepository.Sort parseSort(String sort) {
+        return switch (sort.toLowerCase()) {
+            case "id" -> JobQueryRepository.Sort.ID;
+            case "posted" -> JobQueryRepository.Sort.POSTED;
+            default -> throw new IllegalArgumentException("Unknown sort '" + sort + "', expected 'id' or 'posted'");
+        };
     }
-}
\ No newline at end of file
+}
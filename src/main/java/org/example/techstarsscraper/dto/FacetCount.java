@@ -0,0 +1,6 @@
+package org.example.techstarsscraper.dto;
+
+public record FacetCount(
+        String value,
+        long count) {
+}
@@ -0,0 +1,8 @@
+package org.example.techstarsscraper.dto;
+
+public record JobFilter(
+        String laborFunction,
+        String country,
+        String tag,
+        Boolean closed) {
+}
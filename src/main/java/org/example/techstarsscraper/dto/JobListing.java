@@ -0,0 +1,8 @@
+package org.example.techstarsscraper.dto;
+
+import java.util.List;
+
+public record JobListing(
+        String jobPageUrl,
+        List<String> tags) {
+}
@@ -0,0 +1,14 @@
+package org.example.techstarsscraper.dto;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One page of search hits, best match first, with the total number of matches and the most frequent
+ * values of each facet among all matches.
+ */
+public record JobSearchResult(
+        List<JobView> items,
+        long total,
+        Map<String, List<FacetCount>> facets) {
+}
@@ -0,0 +1,27 @@
+package org.example.techstarsscraper.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.Instant;
+
+public record JobView(
+        Long id,
+        String jobPageUrl,
+        String positionName,
+        String organizationUrl,
+        String logoUrl,
+        String organizationTitle,
+        String laborFunction,
+        String locationRaw,
+        String locationCity,
+        String locationState,
+        String locationCountry,
+        Long postedDateUnix,
+        @JsonInclude(JsonInclude.Include.NON_NULL)
+        String descriptionHtml,
+        String tags,
+        String matchedFunctions,
+        Instant lastSeenAt,
+        Instant lastChangedAt,
+        Instant closedAt) {
+}
@@ -0,0 +1,11 @@
+package org.example.techstarsscraper.dto;
+
+public record ReextractionResult(
+        int pages,
+        int listingRecords,
+        int failed,
+        int updated,
+        int unchanged,
+        int missing,
+        long elapsedMs) {
+}
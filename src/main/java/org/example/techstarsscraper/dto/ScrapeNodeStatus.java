@@ -0,0 +1,14 @@
+package org.example.techstarsscraper.dto;
+
+import java.time.Instant;
+
+public record ScrapeNodeStatus(
+        String nodeId,
+        Instant startedAt,
+        Instant heartbeatAt,
+        boolean alive,
+        long completed,
+        long failed,
+        double completedPerMinute,
+        long leased) {
+}
@@ -0,0 +1,27 @@
+package org.example.techstarsscraper.dto;
+
+import java.time.Instant;
+import java.util.List;
+
+public record ScrapeRunStatus(
+        String id,
+        String type,
+        String function,
+        List<String> functions,
+        boolean fullCrawl,
+        String state,
+        int discovered,
+        int skipped,
+        int fetched,
+        int saved,
+        int updated,
+        int unchanged,
+        int closed,
+        int failed,
+        ReextractionResult reextraction,
+        long elapsedMs,
+        Instant createdAt,
+        Instant startedAt,
+        Instant finishedAt,
+        String error) {
+}
@@ -0,0 +1,26 @@
+package org.example.techstarsscraper.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * Preset deflate dictionary trained from stored descriptions.
+ */
+@Entity
+@Table(name = "description_dictionaries")
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class DescriptionDictionary {
+    @Id
+    private Integer id;
+
+    @Column(name="body", nullable=false, length = 32 * 1024)
+    private byte[] body;
+
+    @Column(name="created_at", nullable=false)
+    private Instant createdAt;
+}
@@ -0,0 +1,50 @@
+package org.example.techstarsscraper.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * A discovered job page waiting to be fetched by any scraper node. A node that claims the entry holds a
+ * lease on it until {@code leaseExpiresAt}, renewed by its heartbeat; once the job is saved the entry is
+ * deleted. Entries whose lease expired, e.g. because their node died, can be claimed again.
+ */
+@Entity
+@Table(name = "scrape_frontier", indexes = {
+        @Index(name = "scrape_frontier_claim_idx", columnList = "lease_expires_at, enqueued_at"),
+        @Index(name = "scrape_frontier_run_idx", columnList = "run_id")
+})
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class FrontierEntry {
+    @Id
+    @Column(name="job_page_url")
+    private String jobPageUrl;
+
+    /**
+     * Listing tags, comma-separated as in {@code jobs.tags}.
+     */
+    @Column(name="tags", length = 1000)
+    private String tags;
+
+    /**
+     * Pipeline run that discovered the job and waits for it.
+     */
+    @Column(name="run_id", length = 36)
+    private String runId;
+
+    @Column(name="enqueued_at", nullable=false)
+    private Instant enqueuedAt;
+
+    @Column(name="lease_owner")
+    private String leaseOwner;
+
+    @Column(name="lease_expires_at")
+    private Instant leaseExpiresAt;
+
+    @Column(name="attempts", nullable=false)
+    private int attempts;
+}
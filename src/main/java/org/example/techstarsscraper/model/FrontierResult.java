@@ -0,0 +1,39 @@
+package org.example.techstarsscraper.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * What became of some frontier entries of a run, recorded by the node that settled them so that the run that
+ * enqueued them can count jobs fetched by other nodes. Deleted once that run finishes.
+ */
+@Entity
+@Table(name = "scrape_frontier_results", indexes = {
+        @Index(name = "scrape_frontier_results_run_idx", columnList = "run_id")
+})
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class FrontierResult {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name="run_id", length = 36, nullable=false)
+    private String runId;
+
+    /**
+     * Lower-case name of a {@code ScrapePipeline.Outcome}, or {@code failed} for entries dropped after their last attempt.
+     */
+    @Column(name="outcome", length = 20, nullable=false)
+    private String outcome;
+
+    @Column(name="jobs", nullable=false)
+    private int jobs;
+
+    @Column(name="recorded_at", nullable=false)
+    private Instant recordedAt;
+}
@@ -2,18 +2,28 @@ package org.example.techstarsscraper.model;
 import jakarta.persistence.*;
 import lombok.*;
 
-import java.util.Map;
+import java.time.Instant;
 
 @Entity
-@Table(name = "jobs")
+@Table(name = "jobs", indexes = {
+        @Index(name = "jobs_labor_function_idx", columnList = "labor_function, id"),
+        @Index(name = "jobs_location_country_idx", columnList = "location_country, id"),
+        @Index(name = "jobs_next_check_idx", columnList = "closed_at, next_check_at")
+})
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
 @Getter
 @Setter
 public class Job {
+    /**
+     * Ids handed out per {@code jobs_seq} call; each sequence value is the upper bound of its block.
+     */
+    public static final int ID_ALLOCATION_SIZE = 50;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "jobs_seq")
+    @SequenceGenerator(name = "jobs_seq", sequenceName = "jobs_seq", allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
     @Column(name="job_page_url", unique=true, nullable=false)
@@ -49,9 +59,60 @@ public class Job {
     @Column(name="posted_date_unix")
     private Long postedDateUnix;
 
-    @Column(name="description_html", columnDefinition = "text")
+    /**
+     * Hash of the description in {@code job_descriptions}.
+     */
+    @Column(name="description_hash", length = 64)
+    private String descriptionHash;
+
+    /**
+     * Description of a job that was just fetched; stored by hash, not in {@code jobs}.
+     */
+    @Transient
     private String descriptionHtml;
 
     @Column(name="tags", length=1000)
     private String tags;
+
+    /**
+     * Labels of the job functions whose listings contained the job, comma-separated. Maintained apart
+     * from the scraped fields, so a job listed under another function is not re-fetched or rewritten.
+     */
+    @Column(name="matched_functions", length=1000)
+    private String matchedFunctions;
+
+    /**
+     * Hash over the scraped fields including {@code description_hash}; a stored row is rewritten only when it changes.
+     */
+    @Column(name="content_fingerprint", length = 64)
+    private String contentFingerprint;
+
+    /**
+     * Last time the job appeared in a listing, kept at a resolution of {@code scrape.refresh.seen-resolution}.
+     */
+    @Column(name="last_seen_at")
+    private Instant lastSeenAt;
+
+    @Column(name="last_checked_at")
+    private Instant lastCheckedAt;
+
+    @Column(name="last_changed_at")
+    private Instant lastChangedAt;
+
+    /**
+     * When the job page is due for its next re-check; the interval halves when the page changed
+     * and doubles when it did not, within {@code scrape.refresh.min-interval} and {@code max-interval}.
+     */
+    @Column(name="next_check_at")
+    private Instant nextCheckAt;
+
+    @Column(name="check_interval_seconds")
+    private Long checkIntervalSeconds;
+
+    /**
+     * Set when the job page is gone or the job has not been listed for {@code scrape.refresh.close-after};
+     * cleared when it is listed again.
+     */
+    @Column(name="closed_at")
+    private Instant closedAt;
 }
@@ -0,0 +1,35 @@
+package org.example.techstarsscraper.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * A distinct job description, stored once per content hash and deflate-compressed,
+ * optionally against a preset {@link DescriptionDictionary}.
+ */
+@Entity
+@Table(name = "job_descriptions")
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class JobDescription {
+    /**
+     * Hex SHA-256 of the UTF-8 description.
+     */
+    @Id
+    @Column(name="hash", length = 64)
+    private String hash;
+
+    /**
+     * Dictionary the body was compressed with, {@code 0} for none.
+     */
+    @Column(name="dictionary_id", nullable=false)
+    private int dictionaryId;
+
+    @Column(name="raw_length", nullable=false)
+    private int rawLength;
+
+    @Column(name="body", nullable=false, length = 16 * 1024 * 1024)
+    private byte[] body;
+}
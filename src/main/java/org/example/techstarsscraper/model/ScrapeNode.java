@@ -0,0 +1,42 @@
+package org.example.techstarsscraper.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * A scraper node working the shared frontier, as of its last heartbeat.
+ */
+@Entity
+@Table(name = "scrape_nodes")
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class ScrapeNode {
+    @Id
+    @Column(name="node_id")
+    private String nodeId;
+
+    @Column(name="started_at", nullable=false)
+    private Instant startedAt;
+
+    @Column(name="heartbeat_at", nullable=false)
+    private Instant heartbeatAt;
+
+    /**
+     * Frontier entries the node completed since it started.
+     */
+    @Column(name="completed", nullable=false)
+    private long completed;
+
+    @Column(name="failed", nullable=false)
+    private long failed;
+
+    /**
+     * Entries completed per minute between the last two heartbeats.
+     */
+    @Column(name="completed_per_minute", nullable=false)
+    private double completedPerMinute;
+}
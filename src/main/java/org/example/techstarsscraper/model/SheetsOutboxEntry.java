@@ -0,0 +1,27 @@
+package org.example.techstarsscraper.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * A newly inserted job still to be appended to the Google Sheet. Written in the transaction that
+ * inserts the job and deleted in the transaction that delivers it.
+ */
+@Entity
+@Table(name = "sheets_outbox", indexes = {
+        @Index(name = "sheets_outbox_created_idx", columnList = "created_at, job_id")
+})
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class SheetsOutboxEntry {
+    @Id
+    @Column(name="job_id")
+    private Long jobId;
+
+    @Column(name="created_at", nullable=false)
+    private Instant createdAt;
+}
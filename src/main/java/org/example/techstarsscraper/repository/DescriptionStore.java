@@ -0,0 +1,303 @@
+package org.example.techstarsscraper.repository;
+
+import lombok.extern.log4j.Log4j2;
+import org.example.techstarsscraper.model.Job;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Content-addressed store of job descriptions.
+ * <p>
+ * Each distinct description is kept once in {@code job_descriptions}, keyed by its SHA-256 and
+ * deflate-compressed against a preset dictionary of the markup and boilerplate most descriptions
+ * share. The dictionary is trained once enough distinct descriptions have been seen; bodies stored
+ * before that are compressed without one. Each body records the dictionary it was compressed with.
+ */
+@Repository
+@Log4j2
+public class DescriptionStore {
+
+    private static final int NO_DICTIONARY = 0;
+    private static final int MAX_DICTIONARY_BYTES = 32 * 1024;
+    private static final int MAX_SEGMENT_CHARS = 512;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSource dataSource;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate newTransactionTemplate;
+    private final int dictionarySize;
+    private final int trainingSamples;
+    private final int migrationBatchSize;
+
+    private final Map<Integer, byte[]> dictionaries = new ConcurrentHashMap<>();
+    private final Map<String, String> trainingSet = new LinkedHashMap<>();
+    private volatile int currentDictionaryId = -1;
+
+    public DescriptionStore(JdbcTemplate jdbcTemplate,
+                            DataSource dataSource,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${scrape.descriptions.dictionary-size}") DataSize dictionarySize,
+                            @Value("${scrape.descriptions.training-samples}") int trainingSamples,
+                            @Value("${scrape.persistence.batch-size}") int migrationBatchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dataSource = dataSource;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.newTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.newTransactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.dictionarySize = (int) Math.min(MAX_DICTIONARY_BYTES, dictionarySize.toBytes());
+        this.trainingSamples = Math.max(1, trainingSamples);
+        this.migrationBatchSize = Math.max(1, migrationBatchSize);
+    }
+
+    /**
+     * Stores the descriptions of the jobs that are not stored yet and sets each job's description hash.
+     * Jobs without a description get a {@code null} hash.
+     */
+    @Transactional
+    public void storeAll(Collection<Job> jobs) {
+        Map<String, String> byHash = new LinkedHashMap<>();
+        for (Job job : jobs) {
+            String html = job.getDescriptionHtml();
+            String hash = html == null || html.isBlank() ? null : hash(html);
+            job.setDescriptionHash(hash);
+            if (hash != null) byHash.putIfAbsent(hash, html);
+        }
+        if (byHash.isEmpty()) return;
+
+        Set<String> stored = new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT hash FROM job_descriptions WHERE hash IN (" + placeholders(byHash.size()) + ")",
+                String.class, byHash.keySet().toArray()));
+        byHash.keySet().removeAll(stored);
+        if (byHash.isEmpty()) return;
+
+        int dictionaryId = dictionaryFor(byHash);
+        byte[] dictionary = dictionaryId == NO_DICTIONARY ? null : dictionary(dictionaryId);
+        List<Object[]> rows = new ArrayList<>(byHash.size());
+        for (Map.Entry<String, String> e : byHash.entrySet()) {
+            byte[] raw = e.getValue().getBytes(StandardCharsets.UTF_8);
+            rows.add(new Object[]{e.getKey(), dictionaryId, raw.length, deflate(raw, dictionary)});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO job_descriptions (hash, dictionary_id, raw_length, body) " +
+                "VALUES (?, ?, ?, ?) ON CONFLICT (hash) DO NOTHING", rows);
+    }
+
+    /**
+     * Decompresses a stored body.
+     */
+    public String decompress(int dictionaryId, byte[] body) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(body);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(body.length * 4);
+            byte[] buffer = new byte[8192];
+            while (!inflater.finished()) {
+                int n = inflater.inflate(buffer);
+                if (n == 0) {
+                    if (inflater.needsDictionary()) {
+                        inflater.setDictionary(dictionary(dictionaryId));
+                    } else if (inflater.needsInput()) {
+                        throw new IllegalStateException("Truncated description body");
+                    }
+                }
+                out.write(buffer, 0, n);
+            }
+            return out.toString(StandardCharsets.UTF_8);
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupt description body", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * Moves descriptions still stored inline in {@code jobs.description_html} (from before this store existed)
+     * into the store, batch by batch, and clears the inline copies. Called at startup by {@code SchemaInitializer}.
+     */
+    public void migrateInlineDescriptions() {
+        if (!hasInlineDescriptionColumn()) return;
+
+        addTrainingSamples(jdbcTemplate.queryForList(
+                "SELECT description_html FROM jobs WHERE description_html IS NOT NULL LIMIT ?", String.class, trainingSamples));
+        int migrated = 0;
+        while (true) {
+            Integer count = transactionTemplate.execute(status -> migrateBatch());
+            if (count == null || count == 0) break;
+            migrated += count;
+        }
+        if (migrated > 0) {
+            log.info("Moved {} inline job descriptions into the description store", migrated);
+        }
+    }
+
+    private int migrateBatch() {
+        List<Job> jobs = jdbcTemplate.query(
+                "SELECT id, description_html FROM jobs WHERE description_html IS NOT NULL ORDER BY id LIMIT ?",
+                (rs, rowNum) -> Job.builder().id(rs.getLong("id")).descriptionHtml(rs.getString("description_html")).build(),
+                migrationBatchSize);
+        if (jobs.isEmpty()) return 0;
+
+        storeAll(jobs);
+        jdbcTemplate.batchUpdate("UPDATE jobs SET description_hash = ?, description_html = NULL WHERE id = ?",
+                jobs.stream().map(job -> new Object[]{job.getDescriptionHash(), job.getId()}).toList());
+        return jobs.size();
+    }
+
+    private boolean hasInlineDescriptionColumn() {
+        try {
+            return JdbcUtils.extractDatabaseMetaData(dataSource, metaData -> {
+                for (String table : List.of("jobs", "JOBS")) {
+                    try (ResultSet columns = metaData.getColumns(null, null, table, null)) {
+                        while (columns.next()) {
+                            if ("description_html".equalsIgnoreCase(columns.getString("COLUMN_NAME"))) return true;
+                        }
+                    }
+                }
+                return false;
+            });
+        } catch (Exception e) {
+            log.warn("Could not inspect the jobs table: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private synchronized void addTrainingSamples(List<String> bodies) {
+        for (String body : bodies) {
+            if (trainingSet.size() >= trainingSamples) break;
+            if (body != null && !body.isBlank()) trainingSet.putIfAbsent(hash(body), body);
+        }
+    }
+
+    /**
+     * Returns the dictionary to compress new bodies with, training one from the bodies seen so far
+     * once there are enough of them.
+     */
+    private synchronized int dictionaryFor(Map<String, String> newBodies) {
+        if (currentDictionaryId < 0) {
+            currentDictionaryId = Optional.ofNullable(jdbcTemplate.queryForObject(
+                    "SELECT MAX(id) FROM description_dictionaries", Integer.class)).orElse(NO_DICTIONARY);
+        }
+        if (currentDictionaryId != NO_DICTIONARY) return currentDictionaryId;
+
+        addTrainingSamples(List.copyOf(newBodies.values()));
+        if (trainingSet.size() < trainingSamples) return NO_DICTIONARY;
+
+        byte[] trained = train(trainingSet.values(), dictionarySize);
+        trainingSet.clear();
+        if (trained.length == 0) return NO_DICTIONARY;
+
+        // Saved in its own transaction: bodies compressed with it may be committed by other batches
+        // even if this one rolls back. Another instance may have saved one first; use whichever won.
+        int id = NO_DICTIONARY + 1;
+        byte[] dictionary = newTransactionTemplate.execute(status -> {
+            jdbcTemplate.update("INSERT INTO description_dictionaries (id, body, created_at) VALUES (?, ?, ?) " +
+                    "ON CONFLICT (id) DO NOTHING", id, trained, Timestamp.from(Instant.now()));
+            return jdbcTemplate.queryForObject("SELECT body FROM description_dictionaries WHERE id = ?", byte[].class, id);
+        });
+        dictionaries.put(id, dictionary);
+        currentDictionaryId = id;
+        log.info("Trained a {} byte description dictionary from {} descriptions", trained.length, trainingSamples);
+        return id;
+    }
+
+    private byte[] dictionary(int id) {
+        return dictionaries.computeIfAbsent(id, key -> jdbcTemplate.queryForObject(
+                "SELECT body FROM description_dictionaries WHERE id = ?", byte[].class, key));
+    }
+
+    /**
+     * Builds a preset dictionary from the markup and text segments that recur across the samples.
+     * Segments are scored by the bytes they would save (extra occurrences × length); the best ones are
+     * placed last, where deflate reaches them with the shortest distances.
+     */
+    static byte[] train(Collection<String> samples, int maxBytes) {
+        Map<String, Integer> documentFrequency = new HashMap<>();
+        for (String sample : samples) {
+            Set<String> segments = new HashSet<>();
+            int start = 0;
+            while (start < sample.length()) {
+                int end = sample.indexOf('<', start + 1);
+                if (end < 0) end = sample.length();
+                end = Math.min(end, start + MAX_SEGMENT_CHARS);
+                segments.add(sample.substring(start, end));
+                start = end;
+            }
+            for (String segment : segments) {
+                documentFrequency.merge(segment, 1, Integer::sum);
+            }
+        }
+
+        List<Map.Entry<String, Integer>> recurring = new ArrayList<>();
+        for (Map.Entry<String, Integer> e : documentFrequency.entrySet()) {
+            if (e.getValue() >= 2 && e.getKey().length() >= 4) recurring.add(e);
+        }
+        recurring.sort(Comparator.comparingLong((Map.Entry<String, Integer> e) -> (long) (e.getValue() - 1) * e.getKey().length())
+                .reversed());
+
+        List<byte[]> chosen = new ArrayList<>();
+        int size = 0;
+        for (Map.Entry<String, Integer> e : recurring) {
+            byte[] bytes = e.getKey().getBytes(StandardCharsets.UTF_8);
+            if (size + bytes.length > maxBytes) continue;
+            chosen.add(bytes);
+            size += bytes.length;
+        }
+
+        byte[] dictionary = new byte[size];
+        int offset = size;
+        for (byte[] bytes : chosen) {
+            offset -= bytes.length;
+            System.arraycopy(bytes, 0, dictionary, offset, bytes.length);
+        }
+        return dictionary;
+    }
+
+    static byte[] deflate(byte[] raw, byte[] dictionary) {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            if (dictionary != null) deflater.setDictionary(dictionary);
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, raw.length / 3));
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    static String hash(String html) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(html.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+}
@@ -0,0 +1,278 @@
+package org.example.techstarsscraper.repository;
+
+import org.example.techstarsscraper.dto.JobListing;
+import org.example.techstarsscraper.dto.ScrapeNodeStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+
+/**
+ * The tables scraper nodes coordinate through: {@code scrape_frontier}, the job pages waiting to be fetched
+ * by any node, {@code scrape_frontier_results}, what became of the entries each run enqueued, and
+ * {@code scrape_nodes}, each node's last heartbeat and throughput.
+ */
+@Repository
+public class FrontierRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public FrontierRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Adds the listings for the run; a job page already in the frontier keeps its existing entry.
+     */
+    @Transactional
+    public int enqueue(String runId, Collection<JobListing> listings) {
+        if (listings.isEmpty()) return 0;
+        OffsetDateTime now = at(Instant.now());
+        List<Object> args = new ArrayList<>(listings.size() * 4);
+        for (JobListing listing : listings) {
+            args.add(listing.jobPageUrl());
+            args.add(String.join(", ", listing.tags()));
+            args.add(runId);
+            args.add(now);
+        }
+        return jdbcTemplate.update("INSERT INTO scrape_frontier (job_page_url, tags, run_id, enqueued_at, attempts) VALUES "
+                + String.join(", ", Collections.nCopies(listings.size(), "(?, ?, ?, ?, 0)"))
+                + " ON CONFLICT (job_page_url) DO NOTHING", args.toArray());
+    }
+
+    /**
+     * Leases up to {@code limit} of the oldest entries that are unleased or whose lease expired to the node.
+     * Entries locked by a concurrent claim are skipped rather than waited for.
+     */
+    @Transactional
+    public List<Claim> claim(String nodeId, int limit, Duration lease) {
+        Instant now = Instant.now();
+        List<Claim> claimed = jdbcTemplate.query("SELECT f.job_page_url, f.tags, " +
+                        "EXISTS (SELECT 1 FROM jobs j WHERE j.job_page_url = f.job_page_url) AS stored " +
+                        "FROM scrape_frontier f WHERE f.lease_expires_at IS NULL OR f.lease_expires_at < ? " +
+                        "ORDER BY f.enqueued_at LIMIT ? FOR UPDATE SKIP LOCKED",
+                (rs, rowNum) -> {
+                    String tags = rs.getString("tags");
+                    return new Claim(new JobListing(rs.getString("job_page_url"),
+                            tags == null || tags.isEmpty() ? List.of() : List.of(tags.split(", "))),
+                            rs.getBoolean("stored"));
+                },
+                at(now), limit);
+        if (claimed.isEmpty()) return claimed;
+
+        List<Object> args = new ArrayList<>(claimed.size() + 2);
+        args.add(nodeId);
+        args.add(at(now.plus(lease)));
+        claimed.forEach(claim -> args.add(claim.listing().jobPageUrl()));
+        jdbcTemplate.update("UPDATE scrape_frontier SET lease_owner = ?, lease_expires_at = ? " +
+                "WHERE job_page_url IN (" + placeholders(claimed.size()) + ")", args.toArray());
+        return claimed;
+    }
+
+    /**
+     * Deletes the node's entries for jobs that have been saved, or recorded as unchanged or closed, and records
+     * the outcome for the runs that enqueued them.
+     */
+    @Transactional
+    public int complete(String nodeId, Collection<String> jobPageUrls, String outcome) {
+        if (jobPageUrls.isEmpty()) return 0;
+        Map<String, Integer> byRun = countByRun("lease_owner = ?", nodeId, jobPageUrls);
+        int deleted = updateLeased("DELETE FROM scrape_frontier", nodeId, jobPageUrls);
+        recordResults(byRun, outcome);
+        return deleted;
+    }
+
+    /**
+     * Returns the node's entries to the frontier after a failed fetch or save, dropping those that have
+     * failed {@code maxAttempts} times; dropped entries are recorded as failed for the runs that enqueued them.
+     *
+     * @return the number of entries dropped
+     */
+    @Transactional
+    public int release(String nodeId, Collection<String> jobPageUrls, int maxAttempts) {
+        if (jobPageUrls.isEmpty()) return 0;
+        updateLeased("UPDATE scrape_frontier SET lease_owner = NULL, lease_expires_at = NULL, attempts = attempts + 1",
+                nodeId, jobPageUrls);
+        Map<String, Integer> byRun = countByRun("attempts >= ? AND lease_owner IS NULL", maxAttempts, jobPageUrls);
+        if (byRun.isEmpty()) return 0;
+        List<Object> args = new ArrayList<>(List.of(maxAttempts));
+        args.addAll(jobPageUrls);
+        int dropped = jdbcTemplate.update("DELETE FROM scrape_frontier WHERE attempts >= ? AND lease_owner IS NULL " +
+                "AND job_page_url IN (" + placeholders(jobPageUrls.size()) + ")", args.toArray());
+        recordResults(byRun, "failed");
+        return dropped;
+    }
+
+    private Map<String, Integer> countByRun(String condition, Object conditionArg, Collection<String> jobPageUrls) {
+        List<Object> args = new ArrayList<>(jobPageUrls.size() + 1);
+        args.add(conditionArg);
+        args.addAll(jobPageUrls);
+        Map<String, Integer> byRun = new HashMap<>();
+        jdbcTemplate.query("SELECT run_id, count(*) AS jobs FROM scrape_frontier WHERE " + condition +
+                        " AND run_id IS NOT NULL AND job_page_url IN (" + placeholders(jobPageUrls.size()) + ") GROUP BY run_id",
+                rs -> {
+                    byRun.put(rs.getString("run_id"), rs.getInt("jobs"));
+                },
+                args.toArray());
+        return byRun;
+    }
+
+    private void recordResults(Map<String, Integer> byRun, String outcome) {
+        if (byRun.isEmpty()) return;
+        OffsetDateTime now = at(Instant.now());
+        List<Object> args = new ArrayList<>(byRun.size() * 4);
+        byRun.forEach((runId, jobs) -> {
+            args.add(runId);
+            args.add(outcome);
+            args.add(jobs);
+            args.add(now);
+        });
+        jdbcTemplate.update("INSERT INTO scrape_frontier_results (run_id, outcome, jobs, recorded_at) VALUES "
+                + String.join(", ", Collections.nCopies(byRun.size(), "(?, ?, ?, ?)")), args.toArray());
+    }
+
+    /**
+     * The number of the run's entries settled so far, by outcome, over all nodes.
+     */
+    public Map<String, Long> countResults(String runId) {
+        Map<String, Long> counts = new HashMap<>();
+        jdbcTemplate.query("SELECT outcome, sum(jobs) AS jobs FROM scrape_frontier_results WHERE run_id = ? GROUP BY outcome",
+                rs -> {
+                    counts.put(rs.getString("outcome"), rs.getLong("jobs"));
+                },
+                runId);
+        return counts;
+    }
+
+    @Transactional
+    public int deleteResults(String runId) {
+        return jdbcTemplate.update("DELETE FROM scrape_frontier_results WHERE run_id = ?", runId);
+    }
+
+    /**
+     * Deletes results left behind by runs that never finished, e.g. because their node died: those of runs with
+     * no entries left in the frontier and no result recorded since the cutoff.
+     */
+    @Transactional
+    public int deleteAbandonedResults(Instant cutoff) {
+        return jdbcTemplate.update("DELETE FROM scrape_frontier_results WHERE run_id IN (SELECT r.run_id " +
+                "FROM scrape_frontier_results r GROUP BY r.run_id HAVING max(r.recorded_at) < ?) " +
+                "AND NOT EXISTS (SELECT 1 FROM scrape_frontier f WHERE f.run_id = scrape_frontier_results.run_id)",
+                at(cutoff));
+    }
+
+    /**
+     * Returns the node's entries to the frontier without counting an attempt, e.g. when the node shuts down.
+     */
+    @Transactional
+    public int abandon(String nodeId, Collection<String> jobPageUrls) {
+        return updateLeased("UPDATE scrape_frontier SET lease_owner = NULL, lease_expires_at = NULL", nodeId, jobPageUrls);
+    }
+
+    /**
+     * Extends the node's leases on the given entries.
+     */
+    @Transactional
+    public int renew(String nodeId, Collection<String> jobPageUrls, Duration lease) {
+        if (jobPageUrls.isEmpty()) return 0;
+        List<Object> args = new ArrayList<>(jobPageUrls.size() + 2);
+        args.add(at(Instant.now().plus(lease)));
+        args.add(nodeId);
+        args.addAll(jobPageUrls);
+        return jdbcTemplate.update("UPDATE scrape_frontier SET lease_expires_at = ? WHERE lease_owner = ? " +
+                "AND job_page_url IN (" + placeholders(jobPageUrls.size()) + ")", args.toArray());
+    }
+
+    private int updateLeased(String statement, String nodeId, Collection<String> jobPageUrls) {
+        if (jobPageUrls.isEmpty()) return 0;
+        List<Object> args = new ArrayList<>(jobPageUrls.size() + 1);
+        args.add(nodeId);
+        args.addAll(jobPageUrls);
+        return jdbcTemplate.update(statement + " WHERE lease_owner = ? AND job_page_url IN ("
+                + placeholders(jobPageUrls.size()) + ")", args.toArray());
+    }
+
+    public long countForRun(String runId) {
+        Long count = jdbcTemplate.queryForObject("SELECT count(*) FROM scrape_frontier WHERE run_id = ?", Long.class, runId);
+        return count == null ? 0 : count;
+    }
+
+    /**
+     * Deletes the run's entries that no node is working on.
+     */
+    @Transactional
+    public int deleteUnleased(String runId) {
+        return jdbcTemplate.update("DELETE FROM scrape_frontier WHERE run_id = ? " +
+                "AND (lease_expires_at IS NULL OR lease_expires_at < ?)", runId, at(Instant.now()));
+    }
+
+    /**
+     * Records a heartbeat of the node with its totals so far.
+     */
+    @Transactional
+    public void heartbeat(String nodeId, Instant startedAt, long completed, long failed, double completedPerMinute) {
+        jdbcTemplate.update("INSERT INTO scrape_nodes (node_id, started_at, heartbeat_at, completed, failed, " +
+                        "completed_per_minute) VALUES (?, ?, ?, ?, ?, ?) ON CONFLICT (node_id) DO UPDATE SET " +
+                        "heartbeat_at = EXCLUDED.heartbeat_at, completed = EXCLUDED.completed, " +
+                        "failed = EXCLUDED.failed, completed_per_minute = EXCLUDED.completed_per_minute",
+                nodeId, at(startedAt), at(Instant.now()), completed, failed, completedPerMinute);
+    }
+
+    @Transactional
+    public int deleteNodesSilentSince(Instant cutoff) {
+        return jdbcTemplate.update("DELETE FROM scrape_nodes WHERE heartbeat_at < ?", at(cutoff));
+    }
+
+    /**
+     * All known nodes with the number of frontier entries each holds a live lease on.
+     *
+     * @param aliveAfter nodes whose last heartbeat is older count as not alive
+     */
+    public List<ScrapeNodeStatus> findNodes(Instant aliveAfter) {
+        return jdbcTemplate.query("SELECT n.node_id, n.started_at, n.heartbeat_at, n.completed, n.failed, " +
+                        "n.completed_per_minute, (SELECT count(*) FROM scrape_frontier f WHERE f.lease_owner = n.node_id " +
+                        "AND f.lease_expires_at >= ?) AS leased FROM scrape_nodes n ORDER BY n.node_id",
+                (rs, rowNum) -> {
+                    Instant heartbeatAt = instant(rs, "heartbeat_at");
+                    return new ScrapeNodeStatus(
+                            rs.getString("node_id"),
+                            instant(rs, "started_at"),
+                            heartbeatAt,
+                            !heartbeatAt.isBefore(aliveAfter),
+                            rs.getLong("completed"),
+                            rs.getLong("failed"),
+                            rs.getDouble("completed_per_minute"),
+                            rs.getLong("leased"));
+                },
+                at(Instant.now()));
+    }
+
+    /**
+     * A leased entry.
+     *
+     * @param stored whether the job is in {@code jobs}, as opposed to known to the claiming node; a node that
+     *               crashed before saving a fetched job still holds its page in the response cache
+     */
+    public record Claim(JobListing listing, boolean stored) {
+    }
+
+    private static Instant instant(ResultSet rs, String column) throws SQLException {
+        OffsetDateTime value = rs.getObject(column, OffsetDateTime.class);
+        return value == null ? null : value.toInstant();
+    }
+
+    private static OffsetDateTime at(Instant instant) {
+        return instant.atOffset(ZoneOffset.UTC);
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+}
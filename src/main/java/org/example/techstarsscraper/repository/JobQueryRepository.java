@@ -0,0 +1,258 @@
+package org.example.techstarsscraper.repository;
+
+import org.example.techstarsscraper.dto.FacetCount;
+import org.example.techstarsscraper.dto.JobFilter;
+import org.example.techstarsscraper.dto.JobView;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Read-side queries over {@code jobs} that select only the requested columns.
+ * Descriptions are joined in from the description store and decompressed only when asked for.
+ */
+@Repository
+public class JobQueryRepository {
+
+    public enum Sort { ID, POSTED }
+
+    /**
+     * Keyset position: the sort key and id of the last row of the previous page.
+     */
+    public record Cursor(
+            Long postedDateUnix,
+            long id) {
+    }
+
+    /**
+     * Number of matches and the most frequent values of each facet among them.
+     */
+    public record Facets(
+            long total,
+            Map<String, List<FacetCount>> counts) {
+    }
+
+    private static final String SUMMARY_COLUMNS = "id, job_page_url, position_name, organization_url, logo_url, " +
+            "organization_title, labor_function, location_raw, location_city, location_state, location_country, " +
+            "posted_date_unix, tags, matched_functions, last_seen_at, last_changed_at, closed_at";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate streamingJdbcTemplate;
+    private final DescriptionStore descriptionStore;
+
+    public JobQueryRepository(JdbcTemplate jdbcTemplate,
+                              DataSource dataSource,
+                              DescriptionStore descriptionStore,
+                              @Value("${scrape.api.export-fetch-size}") int exportFetchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.descriptionStore = descriptionStore;
+        this.streamingJdbcTemplate = new JdbcTemplate(dataSource);
+        this.streamingJdbcTemplate.setFetchSize(exportFetchSize);
+    }
+
+    public List<JobView> findPage(JobFilter filter, Sort sort, Cursor after, int limit, boolean includeDescription) {
+        List<Object> args = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("SELECT ").append(from(includeDescription));
+        List<String> conditions = conditions(filter, args);
+
+        if (after != null) {
+            if (sort == Sort.POSTED) {
+                conditions.add("(COALESCE(posted_date_unix, 0), id) < (?, ?)");
+                args.add(after.postedDateUnix() != null ? after.postedDateUnix() : 0L);
+            } else {
+                conditions.add("id > ?");
+            }
+            args.add(after.id());
+        }
+        where(sql, conditions);
+        sql.append(sort == Sort.POSTED ? " ORDER BY COALESCE(posted_date_unix, 0) DESC, id DESC" : " ORDER BY id");
+        sql.append(" LIMIT ?");
+        args.add(limit);
+
+        return jdbcTemplate.query(sql.toString(), rowMapper(includeDescription), args.toArray());
+    }
+
+    /**
+     * Jobs matching the full-text query and the filter, best match first. A blank query matches every job
+     * and orders by id, newest first. The query takes web search syntax: quoted phrases, {@code or} and
+     * {@code -excluded} words.
+     */
+    public List<JobView> search(String query, JobFilter filter, int limit, int offset, boolean includeDescription) {
+        List<Object> args = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("SELECT ").append(from(includeDescription));
+        where(sql, searchConditions(query, filter, args));
+        if (hasText(query)) {
+            sql.append(" ORDER BY ts_rank_cd(search_vector, websearch_to_tsquery('english', ?)) DESC, id DESC");
+            args.add(query);
+        } else {
+            sql.append(" ORDER BY id DESC");
+        }
+        sql.append(" LIMIT ? OFFSET ?");
+        args.add(limit);
+        args.add(offset);
+        return jdbcTemplate.query(sql.toString(), rowMapper(includeDescription), args.toArray());
+    }
+
+    /**
+     * Counts the matches of {@link #search} by labor function, country and tag in one pass over them,
+     * keeping the {@code size} most frequent values of each facet.
+     */
+    public Facets facets(String query, JobFilter filter, int size) {
+        List<Object> args = new ArrayList<>();
+        StringBuilder matches = new StringBuilder("SELECT labor_function, location_country, tags FROM jobs");
+        where(matches, searchConditions(query, filter, args));
+        args.add(size);
+        String sql = "WITH m AS MATERIALIZED (" + matches + "), counts AS (" +
+                "SELECT 'total' AS facet, NULL AS value, count(*) AS n FROM m " +
+                "UNION ALL SELECT 'function', labor_function, count(*) FROM m WHERE labor_function <> '' GROUP BY labor_function " +
+                "UNION ALL SELECT 'country', location_country, count(*) FROM m WHERE location_country <> '' GROUP BY location_country " +
+                "UNION ALL SELECT 'tag', t, count(*) FROM m CROSS JOIN LATERAL unnest(string_to_array(m.tags, ', ')) AS t " +
+                "WHERE t <> '' GROUP BY t) " +
+                "SELECT facet, value, n FROM (SELECT *, row_number() OVER (PARTITION BY facet ORDER BY n DESC, value) AS r " +
+                "FROM counts) ranked WHERE r <= ? ORDER BY facet, n DESC, value";
+
+        Map<String, List<FacetCount>> counts = new LinkedHashMap<>();
+        for (String facet : List.of("function", "country", "tag")) {
+            counts.put(facet, new ArrayList<>());
+        }
+        long[] total = {0};
+        jdbcTemplate.query(sql, rs -> {
+            String facet = rs.getString("facet");
+            if (facet.equals("total")) {
+                total[0] = rs.getLong("n");
+            } else {
+                counts.get(facet).add(new FacetCount(rs.getString("value"), rs.getLong("n")));
+            }
+        }, args.toArray());
+        return new Facets(total[0], counts);
+    }
+
+    private static List<String> searchConditions(String query, JobFilter filter, List<Object> args) {
+        List<String> conditions = new ArrayList<>();
+        if (hasText(query)) {
+            conditions.add("search_vector @@ websearch_to_tsquery('english', ?)");
+            args.add(query);
+        }
+        conditions.addAll(conditions(filter, args));
+        return conditions;
+    }
+
+    /**
+     * The jobs with the given ids, in id order; ids without a row are left out.
+     */
+    public List<JobView> findByIds(Collection<Long> ids, boolean includeDescription) {
+        if (ids.isEmpty()) return List.of();
+        String sql = "SELECT " + from(includeDescription) + " WHERE id IN ("
+                + String.join(", ", Collections.nCopies(ids.size(), "?")) + ") ORDER BY id";
+        return jdbcTemplate.query(sql, rowMapper(includeDescription), ids.toArray());
+    }
+
+    /**
+     * Streams all matching rows in id order through a server-side cursor.
+     * Must be called inside a transaction so that the driver fetches rows in chunks.
+     */
+    public void streamAll(JobFilter filter, boolean includeDescription, Consumer<JobView> consumer) {
+        List<Object> args = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("SELECT ").append(from(includeDescription));
+        where(sql, conditions(filter, args));
+        sql.append(" ORDER BY id");
+
+        RowMapper<JobView> mapper = rowMapper(includeDescription);
+        streamingJdbcTemplate.query(sql.toString(), rs -> {
+            consumer.accept(mapper.mapRow(rs, rs.getRow()));
+        }, args.toArray());
+    }
+
+    private static List<String> conditions(JobFilter filter, List<Object> args) {
+        List<String> conditions = new ArrayList<>();
+        if (filter == null) return conditions;
+        if (hasText(filter.laborFunction())) {
+            conditions.add("labor_function = ?");
+            args.add(filter.laborFunction());
+        }
+        if (hasText(filter.country())) {
+            conditions.add("location_country = ?");
+            args.add(filter.country());
+        }
+        if (hasText(filter.tag())) {
+            // tags are stored comma-separated; match whole tags only
+            conditions.add("(', ' || tags || ', ') LIKE ?");
+            args.add("%, " + escapeLike(filter.tag().trim()) + ", %");
+        }
+        if (filter.closed() != null) {
+            conditions.add(filter.closed() ? "closed_at IS NOT NULL" : "closed_at IS NULL");
+        }
+        return conditions;
+    }
+
+    private static void where(StringBuilder sql, List<String> conditions) {
+        if (!conditions.isEmpty()) {
+            sql.append(" WHERE ").append(String.join(" AND ", conditions));
+        }
+    }
+
+    private static String from(boolean includeDescription) {
+        return includeDescription
+                ? SUMMARY_COLUMNS + ", d.dictionary_id, d.body FROM jobs LEFT JOIN job_descriptions d ON d.hash = description_hash"
+                : SUMMARY_COLUMNS + " FROM jobs";
+    }
+
+    private RowMapper<JobView> rowMapper(boolean includeDescription) {
+        return (rs, rowNum) -> new JobView(
+                rs.getLong("id"),
+                rs.getString("job_page_url"),
+                rs.getString("position_name"),
+                rs.getString("organization_url"),
+                rs.getString("logo_url"),
+                rs.getString("organization_title"),
+                rs.getString("labor_function"),
+                rs.getString("location_raw"),
+                rs.getString("location_city"),
+                rs.getString("location_state"),
+                rs.getString("location_country"),
+                getNullableLong(rs, "posted_date_unix"),
+                includeDescription ? description(rs) : null,
+                rs.getString("tags"),
+                rs.getString("matched_functions"),
+                getInstant(rs, "last_seen_at"),
+                getInstant(rs, "last_changed_at"),
+                getInstant(rs, "closed_at"));
+    }
+
+    private String description(ResultSet rs) throws SQLException {
+        byte[] body = rs.getBytes("body");
+        return body == null ? null : descriptionStore.decompress(rs.getInt("dictionary_id"), body);
+    }
+
+    private static Long getNullableLong(ResultSet rs, String column) throws SQLException {
+        long value = rs.getLong(column);
+        return rs.wasNull() ? null : value;
+    }
+
+    private static Instant getInstant(ResultSet rs, String column) throws SQLException {
+        OffsetDateTime value = rs.getObject(column, OffsetDateTime.class);
+        return value == null ? null : value.toInstant();
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    private static boolean hasText(String value) {
+        return value != null && !value.isBlank();
+    }
+}
@@ -2,10 +2,15 @@ package org.example.techstarsscraper.repository;
 
 import org.example.techstarsscraper.model.Job;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
 import java.util.List;
+import java.util.stream.Stream;
 
-public interface JobRepository extends JpaRepository<Job, Long> {
+public interface JobRepository extends JpaRepository<Job, Long>, JobRepositoryCustom {
     List<Job> findByJobPageUrl(String jobPageUrl);
 
-}
\ No newline at end of file
+    @Query("select j.jobPageUrl from Job j")
+    Stream<String> streamAllJobPageUrls();
+
+}
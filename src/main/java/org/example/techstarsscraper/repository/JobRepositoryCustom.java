@@ -0,0 +1,85 @@
+package org.example.techstarsscraper.repository;
+
+import org.example.techstarsscraper.dto.JobListing;
+import org.example.techstarsscraper.model.Job;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public interface JobRepositoryCustom {
+
+    /**
+     * Inserts the jobs, or updates the stored row when a job with the same {@code job_page_url}
+     * exists and its content fingerprint differs, using one multi-row statement per batch.
+     * Stored jobs whose fingerprint is unchanged are only recorded as checked, as by {@link #markUnchanged}.
+     * Ids of inserted and updated jobs are set on the given instances, and inserted jobs are added to the
+     * Sheets outbox in the same transaction.
+     */
+    UpsertResult upsertAll(List<Job> jobs);
+
+    /**
+     * Overwrites the stored jobs with re-extracted ones, e.g. after an extractor was fixed, using one batched
+     * statement per batch. A job without tags keeps its stored tags. Only content columns, the fingerprint and
+     * the search vector are written; the check schedule and listing state are left alone. Jobs that are not
+     * stored are skipped, and rows whose fingerprint does not change are not written.
+     */
+    ReextractResult updateExtracted(List<Job> jobs);
+
+    /**
+     * Records a re-check that found the job pages unchanged, which doubles their check interval.
+     */
+    int markUnchanged(Collection<String> jobPageUrls);
+
+    /**
+     * Records that the jobs appeared in a listing, reopening closed ones. Rows whose {@code last_seen_at}
+     * is more recent than the seen resolution are left untouched.
+     */
+    int markSeen(Collection<String> jobPageUrls);
+
+    /**
+     * Adds the labels of the job functions whose listings contained each job to its {@code matched_functions}.
+     * Rows that already list all of their functions are left untouched.
+     */
+    int addMatchedFunctions(Map<String, ? extends Collection<String>> functionsByUrl);
+
+    /**
+     * Closes the jobs, e.g. because their pages are gone.
+     */
+    int markClosed(Collection<String> jobPageUrls);
+
+    /**
+     * Closes open jobs that have not appeared in a listing since the cutoff.
+     */
+    int closeUnseenSince(Instant cutoff);
+
+    /**
+     * Open jobs whose next re-check is due, most overdue first, with their stored tags.
+     */
+    List<JobListing> findDueForCheck(int limit);
+
+    /**
+     * Gives rows stored before change tracking existed a check schedule, and counts them as seen now.
+     */
+    int initializeChangeTracking();
+
+    /**
+     * Computes {@code search_vector} for up to {@code limit} jobs stored without one.
+     *
+     * @return the number of jobs indexed
+     */
+    int indexMissingSearchVectors(int limit);
+
+    record ReextractResult(
+            int updated,
+            int unchanged,
+            int missing) {
+    }
+
+    record UpsertResult(
+            List<Job> inserted,
+            List<Job> updated,
+            List<Job> unchanged) {
+    }
+}
@@ -0,0 +1,494 @@
+package org.example.techstarsscraper.repository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.example.techstarsscraper.dto.JobListing;
+import org.example.techstarsscraper.model.Job;
+import org.jsoup.Jsoup;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+public class JobRepositoryImpl implements JobRepositoryCustom {
+
+    private static final List<String> COLUMNS = List.of(
+            "job_page_url", "position_name", "organization_url", "logo_url", "organization_title",
+            "labor_function", "location_raw", "location_city", "location_state", "location_country",
+            "posted_date_unix", "description_hash", "tags");
+
+    private static final List<Function<Job, Object>> VALUES = List.of(
+            Job::getJobPageUrl, Job::getPositionName, Job::getOrganizationUrl, Job::getLogoUrl, Job::getOrganizationTitle,
+            Job::getLaborFunction, Job::getLocationRaw, Job::getLocationCity, Job::getLocationState, Job::getLocationCountry,
+            Job::getPostedDateUnix, Job::getDescriptionHash, Job::getTags);
+
+    private static final List<String> TRACKING_COLUMNS = List.of(
+            "content_fingerprint", "last_seen_at", "last_checked_at", "last_changed_at", "next_check_at",
+            "check_interval_seconds");
+
+    /**
+     * Expression for {@code search_vector} over three parameters: position, organization and location;
+     * tags; and the text of the description.
+     */
+    private static final String SEARCH_VECTOR = "setweight(to_tsvector('english', ?), 'A') || "
+            + "setweight(to_tsvector('english', ?), 'B') || setweight(to_tsvector('english', ?), 'C')";
+
+    /**
+     * Description text indexed per job; well below the 1 MB limit of a {@code tsvector}.
+     */
+    private static final int MAX_SEARCH_TEXT = 100_000;
+
+    private static final String UPDATED_COLUMNS = String.join(", ", COLUMNS.subList(1, COLUMNS.size()));
+
+    /**
+     * Parameters bound per row of the multi-row upsert: id, columns, tracking columns and search text.
+     */
+    private static final int UPSERT_PARAMETERS_PER_ROW = 1 + COLUMNS.size() + TRACKING_COLUMNS.size() + 3;
+
+    /**
+     * Most parameters one statement may bind; the PostgreSQL protocol counts them in 16 bits.
+     */
+    private static final int MAX_BIND_PARAMETERS = 65_535;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DescriptionStore descriptionStore;
+    private final SheetsOutboxRepository sheetsOutbox;
+    private final int batchSize;
+    private final long minIntervalSeconds;
+    private final long maxIntervalSeconds;
+    private final long initialIntervalSeconds;
+    private final Duration seenResolution;
+    private final Timer upsertTimer;
+    private final Timer descriptionsTimer;
+    private final Timer dedupTimer;
+    private final Timer writeTimer;
+    private final Counter insertedCounter;
+    private final Counter updatedCounter;
+    private final Counter unchangedCounter;
+
+    public JobRepositoryImpl(JdbcTemplate jdbcTemplate,
+                             DescriptionStore descriptionStore,
+                             SheetsOutboxRepository sheetsOutbox,
+                             @Value("${scrape.persistence.batch-size}") int batchSize,
+                             @Value("${scrape.refresh.min-interval}") Duration minInterval,
+                             @Value("${scrape.refresh.max-interval}") Duration maxInterval,
+                             @Value("${scrape.refresh.initial-interval}") Duration initialInterval,
+                             @Value("${scrape.refresh.seen-resolution}") Duration seenResolution,
+                             MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.descriptionStore = descriptionStore;
+        this.sheetsOutbox = sheetsOutbox;
+        this.batchSize = Math.clamp(batchSize, 1, MAX_BIND_PARAMETERS / UPSERT_PARAMETERS_PER_ROW);
+        this.minIntervalSeconds = Math.max(1, minInterval.toSeconds());
+        this.maxIntervalSeconds = Math.max(this.minIntervalSeconds, maxInterval.toSeconds());
+        this.initialIntervalSeconds = Math.clamp(initialInterval.toSeconds(), this.minIntervalSeconds, this.maxIntervalSeconds);
+        this.seenResolution = seenResolution;
+        this.upsertTimer = Timer.builder("scraper.db.upsert")
+                .description("Time to persist one batch of fetched jobs, including descriptions")
+                .register(meterRegistry);
+        this.descriptionsTimer = Timer.builder("scraper.db.descriptions")
+                .description("Time to deduplicate and store the descriptions of one batch")
+                .register(meterRegistry);
+        this.dedupTimer = Timer.builder("scraper.db.dedup")
+                .description("Time to look up stored fingerprints for one batch")
+                .register(meterRegistry);
+        this.writeTimer = Timer.builder("scraper.db.write")
+                .description("Time of one multi-row upsert statement")
+                .register(meterRegistry);
+        this.insertedCounter = persistedCounter("inserted", meterRegistry);
+        this.updatedCounter = persistedCounter("updated", meterRegistry);
+        this.unchangedCounter = persistedCounter("unchanged", meterRegistry);
+    }
+
+    private static Counter persistedCounter(String result, MeterRegistry meterRegistry) {
+        return Counter.builder("scraper.jobs.persisted")
+                .description("Fetched jobs by what persisting them did")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    @Override
+    @Transactional
+    public UpsertResult upsertAll(List<Job> jobs) {
+        long start = System.nanoTime();
+        UpsertResult result = upsertAllUntimed(jobs);
+        upsertTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        insertedCounter.increment(result.inserted().size());
+        updatedCounter.increment(result.updated().size());
+        unchangedCounter.increment(result.unchanged().size());
+        return result;
+    }
+
+    private UpsertResult upsertAllUntimed(List<Job> jobs) {
+        Map<String, Job> byUrl = new LinkedHashMap<>();
+        for (Job job : jobs) {
+            byUrl.put(job.getJobPageUrl(), job);
+        }
+
+        List<Job> inserted = new ArrayList<>();
+        List<Job> updated = new ArrayList<>();
+        List<Job> unchanged = new ArrayList<>();
+        List<Job> unique = new ArrayList<>(byUrl.values());
+        descriptionsTimer.record(() -> descriptionStore.storeAll(unique));
+        unique.forEach(job -> job.setContentFingerprint(fingerprint(job)));
+
+        Instant now = Instant.now();
+        for (int from = 0; from < unique.size(); from += batchSize) {
+            List<Job> batch = unique.subList(from, Math.min(unique.size(), from + batchSize));
+            Map<String, String> stored = dedupTimer.record(() -> storedFingerprints(batch));
+            List<Job> changed = new ArrayList<>(batch.size());
+            List<String> unchangedUrls = new ArrayList<>();
+            for (Job job : batch) {
+                if (job.getContentFingerprint().equals(stored.get(job.getJobPageUrl()))) {
+                    unchanged.add(job);
+                    unchangedUrls.add(job.getJobPageUrl());
+                } else {
+                    changed.add(job);
+                }
+            }
+            if (!changed.isEmpty()) {
+                int insertedBefore = inserted.size();
+                writeTimer.record(() -> upsertBatch(changed, byUrl, inserted, updated, now));
+                sheetsOutbox.enqueue(inserted.subList(insertedBefore, inserted.size()).stream().map(Job::getId).toList());
+            }
+            if (!unchangedUrls.isEmpty()) updateUnchanged(unchangedUrls, now);
+        }
+        return new UpsertResult(inserted, updated, unchanged);
+    }
+
+    @Override
+    @Transactional
+    public ReextractResult updateExtracted(List<Job> jobs) {
+        Map<String, Job> byUrl = new LinkedHashMap<>();
+        for (Job job : jobs) {
+            byUrl.put(job.getJobPageUrl(), job);
+        }
+        List<Job> unique = new ArrayList<>(byUrl.values());
+        String sql = "UPDATE jobs SET (" + UPDATED_COLUMNS + ", content_fingerprint) = ("
+                + placeholders(COLUMNS.size()) + "), search_vector = " + SEARCH_VECTOR + " WHERE job_page_url = ?";
+
+        int updated = 0;
+        int unchanged = 0;
+        int missing = 0;
+        for (int from = 0; from < unique.size(); from += batchSize) {
+            List<Job> batch = unique.subList(from, Math.min(unique.size(), from + batchSize));
+            Map<String, String[]> stored = new HashMap<>();
+            jdbcTemplate.query("SELECT job_page_url, tags, content_fingerprint FROM jobs WHERE job_page_url IN ("
+                            + placeholders(batch.size()) + ")",
+                    rs -> {
+                        stored.put(rs.getString("job_page_url"),
+                                new String[]{rs.getString("tags"), rs.getString("content_fingerprint")});
+                    },
+                    batch.stream().map(Job::getJobPageUrl).toArray());
+
+            List<Job> present = new ArrayList<>(batch.size());
+            for (Job job : batch) {
+                String[] row = stored.get(job.getJobPageUrl());
+                if (row == null) {
+                    missing++;
+                    continue;
+                }
+                if (job.getTags() == null) job.setTags(row[0]);
+                present.add(job);
+            }
+            descriptionsTimer.record(() -> descriptionStore.storeAll(present));
+
+            List<Object[]> rows = new ArrayList<>(present.size());
+            for (Job job : present) {
+                job.setContentFingerprint(fingerprint(job));
+                if (job.getContentFingerprint().equals(stored.get(job.getJobPageUrl())[1])) {
+                    unchanged++;
+                    continue;
+                }
+                Object[] args = new Object[COLUMNS.size() + 4];
+                int i = 0;
+                for (Function<Job, Object> value : VALUES.subList(1, VALUES.size())) {
+                    args[i++] = value.apply(job);
+                }
+                args[i++] = job.getContentFingerprint();
+                for (String text : searchText(job.getPositionName(), job.getOrganizationTitle(), job.getLocationRaw(),
+                        job.getTags(), job.getDescriptionHtml())) {
+                    args[i++] = text;
+                }
+                args[i] = job.getJobPageUrl();
+                rows.add(args);
+            }
+            if (!rows.isEmpty()) {
+                writeTimer.record(() -> jdbcTemplate.batchUpdate(sql, rows));
+                updated += rows.size();
+            }
+        }
+        return new ReextractResult(updated, unchanged, missing);
+    }
+
+    @Override
+    @Transactional
+    public int markUnchanged(Collection<String> jobPageUrls) {
+        Instant now = Instant.now();
+        int count = 0;
+        for (List<String> chunk : chunks(jobPageUrls)) {
+            count += updateUnchanged(chunk, now);
+        }
+        return count;
+    }
+
+    @Override
+    @Transactional
+    public int markSeen(Collection<String> jobPageUrls) {
+        Instant now = Instant.now();
+        int count = 0;
+        for (List<String> chunk : chunks(jobPageUrls)) {
+            List<Object> args = new ArrayList<>(chunk.size() + 2);
+            args.add(at(now));
+            args.addAll(chunk);
+            args.add(at(now.minus(seenResolution)));
+            count += jdbcTemplate.update("UPDATE jobs SET last_seen_at = ?, closed_at = NULL " +
+                    "WHERE job_page_url IN (" + placeholders(chunk.size()) + ") " +
+                    "AND (closed_at IS NOT NULL OR last_seen_at IS NULL OR last_seen_at < ?)", args.toArray());
+        }
+        return count;
+    }
+
+    @Override
+    @Transactional
+    public int addMatchedFunctions(Map<String, ? extends Collection<String>> functionsByUrl) {
+        Map<String, List<String>> urlsByFunctions = new HashMap<>();
+        functionsByUrl.forEach((url, functions) -> {
+            String joined = String.join(", ", new TreeSet<>(functions));
+            if (!joined.isEmpty()) urlsByFunctions.computeIfAbsent(joined, f -> new ArrayList<>()).add(url);
+        });
+
+        int count = 0;
+        for (Map.Entry<String, List<String>> group : urlsByFunctions.entrySet()) {
+            for (List<String> chunk : chunks(group.getValue())) {
+                List<Object> args = new ArrayList<>(chunk.size() + 2);
+                args.add(group.getKey());
+                args.addAll(chunk);
+                args.add(group.getKey());
+                count += jdbcTemplate.update("UPDATE jobs SET matched_functions = (" +
+                        "SELECT string_agg(f, ', ' ORDER BY f) FROM (SELECT DISTINCT unnest(" +
+                        "string_to_array(COALESCE(matched_functions, ''), ', ') || string_to_array(?, ', ')) AS f) s " +
+                        "WHERE f <> '') " +
+                        "WHERE job_page_url IN (" + placeholders(chunk.size()) + ") " +
+                        "AND NOT string_to_array(COALESCE(matched_functions, ''), ', ') @> string_to_array(?, ', ')",
+                        args.toArray());
+            }
+        }
+        return count;
+    }
+
+    @Override
+    @Transactional
+    public int markClosed(Collection<String> jobPageUrls) {
+        Instant now = Instant.now();
+        int count = 0;
+        for (List<String> chunk : chunks(jobPageUrls)) {
+            List<Object> args = new ArrayList<>(chunk.size() + 1);
+            args.add(at(now));
+            args.addAll(chunk);
+            count += jdbcTemplate.update("UPDATE jobs SET closed_at = ? " +
+                    "WHERE closed_at IS NULL AND job_page_url IN (" + placeholders(chunk.size()) + ")", args.toArray());
+        }
+        return count;
+    }
+
+    @Override
+    @Transactional
+    public int closeUnseenSince(Instant cutoff) {
+        return jdbcTemplate.update("UPDATE jobs SET closed_at = ? WHERE closed_at IS NULL AND last_seen_at < ?",
+                at(Instant.now()), at(cutoff));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<JobListing> findDueForCheck(int limit) {
+        return jdbcTemplate.query("SELECT job_page_url, tags FROM jobs " +
+                        "WHERE closed_at IS NULL AND next_check_at <= ? ORDER BY next_check_at LIMIT ?",
+                (rs, rowNum) -> {
+                    String tags = rs.getString("tags");
+                    return new JobListing(rs.getString("job_page_url"),
+                            tags == null || tags.isEmpty() ? List.of() : List.of(tags.split(", ")));
+                },
+                at(Instant.now()), limit);
+    }
+
+    @Override
+    @Transactional
+    public int initializeChangeTracking() {
+        Instant now = Instant.now();
+        return jdbcTemplate.update("UPDATE jobs SET last_seen_at = COALESCE(last_seen_at, ?), " +
+                        "next_check_at = COALESCE(next_check_at, ?), " +
+                        "check_interval_seconds = COALESCE(check_interval_seconds, ?) " +
+                        "WHERE last_seen_at IS NULL OR next_check_at IS NULL OR check_interval_seconds IS NULL",
+                at(now), at(now), initialIntervalSeconds);
+    }
+
+    @Override
+    @Transactional
+    public int indexMissingSearchVectors(int limit) {
+        List<Object[]> rows = jdbcTemplate.query("SELECT j.id, j.position_name, j.organization_title, j.location_raw, " +
+                        "j.tags, d.dictionary_id, d.body FROM jobs j LEFT JOIN job_descriptions d ON d.hash = j.description_hash " +
+                        "WHERE j.search_vector IS NULL ORDER BY j.id LIMIT ?",
+                (rs, rowNum) -> {
+                    byte[] body = rs.getBytes("body");
+                    String description = body == null ? null : descriptionStore.decompress(rs.getInt("dictionary_id"), body);
+                    String[] text = searchText(rs.getString("position_name"), rs.getString("organization_title"),
+                            rs.getString("location_raw"), rs.getString("tags"), description);
+                    return new Object[]{text[0], text[1], text[2], rs.getLong("id")};
+                },
+                limit);
+        if (rows.isEmpty()) return 0;
+        jdbcTemplate.batchUpdate("UPDATE jobs SET search_vector = " + SEARCH_VECTOR + " WHERE id = ?", rows);
+        return rows.size();
+    }
+
+    private Map<String, String> storedFingerprints(List<Job> batch) {
+        Map<String, String> fingerprints = new HashMap<>();
+        jdbcTemplate.query("SELECT job_page_url, content_fingerprint FROM jobs WHERE job_page_url IN ("
+                        + placeholders(batch.size()) + ")",
+                rs -> {
+                    fingerprints.put(rs.getString("job_page_url"), rs.getString("content_fingerprint"));
+                },
+                batch.stream().map(Job::getJobPageUrl).toArray());
+        return fingerprints;
+    }
+
+    private int updateUnchanged(List<String> jobPageUrls, Instant now) {
+        String interval = "LEAST(" + maxIntervalSeconds + ", COALESCE(check_interval_seconds, "
+                + initialIntervalSeconds + ") * 2)";
+        List<Object> args = new ArrayList<>(jobPageUrls.size() + 2);
+        args.add(at(now));
+        args.add(at(now));
+        args.addAll(jobPageUrls);
+        return jdbcTemplate.update("UPDATE jobs SET last_checked_at = ?, check_interval_seconds = " + interval
+                + ", next_check_at = CAST(? AS timestamp with time zone) + make_interval(secs => " + interval + ")"
+                + " WHERE job_page_url IN (" + placeholders(jobPageUrls.size()) + ")", args.toArray());
+    }
+
+    /**
+     * Upserts jobs that are new or whose fingerprint differs from the stored one. A changed job
+     * has its check interval halved; a new one starts at {@code initial-interval}.
+     */
+    private void upsertBatch(List<Job> batch, Map<String, Job> byUrl, List<Job> inserted, List<Job> updated,
+                             Instant now) {
+        String interval = "GREATEST(" + minIntervalSeconds + ", COALESCE(jobs.check_interval_seconds, "
+                + initialIntervalSeconds + ") / 2)";
+        String rowPlaceholder = "(" + placeholders(UPSERT_PARAMETERS_PER_ROW - 3) + ", " + SEARCH_VECTOR + ")";
+        String sql = "INSERT INTO jobs (id, " + String.join(", ", COLUMNS) + ", " + String.join(", ", TRACKING_COLUMNS)
+                + ", search_vector) VALUES " + String.join(", ", Collections.nCopies(batch.size(), rowPlaceholder))
+                + " ON CONFLICT (job_page_url) DO UPDATE SET (" + UPDATED_COLUMNS + ", content_fingerprint) = ("
+                + prefixed("EXCLUDED.") + ", EXCLUDED.content_fingerprint)"
+                + ", search_vector = EXCLUDED.search_vector"
+                + ", last_checked_at = EXCLUDED.last_checked_at, last_changed_at = EXCLUDED.last_changed_at"
+                + ", check_interval_seconds = " + interval
+                + ", next_check_at = EXCLUDED.last_checked_at + make_interval(secs => " + interval + ")"
+                + " WHERE jobs.content_fingerprint IS DISTINCT FROM EXCLUDED.content_fingerprint"
+                + " RETURNING id, job_page_url, (xmax = 0) AS inserted";
+
+        long[] ids = allocateIds(batch.size());
+        OffsetDateTime checkedAt = at(now);
+        OffsetDateTime nextCheckAt = at(now.plusSeconds(initialIntervalSeconds));
+        Object[] args = new Object[batch.size() * UPSERT_PARAMETERS_PER_ROW];
+        int i = 0;
+        for (int row = 0; row < batch.size(); row++) {
+            Job job = batch.get(row);
+            args[i++] = ids[row];
+            for (Function<Job, Object> value : VALUES) {
+                args[i++] = value.apply(job);
+            }
+            args[i++] = job.getContentFingerprint();
+            args[i++] = checkedAt;
+            args[i++] = checkedAt;
+            args[i++] = checkedAt;
+            args[i++] = nextCheckAt;
+            args[i++] = initialIntervalSeconds;
+            for (String text : searchText(job.getPositionName(), job.getOrganizationTitle(), job.getLocationRaw(),
+                    job.getTags(), job.getDescriptionHtml())) {
+                args[i++] = text;
+            }
+        }
+
+        jdbcTemplate.query(sql, rs -> {
+            Job job = byUrl.get(rs.getString("job_page_url"));
+            job.setId(rs.getLong("id"));
+            (rs.getBoolean("inserted") ? inserted : updated).add(job);
+        }, args);
+    }
+
+    /**
+     * Reserves ids from {@code jobs_seq} the same way Hibernate's pooled optimizer does,
+     * so rows written here and through JPA never share an id block.
+     */
+    private long[] allocateIds(int count) {
+        int blocks = (count + Job.ID_ALLOCATION_SIZE - 1) / Job.ID_ALLOCATION_SIZE;
+        List<Long> upperBounds = jdbcTemplate.queryForList(
+                "SELECT nextval('jobs_seq') FROM generate_series(1, ?)", Long.class, blocks);
+        long[] ids = new long[count];
+        int i = 0;
+        for (long upperBound : upperBounds) {
+            for (long id = upperBound - Job.ID_ALLOCATION_SIZE + 1; id <= upperBound && i < count; id++) {
+                ids[i++] = id;
+            }
+        }
+        return ids;
+    }
+
+    private List<List<String>> chunks(Collection<String> values) {
+        List<String> list = List.copyOf(new LinkedHashSet<>(values));
+        List<List<String>> chunks = new ArrayList<>();
+        for (int from = 0; from < list.size(); from += batchSize) {
+            chunks.add(list.subList(from, Math.min(list.size(), from + batchSize)));
+        }
+        return chunks;
+    }
+
+    /**
+     * Hash over all stored fields of the job, with {@code null} kept distinct from the empty string.
+     */
+    static String fingerprint(Job job) {
+        StringBuilder content = new StringBuilder(512);
+        for (Function<Job, Object> value : VALUES) {
+            Object v = value.apply(job);
+            content.append(v == null ? "\u0000" : v).append('\u001f');
+        }
+        return DescriptionStore.hash(content.toString());
+    }
+
+    /**
+     * The three {@link #SEARCH_VECTOR} parameters; the description is reduced to its text.
+     */
+    private static String[] searchText(String positionName, String organizationTitle, String locationRaw,
+                                       String tags, String descriptionHtml) {
+        String description = descriptionHtml == null ? "" : Jsoup.parseBodyFragment(descriptionHtml).text();
+        if (description.length() > MAX_SEARCH_TEXT) description = description.substring(0, MAX_SEARCH_TEXT);
+        return new String[]{
+                String.join(" ", Objects.toString(positionName, ""), Objects.toString(organizationTitle, ""),
+                        Objects.toString(locationRaw, "")),
+                Objects.toString(tags, ""),
+                description};
+    }
+
+    private static OffsetDateTime at(Instant instant) {
+        return instant.atOffset(ZoneOffset.UTC);
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    private static String prefixed(String prefix) {
+        StringJoiner joiner = new StringJoiner(", ");
+        for (String column : COLUMNS.subList(1, COLUMNS.size())) {
+            joiner.add(prefix + column);
+        }
+        return joiner.toString();
+    }
+}
@@ -0,0 +1,65 @@
+package org.example.techstarsscraper.repository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The {@code sheets_outbox} table: ids of inserted jobs that have not been appended to the Google Sheet yet.
+ * Nothing is enqueued while the Sheets upload is disabled.
+ */
+@Repository
+public class SheetsOutboxRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+
+    public SheetsOutboxRepository(JdbcTemplate jdbcTemplate,
+                                  @Value("${scrape.google-sheets.upload.enabled}") boolean enabled) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+    }
+
+    /**
+     * Enqueues the jobs in the caller's transaction; jobs already enqueued are ignored.
+     */
+    public void enqueue(Collection<Long> jobIds) {
+        if (!enabled || jobIds.isEmpty()) return;
+        List<Object> args = new ArrayList<>(jobIds.size() * 2);
+        Object now = Instant.now().atOffset(ZoneOffset.UTC);
+        for (Long jobId : jobIds) {
+            args.add(jobId);
+            args.add(now);
+        }
+        jdbcTemplate.update("INSERT INTO sheets_outbox (job_id, created_at) VALUES "
+                + String.join(", ", Collections.nCopies(jobIds.size(), "(?, ?)"))
+                + " ON CONFLICT (job_id) DO NOTHING", args.toArray());
+    }
+
+    /**
+     * Locks up to {@code limit} of the oldest entries not locked by another transaction and returns their job ids.
+     * Must be called inside a transaction; the locks are held until it ends.
+     */
+    public List<Long> claim(int limit) {
+        return jdbcTemplate.queryForList("SELECT job_id FROM sheets_outbox ORDER BY created_at, job_id LIMIT ? " +
+                "FOR UPDATE SKIP LOCKED", Long.class, limit);
+    }
+
+    public int delete(Collection<Long> jobIds) {
+        if (jobIds.isEmpty()) return 0;
+        return jdbcTemplate.update("DELETE FROM sheets_outbox WHERE job_id IN ("
+                + String.join(", ", Collections.nCopies(jobIds.size(), "?")) + ")", jobIds.toArray());
+    }
+
+    public long count() {
+        Long count = jdbcTemplate.queryForObject("SELECT count(*) FROM sheets_outbox", Long.class);
+        return count == null ? 0 : count;
+    }
+}
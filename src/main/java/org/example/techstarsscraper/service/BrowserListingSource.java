@@ -0,0 +1,275 @@
+package org.example.techstarsscraper.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.log4j.Log4j2;
+import org.example.techstarsscraper.dto.JobListing;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.select.Elements;
+import org.openqa.selenium.*;
+import org.openqa.selenium.support.ui.ExpectedConditions;
+import org.openqa.selenium.support.ui.WebDriverWait;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Discovers listings by rendering the board in a pooled headless browser,
+ * clicking "load more" and scrolling, then parsing the job cards from the page source.
+ * Paging stops when no more cards render, after {@code max-load-more-clicks} and {@code max-scrolls},
+ * or as soon as an incremental crawl reaches listings that are already stored. The cards rendered by every
+ * paging step are recorded in the {@link PageArchive}.
+ */
+@Component
+@Order(2)
+@Log4j2
+public class BrowserListingSource implements ListingSource {
+
+    private final WebDriverPool webDriverPool;
+    private final PageArchive pageArchive;
+    private final String baseScrapeUrl;
+    private final int maxLoadMoreClicks;
+    private final int maxScrolls;
+    private final Timer pageLoadTimer;
+    private final Timer loadMoreTimer;
+    private final Timer loadMoreExhaustedTimer;
+    private final Timer scrollTimer;
+    private final Timer scrollExhaustedTimer;
+
+    public BrowserListingSource(WebDriverPool webDriverPool,
+                                PageArchive pageArchive,
+                                @Value("${scrape.base-url}") String baseScrapeUrl,
+                                @Value("${scrape.listing.browser.max-load-more-clicks}") int maxLoadMoreClicks,
+                                @Value("${scrape.listing.browser.max-scrolls}") int maxScrolls,
+                                MeterRegistry meterRegistry) {
+        this.webDriverPool = webDriverPool;
+        this.pageArchive = pageArchive;
+        this.baseScrapeUrl = baseScrapeUrl;
+        this.maxLoadMoreClicks = maxLoadMoreClicks;
+        this.maxScrolls = maxScrolls;
+        this.pageLoadTimer = Timer.builder("scraper.browser.page-load")
+                .description("Time from navigating to the listing page until the first job cards render")
+                .register(meterRegistry);
+        this.loadMoreTimer = stepTimer("scraper.browser.load-more", "loaded", meterRegistry);
+        this.loadMoreExhaustedTimer = stepTimer("scraper.browser.load-more", "exhausted", meterRegistry);
+        this.scrollTimer = stepTimer("scraper.browser.scroll", "loaded", meterRegistry);
+        this.scrollExhaustedTimer = stepTimer("scraper.browser.scroll", "exhausted", meterRegistry);
+    }
+
+    private static Timer stepTimer(String name, String outcome, MeterRegistry meterRegistry) {
+        return Timer.builder(name)
+                .description("Time for one paging step to render more job cards, or to give up")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String name() {
+        return "browser";
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return true;
+    }
+
+    @Override
+    public void discover(String jobFunction, ListingCrawl crawl, Consumer<JobListing> consumer) {
+        crawl(buildListUrl(jobFunction), crawl, consumer);
+    }
+
+    private String buildListUrl(String jobFunction) {
+        if (jobFunction == null || jobFunction.isBlank()) return baseScrapeUrl;
+        String encoded = URLEncoder.encode(jobFunction, StandardCharsets.UTF_8);
+        return baseScrapeUrl + "?filter=" + encoded;
+    }
+
+    /**
+     * Loads the listing page and hands over the job cards after the initial load and after every
+     * "load more" click or scroll, so that detail fetching can start while the browser keeps paging.
+     */
+    private void crawl(String url, ListingCrawl crawl, Consumer<JobListing> consumer) {
+        try (WebDriverPool.Lease lease = webDriverPool.lease()) {
+            WebDriver driver = lease.driver();
+            try {
+                log.info("Fetching URL: {}, wait...", url);
+                long loadStart = System.nanoTime();
+                driver.get(url);
+                WebDriverWait wait = new WebDriverWait(driver, Duration.ofSeconds(15));
+
+                By jobSelector = By.cssSelector("[itemtype='https://schema.org/JobPosting']");
+                By loadMoreSelector = By.cssSelector("button[data-testid='load-more']");
+
+                waitForJobPostingElement(wait, jobSelector);
+                pageLoadTimer.record(System.nanoTime() - loadStart, TimeUnit.NANOSECONDS);
+                hideOnetrustPolicyBanner(driver);
+                int emitted = emitNewCards(driver, url, 0, consumer);
+                int steps = 0;
+
+                for (int i = 0; i < maxLoadMoreClicks && !crawl.reachedKnown(); i++) {
+                    long stepStart = System.nanoTime();
+                    boolean loaded = clickLoadMore(driver, wait, jobSelector, loadMoreSelector);
+                    (loaded ? loadMoreTimer : loadMoreExhaustedTimer).record(System.nanoTime() - stepStart, TimeUnit.NANOSECONDS);
+                    if (!loaded) {
+                        break;
+                    }
+                    emitted = emitNewCards(driver, url, emitted, consumer);
+                    steps++;
+                }
+
+                for (int s = 0; s < maxScrolls && !crawl.reachedKnown(); s++) {
+                    long stepStart = System.nanoTime();
+                    boolean loaded = scrollDownAndWaitForNewElements(driver, wait, jobSelector);
+                    (loaded ? scrollTimer : scrollExhaustedTimer).record(System.nanoTime() - stepStart, TimeUnit.NANOSECONDS);
+                    if (!loaded) {
+                        break;
+                    }
+                    emitted = emitNewCards(driver, url, emitted, consumer);
+                    steps++;
+                }
+                if (crawl.reachedKnown()) {
+                    log.info("Stopped after {} paging steps: reached known listings ({})", steps, crawl);
+                }
+            } catch (RuntimeException e) {
+                lease.invalidate();
+                throw e;
+            } finally {
+                log.info("Browser blocked {} and allowed {} requests for {}",
+                        lease.blockedRequests(), lease.allowedRequests(), url);
+            }
+        }
+    }
+
+    /**
+     * Parses the job cards rendered after the first {@code alreadyEmitted} ones and passes them on.
+     *
+     * @return the number of cards on the page
+     */
+    private int emitNewCards(WebDriver driver, String url, int alreadyEmitted, Consumer<JobListing> consumer) {
+        Object result = ((JavascriptExecutor) driver).executeScript(
+                "var cards = document.querySelectorAll(\"[itemtype='https://schema.org/JobPosting']\");" +
+                        "var html = [];" +
+                        "for (var i = arguments[0]; i < cards.length; i++) { html.push(cards[i].outerHTML); }" +
+                        "return [cards.length, html.join('')];",
+                alreadyEmitted);
+        if (!(result instanceof List<?> values) || values.size() != 2) {
+            throw new IllegalStateException("Unexpected result while reading job cards from " + url);
+        }
+        String html = String.valueOf(values.get(1));
+        if (!html.isEmpty()) {
+            pageArchive.record(PageArchive.Kind.LISTING_CARDS, url, "text/html; charset=utf-8",
+                    html.getBytes(StandardCharsets.UTF_8));
+        }
+        Document cards = Jsoup.parseBodyFragment(html, url);
+        extractJobTagsMap(cards).forEach((jobUrl, tags) -> consumer.accept(new JobListing(jobUrl, tags)));
+        return ((Number) values.get(0)).intValue();
+    }
+
+    private void waitForJobPostingElement(WebDriverWait wait, By jobSelector) {
+        wait.until(ExpectedConditions.presenceOfElementLocated(jobSelector));
+    }
+
+    private void hideOnetrustPolicyBanner(WebDriver driver) {
+        ((JavascriptExecutor) driver).executeScript(
+                "var elem = document.getElementById('onetrust-policy-text');" +
+                        "if (elem) { elem.style.display='none'; }"
+        );
+    }
+
+    private boolean clickLoadMore(WebDriver driver, WebDriverWait wait, By jobSelector, By loadMoreSelector) {
+        int beforeCount = driver.findElements(jobSelector).size();
+
+        List<WebElement> loadMoreButtons = driver.findElements(loadMoreSelector);
+        if (loadMoreButtons.isEmpty()) {
+            return false;
+        }
+
+        try {
+            WebElement loadMoreBtn = wait.until(ExpectedConditions.elementToBeClickable(loadMoreSelector));
+            ((JavascriptExecutor) driver).executeScript("arguments[0].scrollIntoView(true);", loadMoreBtn);
+            loadMoreBtn.click();
+
+            return wait.until(driverInstance -> {
+                int afterCount = driverInstance.findElements(jobSelector).size();
+                return afterCount > beforeCount;
+            });
+        } catch (TimeoutException e) {
+            return false;
+        }
+    }
+
+    private boolean scrollDownAndWaitForNewElements(WebDriver driver, WebDriverWait wait, By jobSelector) {
+        int previousCount = driver.findElements(jobSelector).size();
+        ((JavascriptExecutor) driver).executeScript("window.scrollBy(0, document.body.scrollHeight);");
+
+        try {
+            return wait.until(driverInstance -> {
+                int afterCount = driverInstance.findElements(jobSelector).size();
+                return afterCount > previousCount;
+            });
+        } catch (TimeoutException e) {
+            return false;
+        }
+    }
+
+
+    Map<String, List<String>> extractJobTagsMap(Document doc) {
+        Map<String, List<String>> result = new LinkedHashMap<>();
+        if (doc == null) return result;
+
+        Elements jobElements = doc.select("[itemtype='https://schema.org/JobPosting']");
+        for (Element jobEl : jobElements) {
+            Optional<String> jobUrlOpt = extractJobUrl(jobEl);
+            if (jobUrlOpt.isPresent()) {
+                String cleanLink = cleanLink(jobUrlOpt.get());
+                List<String> tags = extractTags(jobEl);
+                result.put(cleanLink, tags);
+                log.info("Job link found: {} | Tags: {}", cleanLink, tags);
+            }
+        }
+        return result;
+    }
+
+    private Optional<String> extractJobUrl(Element jobEl) {
+        if (jobEl == null) return Optional.empty();
+
+        Elements linkEls = jobEl.select("a[href]");
+        for (Element a : linkEls) {
+            String href = a.absUrl("href");
+            if (href != null && !href.isBlank()
+                    && href.contains("/jobs/")
+                    && href.contains("jobs.techstars.com")) {
+                return Optional.of(href);
+            }
+        }
+        return Optional.empty();
+    }
+
+
+    private List<String> extractTags(Element jobEl) {
+        if (jobEl == null) return Collections.emptyList();
+        return jobEl.select("[data-testid=tag]")
+                .stream()
+                .map(Element::text)
+                .filter(Objects::nonNull)
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .collect(Collectors.toList());
+    }
+
+    private String cleanLink(String link) {
+        if (link == null) return null;
+        int q = link.indexOf('?');
+        return (q >= 0) ? link.substring(0, q) : link;
+    }
+}
@@ -0,0 +1,152 @@
+package org.example.techstarsscraper.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.log4j.Log4j2;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.devtools.Command;
+import org.openqa.selenium.devtools.DevTools;
+import org.openqa.selenium.devtools.Event;
+import org.openqa.selenium.devtools.HasDevTools;
+import org.openqa.selenium.json.Json;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps the headless browser from downloading what the scraper never reads.
+ * <p>
+ * Every request of a session is paused through the DevTools {@code Fetch} domain and failed with
+ * {@code BlockedByClient} when its resource type (e.g. {@code Image}, {@code Font}) or URL matches the
+ * configured profile; all other requests continue unchanged. URL patterns use {@code *} as a wildcard,
+ * like DevTools' own URL patterns.
+ */
+@Component
+@Log4j2
+public class BrowserResourceBlocker {
+
+    private static final Event<PausedRequest> REQUEST_PAUSED = new Event<>("Fetch.requestPaused", input -> {
+        Map<String, Object> params = input.read(Json.MAP_TYPE);
+        Object request = params.get("request");
+        Object url = request instanceof Map<?, ?> map ? map.get("url") : null;
+        return new PausedRequest(String.valueOf(params.get("requestId")),
+                String.valueOf(params.get("resourceType")), url == null ? "" : url.toString());
+    });
+
+    private final boolean enabled;
+    private final Set<String> resourceTypes;
+    private final List<Pattern> urlPatterns;
+    private final Counter blockedCounter;
+    private final Counter allowedCounter;
+
+    public BrowserResourceBlocker(@Value("${scrape.browser.block.enabled}") boolean enabled,
+                                  @Value("${scrape.browser.block.resource-types}") List<String> resourceTypes,
+                                  @Value("${scrape.browser.block.url-patterns}") List<String> urlPatterns,
+                                  MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.resourceTypes = resourceTypes.stream()
+                .map(String::trim)
+                .filter(type -> !type.isEmpty())
+                .map(type -> type.toLowerCase(Locale.ROOT))
+                .collect(Collectors.toUnmodifiableSet());
+        this.urlPatterns = urlPatterns.stream()
+                .map(String::trim)
+                .filter(pattern -> !pattern.isEmpty())
+                .map(BrowserResourceBlocker::wildcard)
+                .toList();
+        this.blockedCounter = Counter.builder("scraper.browser.requests")
+                .description("Requests made by browser sessions, by whether the resource-blocking profile blocked them")
+                .tag("result", "blocked")
+                .register(meterRegistry);
+        this.allowedCounter = Counter.builder("scraper.browser.requests")
+                .description("Requests made by browser sessions, by whether the resource-blocking profile blocked them")
+                .tag("result", "allowed")
+                .register(meterRegistry);
+    }
+
+    private static Pattern wildcard(String pattern) {
+        return Pattern.compile(Arrays.stream(pattern.split("\\*", -1))
+                .map(Pattern::quote)
+                .collect(Collectors.joining(".*")), Pattern.CASE_INSENSITIVE);
+    }
+
+    boolean blocks(String resourceType, String url) {
+        if (resourceTypes.contains(resourceType.toLowerCase(Locale.ROOT))) return true;
+        for (Pattern pattern : urlPatterns) {
+            if (pattern.matcher(url).matches()) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Applies the blocking profile to a new session.
+     *
+     * @return the session's request counts, which stay at zero if blocking is disabled or the driver
+     * does not speak DevTools
+     */
+    public RequestCounts install(WebDriver driver) {
+        RequestCounts counts = new RequestCounts();
+        if (!enabled || (resourceTypes.isEmpty() && urlPatterns.isEmpty())) return counts;
+        if (!(driver instanceof HasDevTools hasDevTools)) {
+            log.warn("Browser does not support DevTools, resources will not be blocked");
+            return counts;
+        }
+        try {
+            DevTools devTools = hasDevTools.getDevTools();
+            devTools.createSessionIfThereIsNotOne();
+            devTools.addListener(REQUEST_PAUSED, paused -> handle(devTools, paused, counts));
+            devTools.send(new Command<>("Fetch.enable",
+                    Map.of("patterns", List.of(Map.of("urlPattern", "*", "requestStage", "Request")))));
+        } catch (RuntimeException e) {
+            log.warn("Failed to enable resource blocking, the browser will load every resource: {}", e.getMessage());
+            log.debug("Stacktrace:", e);
+        }
+        return counts;
+    }
+
+    private void handle(DevTools devTools, PausedRequest paused, RequestCounts counts) {
+        boolean block = blocks(paused.resourceType(), paused.url());
+        try {
+            if (block) {
+                devTools.send(new Command<Void>("Fetch.failRequest",
+                        Map.of("requestId", paused.requestId(), "errorReason", "BlockedByClient")).doesNotSendResponse());
+            } else {
+                devTools.send(new Command<Void>("Fetch.continueRequest",
+                        Map.of("requestId", paused.requestId())).doesNotSendResponse());
+            }
+        } catch (RuntimeException e) {
+            log.debug("Failed to resume paused request {}: {}", paused.url(), e.getMessage());
+            return;
+        }
+        if (block) {
+            counts.blocked.incrementAndGet();
+            blockedCounter.increment();
+        } else {
+            counts.allowed.incrementAndGet();
+            allowedCounter.increment();
+        }
+    }
+
+    private record PausedRequest(String requestId, String resourceType, String url) {
+    }
+
+    /**
+     * Requests a browser session has blocked and let through since it started.
+     */
+    public static final class RequestCounts {
+        private final AtomicLong blocked = new AtomicLong();
+        private final AtomicLong allowed = new AtomicLong();
+
+        public long blocked() {
+            return blocked.get();
+        }
+
+        public long allowed() {
+            return allowed.get();
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package org.example.techstarsscraper.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs the blocking job detail fetches.
+ * <p>
+ * Tasks run on virtual threads by default, so the number of pages in flight is bounded by the
+ * per-host semaphore rather than by the number of CPU cores. A task counts as queued until it
+ * holds a permit for its host.
+ */
+@Component
+@Log4j2
+public class DetailFetchExecutor {
+
+    private final ExecutorService executor;
+    private final int maxConcurrencyPerHost;
+    private final Map<String, Semaphore> hostPermits = new ConcurrentHashMap<>();
+
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong completed = new AtomicLong();
+
+    public DetailFetchExecutor(@Value("${scrape.detail.virtual-threads}") boolean virtualThreads,
+                               @Value("${scrape.detail.platform-threads}") int platformThreads,
+                               @Value("${scrape.detail.max-concurrency-per-host}") int maxConcurrencyPerHost,
+                               MeterRegistry meterRegistry) {
+        if (maxConcurrencyPerHost < 1) {
+            throw new IllegalArgumentException("scrape.detail.max-concurrency-per-host must be at least 1");
+        }
+        this.maxConcurrencyPerHost = maxConcurrencyPerHost;
+        this.executor = virtualThreads
+                ? Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("detail-fetch-", 0).factory())
+                : Executors.newFixedThreadPool(platformThreads, Thread.ofPlatform().name("detail-fetch-", 0).factory());
+        log.info("Detail fetch executor uses {} threads, at most {} requests per host",
+                virtualThreads ? "virtual" : platformThreads + " platform", maxConcurrencyPerHost);
+
+        Gauge.builder("scraper.detail.queued", queued, AtomicInteger::get)
+                .description("Detail fetches waiting for a per-host permit")
+                .register(meterRegistry);
+        Gauge.builder("scraper.detail.in-flight", inFlight, AtomicInteger::get)
+                .description("Detail fetches currently running")
+                .register(meterRegistry);
+        FunctionCounter.builder("scraper.detail.completed", completed, AtomicLong::get)
+                .description("Detail fetches finished, successfully or not")
+                .register(meterRegistry);
+        if (!virtualThreads) {
+            new ExecutorServiceMetrics(executor, "detail.fetch", List.of()).bindTo(meterRegistry);
+        }
+    }
+
+    /**
+     * Runs the task once a permit for the URL's host is available. Cancelling the returned future with
+     * {@code mayInterruptIfRunning} interrupts the task, whether it is waiting for a permit or running.
+     */
+    public <T> Future<T> submit(String url, Callable<T> task) {
+        Semaphore permits = hostPermits.computeIfAbsent(hostOf(url), h -> new Semaphore(maxConcurrencyPerHost, true));
+        queued.incrementAndGet();
+        AtomicBoolean started = new AtomicBoolean();
+        FutureTask<T> future = new FutureTask<>(() -> {
+            if (!started.compareAndSet(false, true)) return null;
+            boolean acquired = false;
+            try {
+                permits.acquire();
+                acquired = true;
+            } finally {
+                queued.decrementAndGet();
+                if (!acquired) completed.incrementAndGet();
+            }
+            inFlight.incrementAndGet();
+            try {
+                return task.call();
+            } finally {
+                inFlight.decrementAndGet();
+                completed.incrementAndGet();
+                permits.release();
+            }
+        }) {
+            @Override
+            protected void done() {
+                // a task cancelled before it started never leaves the queue by itself
+                if (isCancelled() && started.compareAndSet(false, true)) {
+                    queued.decrementAndGet();
+                    completed.incrementAndGet();
+                }
+            }
+        };
+        executor.execute(future);
+        return future;
+    }
+
+    private static String hostOf(String url) {
+        try {
+            String host = URI.create(url).getHost();
+            return host != null ? host.toLowerCase(Locale.ROOT) : "";
+        } catch (IllegalArgumentException e) {
+            return "";
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
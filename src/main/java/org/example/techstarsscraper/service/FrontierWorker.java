@@ -0,0 +1,228 @@
+package org.example.techstarsscraper.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.example.techstarsscraper.dto.ScrapeNodeStatus;
+import org.example.techstarsscraper.repository.FrontierRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.net.InetAddress;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fetches job pages from the frontier shared by all scraper nodes, when {@code scrape.distributed.enabled}.
+ * <p>
+ * The worker claims up to {@code claim-size} entries at a time with {@code SELECT ... FOR UPDATE SKIP LOCKED},
+ * so concurrent nodes never claim the same entry, and runs them through a {@link ScrapePipeline} run. An entry
+ * is deleted once its job is saved, and its outcome recorded for the run that enqueued it; an entry whose fetch
+ * failed goes back to the frontier and is dropped after {@code max-attempts}. Every {@code heartbeat-interval} the node renews the leases of the entries it
+ * still holds and reports its throughput to {@code scrape_nodes}, on a thread of its own so that other scheduled
+ * work cannot hold up the renewal. If a node dies its leases lapse after
+ * {@code lease-duration} and other nodes claim the entries again.
+ */
+@Service
+@Log4j2
+public class FrontierWorker implements ScrapePipeline.FetchListener {
+
+    private final FrontierRepository frontierRepository;
+    private final ScrapePipeline scrapePipeline;
+    private final boolean enabled;
+    private final String nodeId;
+    private final int claimSize;
+    private final Duration leaseDuration;
+    private final Duration heartbeatInterval;
+    private final Duration pollInterval;
+    private final int maxAttempts;
+    private final Duration nodeExpiry;
+    private final Instant startedAt = Instant.now();
+    private final Set<String> held = ConcurrentHashMap.newKeySet();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    private volatile Thread worker;
+    private volatile ScheduledExecutorService heartbeats;
+    private long lastHeartbeatNanos = System.nanoTime();
+    private long completedAtLastHeartbeat;
+
+    public FrontierWorker(FrontierRepository frontierRepository,
+                          ScrapePipeline scrapePipeline,
+                          @Value("${scrape.distributed.enabled}") boolean enabled,
+                          @Value("${scrape.distributed.node-id}") String nodeId,
+                          @Value("${scrape.distributed.claim-size}") int claimSize,
+                          @Value("${scrape.distributed.lease-duration}") Duration leaseDuration,
+                          @Value("${scrape.distributed.heartbeat-interval}") Duration heartbeatInterval,
+                          @Value("${scrape.distributed.poll-interval}") Duration pollInterval,
+                          @Value("${scrape.distributed.max-attempts}") int maxAttempts,
+                          @Value("${scrape.distributed.node-expiry}") Duration nodeExpiry,
+                          MeterRegistry meterRegistry) {
+        if (enabled && leaseDuration.compareTo(heartbeatInterval.multipliedBy(2)) < 0) {
+            throw new IllegalArgumentException("scrape.distributed.lease-duration must be at least twice the heartbeat-interval");
+        }
+        this.frontierRepository = frontierRepository;
+        this.scrapePipeline = scrapePipeline;
+        this.enabled = enabled;
+        this.nodeId = nodeId == null || nodeId.isBlank() ? defaultNodeId() : nodeId.trim();
+        this.claimSize = Math.max(1, claimSize);
+        this.leaseDuration = leaseDuration;
+        this.heartbeatInterval = heartbeatInterval;
+        this.pollInterval = pollInterval;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.nodeExpiry = nodeExpiry;
+
+        Gauge.builder("scraper.frontier.held", held, Set::size)
+                .description("Frontier entries leased by this node and not yet settled")
+                .register(meterRegistry);
+        FunctionCounter.builder("scraper.frontier.entries", completed, AtomicLong::get)
+                .description("Frontier entries this node settled, by result")
+                .tag("result", "completed")
+                .register(meterRegistry);
+        FunctionCounter.builder("scraper.frontier.entries", failed, AtomicLong::get)
+                .description("Frontier entries this node settled, by result")
+                .tag("result", "failed")
+                .register(meterRegistry);
+    }
+
+    private static String defaultNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "node";
+        }
+        return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    public String nodeId() {
+        return nodeId;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) return;
+        heartbeat();
+        heartbeats = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("frontier-heartbeat").factory());
+        heartbeats.scheduleWithFixedDelay(this::heartbeat, heartbeatInterval.toMillis(), heartbeatInterval.toMillis(),
+                TimeUnit.MILLISECONDS);
+        worker = Thread.ofPlatform().name("frontier-worker").start(this::workLoop);
+        log.info("Node {} is working the shared frontier", nodeId);
+    }
+
+    private void workLoop() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                List<FrontierRepository.Claim> claimed = frontierRepository.claim(nodeId, claimSize, leaseDuration);
+                if (claimed.isEmpty()) {
+                    Thread.sleep(pollInterval);
+                    continue;
+                }
+                claimed.forEach(claim -> held.add(claim.listing().jobPageUrl()));
+                log.debug("Claimed {} frontier entries", claimed.size());
+                try (ScrapePipeline.Run run = scrapePipeline.start(this)) {
+                    claimed.forEach(claim -> run.fetchClaimed(claim.listing(), claim.stored()));
+                    run.finish();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                log.warn("Frontier worker failed, retrying: {}", e.getMessage());
+                log.debug("Stacktrace:", e);
+                try {
+                    Thread.sleep(pollInterval);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    @Override
+    public void settled(Collection<String> jobPageUrls, ScrapePipeline.Outcome outcome) {
+        try {
+            frontierRepository.complete(nodeId, jobPageUrls, outcome.name().toLowerCase(Locale.ROOT));
+            held.removeAll(jobPageUrls);
+            completed.addAndGet(jobPageUrls.size());
+        } catch (RuntimeException e) {
+            log.warn("Failed to complete {} frontier entries, their leases will lapse: {}", jobPageUrls.size(), e.getMessage());
+            held.removeAll(jobPageUrls);
+        }
+    }
+
+    @Override
+    public void failed(Collection<String> jobPageUrls) {
+        try {
+            int dropped = frontierRepository.release(nodeId, jobPageUrls, maxAttempts);
+            if (dropped > 0) {
+                log.warn("Dropped {} frontier entries after {} failed attempts", dropped, maxAttempts);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to release {} frontier entries, their leases will lapse: {}", jobPageUrls.size(), e.getMessage());
+        } finally {
+            held.removeAll(jobPageUrls);
+            failed.addAndGet(jobPageUrls.size());
+        }
+    }
+
+    /**
+     * Renews the leases of held entries and reports this node's throughput.
+     */
+    public synchronized void heartbeat() {
+        if (!enabled) return;
+        try {
+            frontierRepository.renew(nodeId, List.copyOf(held), leaseDuration);
+            long now = System.nanoTime();
+            long completedNow = completed.get();
+            double minutes = (now - lastHeartbeatNanos) / (double) TimeUnit.MINUTES.toNanos(1);
+            double perMinute = minutes > 0 ? (completedNow - completedAtLastHeartbeat) / minutes : 0;
+            lastHeartbeatNanos = now;
+            completedAtLastHeartbeat = completedNow;
+            frontierRepository.heartbeat(nodeId, startedAt, completedNow, failed.get(), perMinute);
+            frontierRepository.deleteNodesSilentSince(Instant.now().minus(nodeExpiry));
+            frontierRepository.deleteAbandonedResults(Instant.now().minus(nodeExpiry));
+        } catch (RuntimeException e) {
+            log.warn("Heartbeat of node {} failed: {}", nodeId, e.getMessage());
+        }
+    }
+
+    /**
+     * All nodes seen within {@code node-expiry}; a node counts as alive while its heartbeat is younger
+     * than its lease duration.
+     */
+    public List<ScrapeNodeStatus> nodes() {
+        return frontierRepository.findNodes(Instant.now().minus(leaseDuration));
+    }
+
+    /**
+     * Stops claiming and hands the entries this node still holds back to the frontier.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        ScheduledExecutorService scheduler = heartbeats;
+        if (scheduler != null) scheduler.shutdownNow();
+        Thread current = worker;
+        if (current == null) return;
+        current.interrupt();
+        current.join(heartbeatInterval.toMillis());
+        try {
+            frontierRepository.abandon(nodeId, List.copyOf(held));
+        } catch (RuntimeException e) {
+            log.warn("Failed to release frontier entries on shutdown, their leases will lapse: {}", e.getMessage());
+        }
+    }
+}
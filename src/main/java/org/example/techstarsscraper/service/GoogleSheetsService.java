@@ -6,28 +6,55 @@ import com.google.api.client.extensions.jetty.auth.oauth2.LocalServerReceiver;
 import com.google.api.client.googleapis.auth.oauth2.GoogleAuthorizationCodeFlow;
 import com.google.api.client.googleapis.auth.oauth2.GoogleClientSecrets;
 import com.google.api.client.googleapis.javanet.GoogleNetHttpTransport;
+import com.google.api.client.http.HttpResponseException;
 import com.google.api.client.http.javanet.NetHttpTransport;
 import com.google.api.client.json.JsonFactory;
 import com.google.api.client.json.gson.GsonFactory;
 import com.google.api.client.util.store.FileDataStoreFactory;
 import com.google.api.services.sheets.v4.Sheets;
+import com.google.api.services.sheets.v4.SheetsRequest;
 import com.google.api.services.sheets.v4.SheetsScopes;
 import com.google.api.services.sheets.v4.model.ValueRange;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.log4j.Log4j2;
-import org.example.techstarsscraper.model.Job;
+import org.example.techstarsscraper.dto.JobView;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.security.GeneralSecurityException;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Appends scraped jobs to a Google Sheet.
+ * <p>
+ * The {@link Sheets} client and its OAuth credential are created on first use and kept for the lifetime of
+ * the service; the credential refreshes its access token by itself. Whether the sheet already starts with
+ * the header row is checked once per client. Rows are sent in chunks bounded by {@code chunk.max-cells} and
+ * {@code chunk.max-bytes}, at most one request per {@code min-request-interval} to stay within the per-user
+ * write quota, and a request rejected with 429 or 5xx, or failing with an I/O error, is retried with
+ * exponential backoff.
+ * <p>
+ * The ID column doubles as the row key: the ids already in the sheet are read once and remembered, and
+ * rows with those ids are not appended again. After a failed append the ids are read again before the
+ * next one, since the request may have reached the sheet, so redelivering the same jobs never
+ * duplicates rows.
+ */
 @Service
 @Log4j2
 @ConditionalOnProperty(prefix = "scrape.google-sheets.upload", name = "enabled", havingValue = "true")
@@ -36,16 +63,51 @@ public class GoogleSheetsService {
     private static final JsonFactory JSON_FACTORY = GsonFactory.getDefaultInstance();
     private static final List<String> SCOPES =
             Collections.singletonList(SheetsScopes.SPREADSHEETS);
+    private static final List<Object> HEADERS = List.of("ID", "Job URL", "Position", "Organization URL", "Logo URL",
+            "Organization Title", "Labor Function", "Location Raw", "City", "State", "Country", "Posted Date", "Tags", "Description");
+    private static final String HEADER_RANGE = "Sheet1!A1:Z1";
+    private static final String APPEND_RANGE = "Sheet1!A1";
+    private static final String ID_RANGE = "Sheet1!A:A";
+    /**
+     * Sheets rejects cells longer than this.
+     */
+    private static final int MAX_CELL_CHARS = 50_000;
+
     private final String spreadsheetId;
     private final String credentialsFilePath;
     private final String tokensDirectoryPath;
     private final String applicationName;
+    private final String rootUrl;
+    private final int maxCellsPerRequest;
+    private final long maxBytesPerRequest;
+    private final long minRequestIntervalNanos;
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final MeterRegistry meterRegistry;
+    private final Counter uploadedRows;
+    private final Counter retries;
+    private final Counter skippedRows;
+
+    private Sheets client;
+    private boolean headerPresent;
+    private Set<String> uploadedIds;
+    private long lastRequestNanos;
 
+    @Autowired
     public GoogleSheetsService(
             @Value("${scrape.google-sheets.upload.spreadsheet-id}") String spreadsheetId,
             @Value("${scrape.google-sheets.upload.credentials.file-path}") String credentialsFilePath,
             @Value("${scrape.google-sheets.upload.tokens.directory-path}") String tokensDirectoryPath,
-            @Value("${spring.application.name:techstars-scraper}") String applicationName) {
+            @Value("${spring.application.name:techstars-scraper}") String applicationName,
+            @Value("${scrape.google-sheets.upload.root-url}") String rootUrl,
+            @Value("${scrape.google-sheets.upload.chunk.max-cells}") int maxCellsPerRequest,
+            @Value("${scrape.google-sheets.upload.chunk.max-bytes}") DataSize maxBytesPerRequest,
+            @Value("${scrape.google-sheets.upload.min-request-interval}") Duration minRequestInterval,
+            @Value("${scrape.google-sheets.upload.retry.max-attempts}") int maxAttempts,
+            @Value("${scrape.google-sheets.upload.retry.initial-backoff}") Duration initialBackoff,
+            @Value("${scrape.google-sheets.upload.retry.max-backoff}") Duration maxBackoff,
+            MeterRegistry meterRegistry) {
 
         if (spreadsheetId == null || spreadsheetId.isBlank()) {
             throw new IllegalArgumentException(
@@ -56,6 +118,216 @@ public class GoogleSheetsService {
         this.credentialsFilePath = credentialsFilePath;
         this.tokensDirectoryPath = tokensDirectoryPath;
         this.applicationName = applicationName;
+        this.rootUrl = rootUrl;
+        this.maxCellsPerRequest = Math.max(HEADERS.size(), maxCellsPerRequest);
+        this.maxBytesPerRequest = maxBytesPerRequest.toBytes();
+        this.minRequestIntervalNanos = minRequestInterval.toNanos();
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.meterRegistry = meterRegistry;
+        this.uploadedRows = Counter.builder("scraper.sheets.rows")
+                .description("Job rows appended to the spreadsheet")
+                .register(meterRegistry);
+        this.retries = Counter.builder("scraper.sheets.retries")
+                .description("Sheets requests retried after a throttling, server or I/O error")
+                .register(meterRegistry);
+        this.skippedRows = Counter.builder("scraper.sheets.rows.skipped")
+                .description("Job rows not appended because the sheet already had their id")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Uses the given client instead of authorizing one, e.g. to talk to a local fake endpoint.
+     */
+    GoogleSheetsService(Sheets client, String spreadsheetId, int maxCellsPerRequest, DataSize maxBytesPerRequest,
+                        Duration minRequestInterval, int maxAttempts, Duration initialBackoff, Duration maxBackoff,
+                        MeterRegistry meterRegistry) {
+        this(spreadsheetId, null, null, client.getApplicationName(), client.getRootUrl(), maxCellsPerRequest,
+                maxBytesPerRequest, minRequestInterval, maxAttempts, initialBackoff, maxBackoff, meterRegistry);
+        this.client = client;
+    }
+
+    /**
+     * Appends the jobs whose ids are not in the sheet yet.
+     */
+    public synchronized void appendJobsToSheet(List<JobView> jobs)
+            throws IOException, GeneralSecurityException, InterruptedException {
+        Sheets service = client();
+        if (uploadedIds == null) {
+            uploadedIds = readUploadedIds(service);
+        }
+        List<List<Object>> rows = new ArrayList<>(jobs.size() + 1);
+        for (List<Object> row : toRows(jobs)) {
+            if (!uploadedIds.contains((String) row.get(0))) rows.add(row);
+        }
+        skippedRows.increment(jobs.size() - rows.size());
+        if (rows.isEmpty()) return;
+
+        if (!headerPresent) {
+            ValueRange existingHeader = execute(service.spreadsheets().values().get(spreadsheetId, HEADER_RANGE));
+            if (existingHeader.getValues() == null || existingHeader.getValues().isEmpty()
+                    || !existingHeader.getValues().get(0).equals(HEADERS)) {
+                rows.add(0, HEADERS);
+            } else {
+                headerPresent = true;
+            }
+        }
+
+        List<List<List<Object>>> chunks = chunks(rows);
+        for (List<List<Object>> chunk : chunks) {
+            ValueRange body = new ValueRange().setValues(chunk);
+            try {
+                execute(service.spreadsheets().values()
+                        .append(spreadsheetId, APPEND_RANGE, body)
+                        .setValueInputOption("RAW"));
+            } catch (IOException | RuntimeException e) {
+                uploadedIds = null;
+                throw e;
+            }
+            headerPresent = true;
+            int jobRows = 0;
+            for (List<Object> row : chunk) {
+                if (row == HEADERS) continue;
+                uploadedIds.add((String) row.get(0));
+                jobRows++;
+            }
+            uploadedRows.increment(jobRows);
+        }
+        log.info("Uploaded {} rows to Google Sheets in {} requests", rows.size(), chunks.size());
+    }
+
+    private Set<String> readUploadedIds(Sheets service) throws IOException, InterruptedException {
+        ValueRange column = execute(service.spreadsheets().values().get(spreadsheetId, ID_RANGE));
+        Set<String> ids = new HashSet<>();
+        if (column.getValues() != null) {
+            for (List<Object> row : column.getValues()) {
+                if (!row.isEmpty()) ids.add(row.get(0).toString());
+            }
+        }
+        return ids;
+    }
+
+    private <T> T execute(SheetsRequest<T> request)
+            throws IOException, InterruptedException {
+        Duration backoff = initialBackoff;
+        for (int attempt = 1; ; attempt++) {
+            pace();
+            long start = System.nanoTime();
+            String outcome = "error";
+            try {
+                T result = request.execute();
+                outcome = "success";
+                return result;
+            } catch (IOException e) {
+                if (attempt >= maxAttempts || !isRetryable(e)) throw e;
+                Duration delay = retryDelay(e, backoff);
+                log.warn("Google Sheets request failed ({}), retrying in {} ms", e.getMessage(), delay.toMillis());
+                retries.increment();
+                Thread.sleep(delay);
+                backoff = backoff.multipliedBy(2).compareTo(maxBackoff) > 0 ? maxBackoff : backoff.multipliedBy(2);
+            } finally {
+                Timer.builder("scraper.sheets.append")
+                        .description("Time of one Sheets API request")
+                        .tag("outcome", outcome)
+                        .register(meterRegistry)
+                        .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    private void pace() throws InterruptedException {
+        long wait = lastRequestNanos + minRequestIntervalNanos - System.nanoTime();
+        if (lastRequestNanos != 0 && wait > 0) {
+            Thread.sleep(Duration.ofNanos(wait));
+        }
+        lastRequestNanos = System.nanoTime();
+    }
+
+    private static boolean isRetryable(IOException e) {
+        if (!(e instanceof HttpResponseException response)) return true;
+        int status = response.getStatusCode();
+        return status == 429 || status >= 500;
+    }
+
+    /**
+     * The server's {@code Retry-After} if it sent one, otherwise the backoff with up to 50% jitter.
+     */
+    private Duration retryDelay(IOException e, Duration backoff) {
+        if (e instanceof HttpResponseException response) {
+            String retryAfter = response.getHeaders().getFirstHeaderStringValue("Retry-After");
+            if (retryAfter != null) {
+                try {
+                    Duration requested = Duration.ofSeconds(Long.parseLong(retryAfter.trim()));
+                    return requested.compareTo(maxBackoff) > 0 ? maxBackoff : requested;
+                } catch (NumberFormatException ignored) {
+                    // an HTTP date; fall back to the backoff
+                }
+            }
+        }
+        long millis = backoff.toMillis();
+        return Duration.ofMillis(millis + ThreadLocalRandom.current().nextLong(millis / 2 + 1));
+    }
+
+    /**
+     * Splits the rows into consecutive chunks within the cell and byte limits; a row that exceeds them
+     * on its own forms a chunk by itself.
+     */
+    private List<List<List<Object>>> chunks(List<List<Object>> rows) {
+        List<List<List<Object>>> chunks = new ArrayList<>();
+        List<List<Object>> chunk = new ArrayList<>();
+        int cells = 0;
+        long bytes = 0;
+        for (List<Object> row : rows) {
+            long rowBytes = estimatedBytes(row);
+            if (!chunk.isEmpty() && (cells + row.size() > maxCellsPerRequest || bytes + rowBytes > maxBytesPerRequest)) {
+                chunks.add(chunk);
+                chunk = new ArrayList<>();
+                cells = 0;
+                bytes = 0;
+            }
+            chunk.add(row);
+            cells += row.size();
+            bytes += rowBytes;
+        }
+        if (!chunk.isEmpty()) chunks.add(chunk);
+        return chunks;
+    }
+
+    /**
+     * Size of the row in the JSON request body, counting characters the JSON encoder escapes as
+     * {@code \}{@code uXXXX}.
+     */
+    private static long estimatedBytes(List<Object> row) {
+        long bytes = 2;
+        for (Object cell : row) {
+            String value = cell.toString();
+            bytes += 3;
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c < 0x20 || c == '<' || c == '>' || c == '&' || c == '=' || c == '\'' || c == '"' || c == '\\') {
+                    bytes += 6;
+                } else if (c < 0x80) {
+                    bytes += 1;
+                } else if (c < 0x800 || Character.isSurrogate(c)) {
+                    bytes += 2;
+                } else {
+                    bytes += 3;
+                }
+            }
+        }
+        return bytes;
+    }
+
+    private synchronized Sheets client() throws IOException, GeneralSecurityException {
+        if (client == null) {
+            NetHttpTransport httpTransport = GoogleNetHttpTransport.newTrustedTransport();
+            client = new Sheets.Builder(httpTransport, JSON_FACTORY, getCredentials(httpTransport))
+                    .setApplicationName(applicationName)
+                    .setRootUrl(rootUrl)
+                    .build();
+        }
+        return client;
     }
 
     private Credential getCredentials(final NetHttpTransport HTTP_TRANSPORT)
@@ -77,57 +349,30 @@ public class GoogleSheetsService {
         return new AuthorizationCodeInstalledApp(flow, receiver).authorize("user");
     }
 
-    public void appendJobsToSheet(List<Job> jobs)
-            throws IOException, GeneralSecurityException {
-
-        final NetHttpTransport HTTP_TRANSPORT = GoogleNetHttpTransport.newTrustedTransport();
-
-        Sheets service = new Sheets.Builder(HTTP_TRANSPORT, JSON_FACTORY, getCredentials(HTTP_TRANSPORT))
-                .setApplicationName(applicationName)
-                .build();
-
-        String range = "Sheet1!A1:Z1";
-        ValueRange existingHeader = service.spreadsheets().values()
-                .get(spreadsheetId, range)
-                .execute();
-
-        List<List<Object>> values = new ArrayList<>();
-
-        List<Object> headers = List.of("ID", "Job URL", "Position", "Organization URL", "Logo URL",
-                "Organization Title", "Labor Function", "Location Raw", "City", "State", "Country", "Posted Date", "Tags", "Description");
-
-        if (existingHeader.getValues() == null || existingHeader.getValues().isEmpty()
-                || !existingHeader.getValues().get(0).equals(headers)) {
-            values.add(headers);
-        }
-
-        for (Job job : jobs) {
+    private static List<List<Object>> toRows(List<JobView> jobs) {
+        List<List<Object>> values = new ArrayList<>(jobs.size());
+        for (JobView job : jobs) {
             values.add(List.of(
-                    job.getId() != null ? job.getId().toString() : "",
-                    job.getJobPageUrl() != null ? job.getJobPageUrl() : "",
-                    job.getPositionName() != null ? job.getPositionName() : "",
-                    job.getOrganizationUrl() != null ? job.getOrganizationUrl() : "",
-                    job.getLogoUrl() != null ? job.getLogoUrl() : "",
-                    job.getOrganizationTitle() != null ? job.getOrganizationTitle() : "",
-                    job.getLaborFunction() != null ? job.getLaborFunction() : "",
-                    job.getLocationRaw() != null ? job.getLocationRaw() : "",
-                    job.getLocationCity() != null ? job.getLocationCity() : "",
-                    job.getLocationState() != null ? job.getLocationState() : "",
-                    job.getLocationCountry() != null ? job.getLocationCountry() : "",
-                    job.getPostedDateUnix() != null ? job.getPostedDateUnix().toString() : "",
-                    job.getTags() != null ? job.getTags() : "",
-                    job.getDescriptionHtml() != null ? job.getDescriptionHtml() : ""
+                    job.id() != null ? job.id().toString() : "",
+                    job.jobPageUrl() != null ? job.jobPageUrl() : "",
+                    job.positionName() != null ? job.positionName() : "",
+                    job.organizationUrl() != null ? job.organizationUrl() : "",
+                    job.logoUrl() != null ? job.logoUrl() : "",
+                    job.organizationTitle() != null ? job.organizationTitle() : "",
+                    job.laborFunction() != null ? job.laborFunction() : "",
+                    job.locationRaw() != null ? job.locationRaw() : "",
+                    job.locationCity() != null ? job.locationCity() : "",
+                    job.locationState() != null ? job.locationState() : "",
+                    job.locationCountry() != null ? job.locationCountry() : "",
+                    job.postedDateUnix() != null ? job.postedDateUnix().toString() : "",
+                    job.tags() != null ? job.tags() : "",
+                    job.descriptionHtml() != null ? truncate(job.descriptionHtml()) : ""
             ));
         }
+        return values;
+    }
 
-        String rangeAppend = "Sheet1!A1";
-        ValueRange body = new ValueRange().setValues(values);
-        service.spreadsheets().values()
-                .append(spreadsheetId, rangeAppend, body)
-                .setValueInputOption("RAW")
-                .execute();
-        log.info("Uploaded {} jobs to Google Sheets", jobs.size());
+    private static String truncate(String value) {
+        return value.length() <= MAX_CELL_CHARS ? value : value.substring(0, MAX_CELL_CHARS);
     }
 }
-
-
@@ -0,0 +1,181 @@
+package org.example.techstarsscraper.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-host token bucket whose refill rate adapts AIMD-style to how the host responds.
+ * <p>
+ * Every fast successful response raises the rate by a fixed step; a throttling response (429/503)
+ * or a response slower than the latency threshold cuts it by a factor. As in TCP, the rate is cut at most
+ * once per round trip: responses to requests sent before the last cut reflect the rate before it, so they
+ * do not cut it again. A {@code Retry-After} from the host additionally pauses the whole bucket until that time.
+ */
+@Component
+@Log4j2
+public class HostRateLimiter {
+
+    private final double initialRate;
+    private final double minRate;
+    private final double maxRate;
+    private final double burst;
+    private final double additiveIncrease;
+    private final double multiplicativeDecrease;
+    private final long latencyThresholdNanos;
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+    private final Timer waitTimer;
+
+    public HostRateLimiter(@Value("${scrape.rate-limit.initial-rate}") double initialRate,
+                           @Value("${scrape.rate-limit.min-rate}") double minRate,
+                           @Value("${scrape.rate-limit.max-rate}") double maxRate,
+                           @Value("${scrape.rate-limit.burst}") double burst,
+                           @Value("${scrape.rate-limit.additive-increase}") double additiveIncrease,
+                           @Value("${scrape.rate-limit.multiplicative-decrease}") double multiplicativeDecrease,
+                           @Value("${scrape.rate-limit.latency-threshold}") Duration latencyThreshold,
+                           MeterRegistry meterRegistry) {
+        if (minRate <= 0 || minRate > maxRate) {
+            throw new IllegalArgumentException("scrape.rate-limit requires 0 < min-rate <= max-rate");
+        }
+        this.initialRate = Math.max(minRate, Math.min(maxRate, initialRate));
+        this.minRate = minRate;
+        this.maxRate = maxRate;
+        this.burst = Math.max(1, burst);
+        this.additiveIncrease = additiveIncrease;
+        this.multiplicativeDecrease = multiplicativeDecrease;
+        this.latencyThresholdNanos = latencyThreshold.toNanos();
+        this.meterRegistry = meterRegistry;
+        this.waitTimer = Timer.builder("scraper.rate-limit.wait")
+                .description("Time requests wait for a rate limit token")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Blocks until a request to the URL's host is allowed.
+     */
+    public void acquire(String url) throws InterruptedIOException {
+        Bucket bucket = bucket(url);
+        long start = System.nanoTime();
+        long waitNanos;
+        while ((waitNanos = bucket.tryTake()) > 0) {
+            try {
+                Thread.sleep(Duration.ofNanos(waitNanos));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for rate limit on " + url);
+            }
+        }
+        waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    public void onSuccess(String url, long latencyNanos) {
+        Bucket bucket = bucket(url);
+        if (latencyNanos > latencyThresholdNanos) {
+            bucket.decrease(System.nanoTime() - latencyNanos,
+                    "slow response (" + Duration.ofNanos(latencyNanos).toMillis() + " ms)");
+        } else {
+            bucket.increase();
+        }
+    }
+
+    /**
+     * @param latencyNanos time from sending the request until its response arrived
+     */
+    public void onThrottled(String url, long latencyNanos, Duration retryAfter) {
+        Bucket bucket = bucket(url);
+        bucket.decrease(System.nanoTime() - latencyNanos, "throttled by host");
+        if (retryAfter != null && !retryAfter.isNegative()) {
+            bucket.pauseFor(retryAfter);
+        }
+    }
+
+    private Bucket bucket(String url) {
+        return buckets.computeIfAbsent(hostOf(url), host -> {
+            Bucket bucket = new Bucket(host);
+            Gauge.builder("scraper.rate-limit.rate", bucket, Bucket::currentRate)
+                    .description("Current request rate allowed for the host")
+                    .baseUnit("requests/s")
+                    .tag("host", host)
+                    .register(meterRegistry);
+            return bucket;
+        });
+    }
+
+    private static String hostOf(String url) {
+        try {
+            String host = URI.create(url).getHost();
+            return host != null ? host.toLowerCase(Locale.ROOT) : "";
+        } catch (IllegalArgumentException e) {
+            return "";
+        }
+    }
+
+    private final class Bucket {
+        private final String host;
+        private double rate = initialRate;
+        private double tokens = burst;
+        private long lastRefill = System.nanoTime();
+        private long pausedUntil;
+        private boolean decreased;
+        private long lastDecreaseNanos;
+
+        private Bucket(String host) {
+            this.host = host;
+        }
+
+        /**
+         * Takes a token if one is available and returns 0, otherwise returns the nanos to wait.
+         */
+        private synchronized long tryTake() {
+            long now = System.nanoTime();
+            if (now < pausedUntil) {
+                return pausedUntil - now;
+            }
+            tokens = Math.min(burst, tokens + (now - lastRefill) * rate / 1_000_000_000d);
+            lastRefill = now;
+            if (tokens >= 1) {
+                tokens -= 1;
+                return 0;
+            }
+            return (long) Math.ceil((1 - tokens) / rate * 1_000_000_000d);
+        }
+
+        private synchronized double currentRate() {
+            return rate;
+        }
+
+        private synchronized void increase() {
+            rate = Math.min(maxRate, rate + additiveIncrease);
+        }
+
+        /**
+         * @param sentAtNanos when the request whose response signalled congestion was sent
+         */
+        private synchronized void decrease(long sentAtNanos, String reason) {
+            if (decreased && sentAtNanos - lastDecreaseNanos < 0) return;
+            decreased = true;
+            lastDecreaseNanos = System.nanoTime();
+            double previous = rate;
+            rate = Math.max(minRate, rate * multiplicativeDecrease);
+            tokens = Math.min(tokens, 0);
+            log.info("Rate for {} lowered from {} to {} req/s: {}",
+                    host, String.format("%.2f", previous), String.format("%.2f", rate), reason);
+        }
+
+        private synchronized void pauseFor(Duration duration) {
+            pausedUntil = Math.max(pausedUntil, System.nanoTime() + duration.toNanos());
+        }
+    }
+}
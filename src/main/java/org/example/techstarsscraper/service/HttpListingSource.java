@@ -0,0 +1,150 @@
+package org.example.techstarsscraper.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.extern.log4j.Log4j2;
+import org.example.techstarsscraper.dto.JobListing;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Discovers listings by paging through the board's JSON search endpoint over plain HTTP.
+ * <p>
+ * The {@code filter} parameter used by the board UI is base64-encoded JSON
+ * (e.g. {@code {"job_functions":["Software Engineering"]}}) and is sent as the {@code filters}
+ * object of the search request. Job page URLs are built from the organization and job slugs
+ * so that they match the links rendered on the board's job cards.
+ */
+@Component
+@Order(1)
+@Log4j2
+public class HttpListingSource implements ListingSource {
+
+    private final ObjectMapper objectMapper;
+    private final ScrapeHttpClient httpClient;
+    private final boolean enabled;
+    private final String searchUrl;
+    private final String jobUrlTemplate;
+    private final int hitsPerPage;
+    private final int maxPages;
+
+    public HttpListingSource(ObjectMapper objectMapper,
+                             ScrapeHttpClient httpClient,
+                             @Value("${scrape.listing.http.enabled}") boolean enabled,
+                             @Value("${scrape.listing.http.search-url}") String searchUrl,
+                             @Value("${scrape.listing.http.job-url-template}") String jobUrlTemplate,
+                             @Value("${scrape.listing.http.hits-per-page}") int hitsPerPage,
+                             @Value("${scrape.listing.http.max-pages}") int maxPages) {
+        this.objectMapper = objectMapper;
+        this.httpClient = httpClient;
+        this.enabled = enabled;
+        this.searchUrl = searchUrl;
+        this.jobUrlTemplate = jobUrlTemplate;
+        this.hitsPerPage = hitsPerPage;
+        this.maxPages = maxPages;
+    }
+
+    @Override
+    public String name() {
+        return "http";
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return enabled && searchUrl != null && !searchUrl.isBlank();
+    }
+
+    @Override
+    public void discover(String jobFunction, ListingCrawl crawl, Consumer<JobListing> consumer) throws IOException {
+        JsonNode filters = decodeFilter(jobFunction);
+        int emitted = 0;
+        for (int page = 0; page < maxPages; page++) {
+            JsonNode results = fetchPage(filters, page).path("results");
+            JsonNode jobs = results.path("jobs");
+            if (!jobs.isArray() || jobs.isEmpty()) break;
+
+            for (JsonNode jobNode : jobs) {
+                JobListing listing = toListing(jobNode);
+                if (listing != null) {
+                    consumer.accept(listing);
+                    emitted++;
+                    log.debug("Job link found: {} | Tags: {}", listing.jobPageUrl(), listing.tags());
+                }
+            }
+
+            long count = results.path("count").asLong(Long.MAX_VALUE);
+            if ((long) (page + 1) * hitsPerPage >= count) break;
+            if (crawl.reachedKnown()) {
+                log.info("Stopping after page {}: reached known listings ({})", page + 1, crawl);
+                break;
+            }
+        }
+        log.info("Search endpoint returned {} job listings", emitted);
+    }
+
+    private JsonNode fetchPage(JsonNode filters, int page) throws IOException {
+        ObjectNode body = objectMapper.createObjectNode();
+        body.put("hitsPerPage", hitsPerPage);
+        body.put("page", page);
+        body.set("filters", filters);
+        body.put("query", "");
+
+        HttpRequest request = httpClient.newRequest(searchUrl)
+                .header("Accept", "application/json")
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                .build();
+
+        try (ScrapeHttpClient.Response response = httpClient.send(request)) {
+            if (response.statusCode() != 200) {
+                throw new IOException("Search endpoint returned HTTP " + response.statusCode() + " for page " + page);
+            }
+            try (InputStream in = response.body()) {
+                return objectMapper.readTree(in);
+            }
+        }
+    }
+
+    private JobListing toListing(JsonNode jobNode) {
+        String jobSlug = jobNode.path("slug").asText(null);
+        String organizationSlug = jobNode.path("organization").path("slug").asText(null);
+        if (jobSlug == null || organizationSlug == null) return null;
+
+        String jobUrl = jobUrlTemplate
+                .replace("{organization}", organizationSlug)
+                .replace("{job}", jobSlug);
+
+        List<String> tags = new ArrayList<>();
+        JsonNode organization = jobNode.path("organization");
+        for (JsonNode tag : organization.path("industry_tags")) {
+            String text = tag.asText("").trim();
+            if (!text.isEmpty()) tags.add(text);
+        }
+        JsonNode headCount = organization.path("head_count");
+        if (headCount.isTextual() && !headCount.asText().isBlank()) {
+            tags.add(headCount.asText().trim() + " employees");
+        }
+        return new JobListing(jobUrl, tags);
+    }
+
+    private JsonNode decodeFilter(String jobFunction) throws IOException {
+        if (jobFunction == null || jobFunction.isBlank()) return objectMapper.createObjectNode();
+        try {
+            byte[] json = Base64.getDecoder().decode(jobFunction.trim());
+            return objectMapper.readTree(new String(json, StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Function filter is not base64-encoded JSON: " + jobFunction, e);
+        }
+    }
+}
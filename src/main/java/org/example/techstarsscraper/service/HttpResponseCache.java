@@ -0,0 +1,415 @@
+package org.example.techstarsscraper.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * On-disk cache of job page responses, used for conditional requests.
+ * <p>
+ * Bodies are gzip-compressed and appended to segment files; an index of validators
+ * ({@code ETag}, {@code Last-Modified}) and body locations is kept in memory in LRU order and
+ * persisted next to the segments. When the live size exceeds the limit, least recently used
+ * entries are evicted and segments without live entries are deleted. A segment whose live entries fill less than
+ * half of it, because its other entries were replaced, invalidated or evicted, is compacted: its live entries are
+ * copied to the active segment and the segment is deleted.
+ * <p>
+ * Segment files are only read and deleted while holding the cache's lock.
+ */
+@Component
+@Log4j2
+public class HttpResponseCache {
+
+    private static final String INDEX_FILE = "index.dat";
+    private static final int INDEX_VERSION = 1;
+    private static final int PERSIST_EVERY_PUTS = 100;
+    private static final double COMPACT_BELOW_LIVE_RATIO = 0.5;
+
+    private final boolean enabled;
+    private final Path directory;
+    private final long maxBytes;
+    private final long segmentBytes;
+
+    private final LinkedHashMap<String, Entry> index = new LinkedHashMap<>(256, 0.75f, true);
+    private final Map<Integer, SegmentUsage> segments = new HashMap<>();
+    private final Set<Integer> segmentsToCompact = new LinkedHashSet<>();
+    private long liveBytes;
+    private int activeSegment;
+    private long activeSegmentSize;
+    private int putsSincePersist;
+
+    public HttpResponseCache(@Value("${scrape.http-cache.enabled}") boolean enabled,
+                             @Value("${scrape.http-cache.directory}") String directory,
+                             @Value("${scrape.http-cache.max-size}") DataSize maxSize,
+                             @Value("${scrape.http-cache.segment-size}") DataSize segmentSize) {
+        this.enabled = enabled;
+        this.directory = Path.of(directory);
+        this.maxBytes = maxSize.toBytes();
+        this.segmentBytes = segmentSize.toBytes();
+        if (enabled) {
+            open();
+        }
+    }
+
+    public synchronized Optional<Entry> lookup(String url) {
+        if (!enabled) return Optional.empty();
+        return Optional.ofNullable(index.get(url));
+    }
+
+    /**
+     * Stores the response body and validators for the URL, replacing any previous entry.
+     * Responses without validators are not cached.
+     */
+    public void put(String url, String etag, String lastModified, byte[] body) {
+        try (PendingBody pending = beginPut(url, etag, lastModified)) {
+            pending.write(body);
+            pending.commit();
+        } catch (IOException e) {
+            log.warn("Failed to compress cached response for {}: {}", url, e.getMessage());
+        }
+    }
+
+    /**
+     * Starts storing a response body that is written as it is read, so only its compressed form is held in memory.
+     * The entry replaces any previous one when the body is {@linkplain PendingBody#commit() committed};
+     * a body closed without committing is discarded. Responses without validators are not cached.
+     */
+    public PendingBody beginPut(String url, String etag, String lastModified) throws IOException {
+        boolean cacheable = enabled && !(isBlank(etag) && isBlank(lastModified));
+        return new PendingBody(url, etag, lastModified, cacheable);
+    }
+
+    private synchronized void append(String url, String etag, String lastModified, byte[] compressed) {
+        try {
+            Entry entry = write(etag, lastModified, compressed);
+            removeEntry(index.remove(url));
+            index.put(url, entry);
+
+            evictIfNeeded();
+            compactPending();
+            if (++putsSincePersist >= PERSIST_EVERY_PUTS) {
+                persistIndex();
+            }
+        } catch (IOException e) {
+            log.warn("Failed to write cached response for {}: {}", url, e.getMessage());
+        }
+    }
+
+    /**
+     * Appends a compressed body to the active segment and accounts for it as live.
+     */
+    private Entry write(String etag, String lastModified, byte[] compressed) throws IOException {
+        if (activeSegmentSize > 0 && activeSegmentSize + compressed.length > segmentBytes) {
+            activeSegment++;
+            activeSegmentSize = 0;
+        }
+        long offset = activeSegmentSize;
+        try (FileChannel channel = FileChannel.open(segmentPath(activeSegment),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ByteBuffer buffer = ByteBuffer.wrap(compressed);
+            while (buffer.hasRemaining()) channel.write(buffer);
+        }
+        activeSegmentSize += compressed.length;
+
+        SegmentUsage usage = segments.computeIfAbsent(activeSegment, segment -> new SegmentUsage());
+        usage.size = activeSegmentSize;
+        usage.liveEntries++;
+        usage.liveBytes += compressed.length;
+        liveBytes += compressed.length;
+        return new Entry(etag, lastModified, activeSegment, offset, compressed.length);
+    }
+
+    /**
+     * Reads and decompresses the cached body of the URL, which may have been replaced or moved since it was
+     * {@linkplain #lookup(String) looked up}.
+     *
+     * @throws FileNotFoundException if the URL is no longer cached
+     */
+    public byte[] body(String url) throws IOException {
+        byte[] compressed;
+        synchronized (this) {
+            Entry entry = enabled ? index.get(url) : null;
+            if (entry == null) throw new FileNotFoundException("No cached response for " + url);
+            compressed = readCompressed(entry);
+        }
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            return in.readAllBytes();
+        }
+    }
+
+    private byte[] readCompressed(Entry entry) throws IOException {
+        byte[] compressed = new byte[entry.length()];
+        try (FileChannel channel = FileChannel.open(segmentPath(entry.segment()), StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.wrap(compressed);
+            long position = entry.offset();
+            while (buffer.hasRemaining()) {
+                int read = channel.read(buffer, position);
+                if (read < 0) throw new EOFException("Cache segment " + entry.segment() + " is truncated");
+                position += read;
+            }
+        }
+        return compressed;
+    }
+
+    public synchronized void invalidate(String url) {
+        if (!enabled) return;
+        removeEntry(index.remove(url));
+        compactPending();
+    }
+
+    private void evictIfNeeded() {
+        Iterator<Map.Entry<String, Entry>> it = index.entrySet().iterator();
+        while (liveBytes > maxBytes && it.hasNext()) {
+            Entry eldest = it.next().getValue();
+            it.remove();
+            removeEntry(eldest);
+        }
+    }
+
+    private void removeEntry(Entry entry) {
+        if (entry == null) return;
+        liveBytes -= entry.length();
+        SegmentUsage usage = segments.get(entry.segment());
+        if (usage == null) return;
+        usage.liveEntries--;
+        usage.liveBytes -= entry.length();
+        if (entry.segment() == activeSegment) return;
+        if (usage.liveEntries <= 0) {
+            segments.remove(entry.segment());
+            segmentsToCompact.remove(entry.segment());
+            deleteSegment(entry.segment());
+        } else if (usage.liveBytes < usage.size * COMPACT_BELOW_LIVE_RATIO) {
+            segmentsToCompact.add(entry.segment());
+        }
+    }
+
+    private void deleteSegment(int segment) {
+        try {
+            Files.deleteIfExists(segmentPath(segment));
+        } catch (IOException e) {
+            log.debug("Failed to delete cache segment {}: {}", segment, e.getMessage());
+        }
+    }
+
+    /**
+     * Copies the live entries of mostly dead segments to the active segment and deletes those segments.
+     * Runs after eviction and invalidation rather than from {@link #removeEntry}, which is called while the index
+     * is being iterated.
+     */
+    private void compactPending() {
+        if (segmentsToCompact.isEmpty()) return;
+        List<Integer> compacting = new ArrayList<>(segmentsToCompact);
+        segmentsToCompact.clear();
+        for (int segment : compacting) {
+            SegmentUsage usage = segments.get(segment);
+            if (usage == null || segment == activeSegment) continue;
+            try {
+                int moved = 0;
+                for (Map.Entry<String, Entry> e : index.entrySet()) {
+                    Entry entry = e.getValue();
+                    if (entry.segment() != segment) continue;
+                    // setValue does not count as an access, so compaction leaves the LRU order alone
+                    e.setValue(write(entry.etag(), entry.lastModified(), readCompressed(entry)));
+                    liveBytes -= entry.length();
+                    moved++;
+                }
+                segments.remove(segment);
+                deleteSegment(segment);
+                log.debug("Compacted cache segment {}: moved {} live entries ({} of {} bytes)",
+                        segment, moved, usage.liveBytes, usage.size);
+                persistIndex();
+            } catch (IOException e) {
+                log.warn("Failed to compact cache segment {}: {}", segment, e.getMessage());
+            }
+        }
+    }
+
+    private void open() {
+        try {
+            Files.createDirectories(directory);
+            loadIndex();
+        } catch (IOException e) {
+            log.warn("Failed to load HTTP cache index from {}, starting empty: {}", directory, e.getMessage());
+            index.clear();
+            segments.clear();
+            liveBytes = 0;
+        }
+        deleteOrphanSegments();
+        int maxSegment = segments.keySet().stream().max(Integer::compare).orElse(0);
+        activeSegment = maxSegment + 1;
+        activeSegmentSize = 0;
+        segments.forEach((segment, usage) -> {
+            if (usage.liveBytes < usage.size * COMPACT_BELOW_LIVE_RATIO) segmentsToCompact.add(segment);
+        });
+        compactPending();
+        log.info("HTTP cache opened at {} with {} entries ({} KB)", directory, index.size(), liveBytes / 1024);
+    }
+
+    private void deleteOrphanSegments() {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "segment-*.dat")) {
+            for (Path segment : files) {
+                String name = segment.getFileName().toString();
+                int number = Integer.parseInt(name.substring("segment-".length(), name.length() - ".dat".length()));
+                if (!segments.containsKey(number)) {
+                    Files.deleteIfExists(segment);
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            log.debug("Failed to clean up HTTP cache segments: {}", e.getMessage());
+        }
+    }
+
+    private void loadIndex() throws IOException {
+        Path file = directory.resolve(INDEX_FILE);
+        if (!Files.exists(file)) return;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != INDEX_VERSION) return;
+            int size = in.readInt();
+            for (int i = 0; i < size; i++) {
+                String url = in.readUTF();
+                String etag = readNullableUtf(in);
+                String lastModified = readNullableUtf(in);
+                Entry entry = new Entry(etag, lastModified, in.readInt(), in.readLong(), in.readInt());
+                Path segment = segmentPath(entry.segment());
+                if (Files.exists(segment)) {
+                    index.put(url, entry);
+                    SegmentUsage usage = segments.get(entry.segment());
+                    if (usage == null) {
+                        usage = new SegmentUsage();
+                        usage.size = Files.size(segment);
+                        segments.put(entry.segment(), usage);
+                    }
+                    usage.liveEntries++;
+                    usage.liveBytes += entry.length();
+                    liveBytes += entry.length();
+                }
+            }
+        }
+    }
+
+    private void persistIndex() throws IOException {
+        Path tmp = directory.resolve(INDEX_FILE + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(INDEX_VERSION);
+            out.writeInt(index.size());
+            for (Map.Entry<String, Entry> e : index.entrySet()) {
+                Entry entry = e.getValue();
+                out.writeUTF(e.getKey());
+                writeNullableUtf(out, entry.etag());
+                writeNullableUtf(out, entry.lastModified());
+                out.writeInt(entry.segment());
+                out.writeLong(entry.offset());
+                out.writeInt(entry.length());
+            }
+        }
+        Files.move(tmp, directory.resolve(INDEX_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        putsSincePersist = 0;
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        if (!enabled) return;
+        try {
+            persistIndex();
+        } catch (IOException e) {
+            log.warn("Failed to persist HTTP cache index: {}", e.getMessage());
+        }
+    }
+
+    private Path segmentPath(int segment) {
+        return directory.resolve(String.format("segment-%06d.dat", segment));
+    }
+
+    private static String readNullableUtf(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeNullableUtf(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) out.writeUTF(value);
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    /**
+     * A response body being compressed into memory while it is read.
+     */
+    public final class PendingBody extends OutputStream {
+        private final String url;
+        private final String etag;
+        private final String lastModified;
+        private final ByteArrayOutputStream compressed;
+        private final GZIPOutputStream gzip;
+        private boolean done;
+
+        private PendingBody(String url, String etag, String lastModified, boolean cacheable) throws IOException {
+            this.url = url;
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.compressed = cacheable ? new ByteArrayOutputStream(8192) : null;
+            this.gzip = cacheable ? new GZIPOutputStream(compressed, 8192) : null;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (gzip != null && !done) gzip.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (gzip != null && !done) gzip.write(b, off, len);
+        }
+
+        /**
+         * @return {@code false} if the body is discarded because the cache is disabled or the response has no validators
+         */
+        public boolean isCaching() {
+            return gzip != null;
+        }
+
+        /**
+         * Stores the body written so far as the cached response of the URL.
+         */
+        public void commit() throws IOException {
+            if (gzip == null || done) return;
+            done = true;
+            gzip.finish();
+            append(url, etag, lastModified, compressed.toByteArray());
+        }
+
+        @Override
+        public void close() throws IOException {
+            done = true;
+            if (gzip != null) gzip.close();
+        }
+    }
+
+    /**
+     * Size of a segment file and how much of it belongs to live entries.
+     */
+    private static final class SegmentUsage {
+        private long size;
+        private int liveEntries;
+        private long liveBytes;
+    }
+
+    public record Entry(
+            String etag,
+            String lastModified,
+            int segment,
+            long offset,
+            int length) {
+    }
+}
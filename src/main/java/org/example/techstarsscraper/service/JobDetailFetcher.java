@@ -1,251 +1,263 @@
 package org.example.techstarsscraper.service;
 
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.log4j.Log4j2;
-import org.example.techstarsscraper.dto.LocationInfo;
 import org.example.techstarsscraper.model.Job;
+import org.jsoup.HttpStatusException;
 import org.jsoup.Jsoup;
-import org.jsoup.nodes.Document;
-import org.jsoup.nodes.Element;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+import org.springframework.util.unit.DataSize;
 
-import java.io.IOException;
-import java.time.LocalDate;
-import java.time.ZoneOffset;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
-import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.io.*;
+import java.net.http.HttpRequest;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 @Component
 @Log4j2
 public class JobDetailFetcher {
 
-    private final String userAgent;
-    private final int timeoutMs;
-
-    public JobDetailFetcher(@Value("${scrape.user-agent}") String USER_AGENT,
-                            @Value("${scrape.timeout-ms}") int TIMEOUT_MS) {
-        this.userAgent = USER_AGENT;
-        this.timeoutMs = TIMEOUT_MS;
+    /**
+     * How job pages are parsed: into a full document, or as a stream that stops once the needed fields are read.
+     */
+    public enum ParseMode { DOM, STREAM }
+
+    private final ScrapeHttpClient httpClient;
+    private final HostRateLimiter rateLimiter;
+    private final RetryPolicy retryPolicy;
+    private final HttpResponseCache responseCache;
+    private final PageArchive pageArchive;
+    private final JobPageExtractor jobPageExtractor;
+    private final ParseMode parseMode;
+    private final int maxDescriptionChars;
+    private final MeterRegistry meterRegistry;
+    private final Timer parseTimer;
+    private final DistributionSummary bodySize;
+
+    public JobDetailFetcher(ScrapeHttpClient httpClient,
+                            HostRateLimiter rateLimiter,
+                            RetryPolicy retryPolicy,
+                            HttpResponseCache responseCache,
+                            PageArchive pageArchive,
+                            JobPageExtractor jobPageExtractor,
+                            @Value("${scrape.detail.parse-mode}") ParseMode parseMode,
+                            @Value("${scrape.detail.max-description-size}") DataSize maxDescriptionSize,
+                            MeterRegistry meterRegistry) {
+        this.httpClient = httpClient;
+        this.rateLimiter = rateLimiter;
+        this.retryPolicy = retryPolicy;
+        this.responseCache = responseCache;
+        this.pageArchive = pageArchive;
+        this.jobPageExtractor = jobPageExtractor;
+        this.parseMode = parseMode;
+        this.maxDescriptionChars = (int) Math.min(Integer.MAX_VALUE, maxDescriptionSize.toBytes());
+        this.meterRegistry = meterRegistry;
+        this.parseTimer = Timer.builder("scraper.detail.parse")
+                .description("Time to parse a job page; in stream mode this includes reading the body")
+                .register(meterRegistry);
+        this.bodySize = DistributionSummary.builder("scraper.detail.body")
+                .description("Bytes read from a job page response, including bytes read only to cache it")
+                .baseUnit("bytes")
+                .register(meterRegistry);
     }
 
-    public Job fetch(String jobUrl) throws IOException {
+    /**
+     * Fetches and parses a job page.
+     * <p>
+     * Cached validators are only sent for a stored job: a {@code 304} means "nothing to save", which would lose
+     * a job whose page was cached but never saved, e.g. because its run was cancelled or its node crashed.
+     *
+     * @param stored whether the job is stored in the database
+     * @return the parsed job, or {@code null} if the job is stored and its page has not changed since it was last fetched
+     */
+    public Job fetch(String jobUrl, boolean stored, RetryBudget retryBudget) throws IOException {
         log.info("Fetching job page: {}", jobUrl);
-        Document doc = Jsoup.connect(jobUrl)
-                .userAgent(userAgent)
-                .timeout(timeoutMs)
-                .get();
-
-        Element content = extractContentElement(doc);
-
-        String positionName = extractPositionName(content);
-        String logoUrl = extractLogoUrl(content, jobUrl);
-        String organizationTitle = extractOrganizationTitle(content, logoUrl);
-        String organizationUrl = extractOrganizationUrl(content, jobUrl);
-        LocationInfo locationInfo = extractLocationInfo(content);
-        String laborFunction = extractLaborFunction(content);
-        Long postedDateUnix = extractPostedDateUnix(doc, content);
-
-        Element career = doc.selectFirst("[data-testid=careerPage], div[data-testid=careerPage]");
-        String descriptionHtml = (career != null) ? career.html().trim() : "";
-
-        Job job = Job.builder()
-                .jobPageUrl(jobUrl)
-                .positionName(positionName)
-                .organizationUrl(organizationUrl)
-                .logoUrl(logoUrl)
-                .organizationTitle(organizationTitle)
-                .laborFunction(laborFunction)
-                .locationRaw(locationInfo.raw())
-                .locationCity(locationInfo.city())
-                .locationState(locationInfo.state())
-                .locationCountry(locationInfo.country())
-                .postedDateUnix(postedDateUnix)
-                .descriptionHtml(descriptionHtml)
-                .build();
-
-        log.info("Parsed job: {} (position='{}')", jobUrl, positionName);
-        return job;
-    }
-
-    private Element extractContentElement(Document doc) {
-        Element content = doc.selectFirst("[data-testid=content]");
-        if (content == null) {
-            log.warn("[data-testid=content] not found, fallback to body");
-            content = doc.body();
+        long start = System.nanoTime();
+        String outcome = "error";
+        try {
+            Job job = download(jobUrl, stored, retryBudget);
+            if (job == null) {
+                outcome = "not-modified";
+                log.info("Job page not modified: {}", jobUrl);
+                return null;
+            }
+            outcome = "parsed";
+            log.info("Parsed job: {} (position='{}')", jobUrl, job.getPositionName());
+            return job;
+        } finally {
+            Timer.builder("scraper.detail.fetch")
+                    .description("Time to fetch and parse a job page, including retries and rate limiting")
+                    .tag("outcome", outcome)
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
         }
-        return content;
-    }
-
-    private String extractPositionName(Element content) {
-        if (content == null) return null;
-        Element positionEl = content.selectFirst("h1, h2");
-        return (positionEl != null) ? positionEl.text().trim() : null;
     }
 
-    private String extractLogoUrl(Element content, String baseUrl) {
-        if (content == null) return null;
-        Element logoImg = content.selectFirst("img[data-testid=image], img[alt]");
-        return (logoImg != null) ? toAbsoluteUrl(logoImg, "src", baseUrl) : null;
+    /**
+     * Forgets the cached validators of a job page, so that the next fetch downloads it in full.
+     */
+    public void invalidate(String jobUrl) {
+        responseCache.invalidate(jobUrl);
     }
 
-    private String extractOrganizationTitle(Element content, String logoUrl) {
-        if (content == null) return null;
-        if (logoUrl != null) {
-            Element logoImg = content.selectFirst("img[data-testid=image], img[alt]");
-            if (logoImg != null) {
-                Element parent = logoImg.parent();
-                for (int i = 0; i < 3 && parent != null; i++) {
-                    Optional<Element> orgTextEl = parent.select("p, span, div").stream()
-                            .filter(e -> {
-                                String txt = e.text().trim();
-                                return !txt.isEmpty() && txt.length() <= 100;
-                            })
-                            .findFirst();
-                    if (orgTextEl.isPresent()) {
-                        return orgTextEl.get().text().trim();
+    private Job download(String jobUrl, boolean stored, RetryBudget retryBudget) throws IOException {
+        Optional<HttpResponseCache.Entry> cached = responseCache.lookup(jobUrl);
+        boolean conditional = stored && cached.isPresent();
+        retryBudget.onRequest();
+        for (int attempt = 1; ; attempt++) {
+            rateLimiter.acquire(jobUrl);
+            long start = System.nanoTime();
+            Duration retryAfter = null;
+            IOException failure;
+            try {
+                HttpRequest.Builder request = httpClient.newRequest(jobUrl);
+                if (conditional) {
+                    HttpResponseCache.Entry entry = cached.get();
+                    if (entry.etag() != null) request.header("If-None-Match", entry.etag());
+                    if (entry.lastModified() != null) request.header("If-Modified-Since", entry.lastModified());
+                }
+                ScrapeHttpClient.Response response;
+                try {
+                    response = httpClient.send(request.GET().build());
+                } catch (IOException e) {
+                    recordRequest("io-error", start);
+                    throw e;
+                }
+                try (response) {
+                    int status = response.statusCode();
+                    recordRequest(Integer.toString(status), start);
+                    if (status == 304 && cached.isPresent()) {
+                        rateLimiter.onSuccess(jobUrl, System.nanoTime() - start);
+                        return conditional ? null : parse(new ByteArrayInputStream(responseCache.body(jobUrl)), null, jobUrl);
+                    }
+                    if (status == 200) {
+                        rateLimiter.onSuccess(jobUrl, System.nanoTime() - start);
+                        return parseResponse(jobUrl, response);
+                    }
+                    failure = new HttpStatusException("HTTP error fetching job page", status, jobUrl);
+                    if (retryPolicy.isThrottling(status)) {
+                        retryAfter = RetryPolicy.parseRetryAfter(response.header("Retry-After"));
+                        rateLimiter.onThrottled(jobUrl, System.nanoTime() - start, retryAfter);
+                    }
+                    if (!retryPolicy.isRetryable(status)) {
+                        throw failure;
                     }
-                    parent = parent.parent();
                 }
+            } catch (HttpStatusException e) {
+                throw e;
+            } catch (IOException e) {
+                failure = e;
             }
-        }
-        Element compLink = content.selectFirst("a[href*=\"/companies/\"]");
-        return (compLink != null) ? compLink.text().trim() : null;
-    }
 
-    private String extractOrganizationUrl(Element content, String baseUrl) {
-        if (content == null) return null;
-        Element applyLink = content.selectFirst("a[type=button][data-testid=button]");
-        if (applyLink == null) {
-            applyLink = content.selectFirst("a[type=button][data-testid=button-apply-now]");
-        }
-        if (applyLink != null) {
-            return toAbsoluteUrl(applyLink, "href", baseUrl);
+            if (attempt >= retryPolicy.maxAttempts() || !retryBudget.tryAcquireRetry()) {
+                throw failure;
+            }
+            Duration delay = retryPolicy.backoff(attempt, retryAfter);
+            log.info("Retrying {} in {} ms after attempt {} failed: {}", jobUrl, delay.toMillis(), attempt, failure.getMessage());
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while backing off from " + jobUrl);
+            }
         }
-        return null;
     }
 
-    private String extractLaborFunction(Element content) {
-        if (content == null) return null;
-
-        Element locationElement = findLocationElement(content);
-        if (locationElement == null) return null;
-
-        Element laborFunctionEl = locationElement.previousElementSibling();
-        if (laborFunctionEl != null) {
-            String text = laborFunctionEl.text().trim();
-            return text.isEmpty() ? null : text;
-        }
-        return null;
+    /**
+     * Records one request attempt, from sending it until the response headers arrive.
+     */
+    private void recordRequest(String status, long startNanos) {
+        Timer.builder("scraper.detail.request")
+                .description("Time until the response headers of a job page request arrive")
+                .tag("status", status)
+                .register(meterRegistry)
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
     }
 
-    private LocationInfo extractLocationInfo(Element content) {
-        if (content == null) return new LocationInfo(null, null, null, null);
-
-        Element locationElement = findLocationElement(content);
-        String locationRaw = null;
-
-        if (locationElement != null) {
-            locationRaw = locationElement.text().trim();
-        }
-
-        String locationCity = null, locationState = null, locationCountry = null;
-        if (locationRaw != null) {
-            String[] parts = Arrays.stream(locationRaw.split(","))
-                    .map(String::trim)
-                    .filter(s -> !s.isEmpty())
-                    .toArray(String[]::new);
-
-            if (parts.length == 1) {
-                locationCountry = parts[0];
-            } else if (parts.length == 2) {
-                locationCity = parts[0];
-                locationCountry = parts[1];
-            } else if (parts.length == 3) {
-                locationCity = parts[0];
-                locationState = parts[1];
-                locationCountry = parts[2];
-            } else if (parts.length > 3) {
-                locationCity = parts[0];
-                locationState = parts[1];
-                locationCountry = String.join(", ", Arrays.copyOfRange(parts, 2, parts.length));
+    /**
+     * Parses a successful response while storing its body in the cache and the page archive.
+     * When streaming stops parsing early, the rest of the body is still read into the cache and archive but not
+     * parsed; if the response is neither cached nor archived, it is not read at all.
+     */
+    private Job parseResponse(String jobUrl, ScrapeHttpClient.Response response) throws IOException {
+        try (HttpResponseCache.PendingBody cacheBody = responseCache.beginPut(
+                jobUrl, response.header("ETag"), response.header("Last-Modified"));
+             PageArchive.PendingRecord archived = pageArchive.begin(
+                     PageArchive.Kind.JOB_PAGE, jobUrl, response.header("Content-Type"));
+             TeeInputStream body = new TeeInputStream(response.body(), cacheBody, archived)) {
+            Job job = parse(StreamUtils.nonClosing(body), response.charset(), jobUrl);
+            if (cacheBody.isCaching() || archived.isRecording()) {
+                body.transferTo(OutputStream.nullOutputStream());
+                cacheBody.commit();
+                archived.commit();
             }
+            bodySize.record(body.bytesRead());
+            return job;
         }
-
-        return new LocationInfo(locationRaw, locationCity, locationState, locationCountry);
     }
 
-    private Long extractPostedDateUnix(Document doc, Element content) {
-        Element postedEl = findPostedDateElement(content);
-        String postedRaw = null;
-
-        if (postedEl != null) {
-            postedRaw = postedEl.text();
-        } else if (doc != null) {
-            Element dateEl = doc.selectFirst(":matchesOwn([A-Za-z]{3,9}\\s+\\d{1,2},\\s+\\d{4})");
-            if (dateEl != null) {
-                postedRaw = dateEl.text();
+    /**
+     * Extracts a job from a page body with the configured parse mode.
+     */
+    Job parse(InputStream body, String charset, String jobUrl) throws IOException {
+        long start = System.nanoTime();
+        try {
+            if (parseMode == ParseMode.STREAM) {
+                Charset cs = charset != null && Charset.isSupported(charset) ? Charset.forName(charset) : StandardCharsets.UTF_8;
+                return jobPageExtractor.extract(new InputStreamReader(body, cs), jobUrl, maxDescriptionChars);
             }
+            return jobPageExtractor.extract(Jsoup.parse(body, charset, jobUrl), jobUrl);
+        } finally {
+            parseTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
         }
-        return parseDateToEpoch(postedRaw);
     }
 
-    private Element findLocationElement(Element content) {
-        Element postedEl = findPostedDateElement(content);
-        if (postedEl == null) return null;
+    /**
+     * Copies every byte read from the response into the cache body and archive record, and counts them.
+     */
+    private static final class TeeInputStream extends FilterInputStream {
+        private final OutputStream[] copies;
+        private long bytesRead;
 
-        Element sibling = postedEl.previousElementSibling();
-        while (sibling != null) {
-            String text = sibling.text().trim();
-            if (!text.matches(".*\\d.*")) {
-                return sibling;
-            }
-            sibling = sibling.previousElementSibling();
+        TeeInputStream(InputStream in, OutputStream... copies) {
+            super(in);
+            this.copies = copies;
         }
-        return null;
-    }
 
-    private Element findPostedDateElement(Element content) {
-        if (content == null) return null;
-        return content.selectFirst("div:matchesOwn((?i)posted)");
-    }
-
-    private String toAbsoluteUrl(Element el, String attr, String baseUrl) {
-        String absUrl = el.absUrl(attr);
-        if (absUrl != null && !absUrl.isEmpty()) return absUrl;
-
-        String val = el.attr(attr);
-        if (val != null && !val.isEmpty()) {
-            if (val.startsWith("/")) {
-                try {
-                    java.net.URL base = new java.net.URL(baseUrl);
-                    return base.getProtocol() + "://" + base.getHost() + val;
-                } catch (Exception ignored) {}
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                for (OutputStream copy : copies) copy.write(b);
+                bytesRead++;
             }
-            return val;
+            return b;
         }
-        return null;
-    }
 
-    private Long parseDateToEpoch(String dateRaw) {
-        if (dateRaw == null) return null;
-        Pattern datePattern = Pattern.compile("([A-Za-z]{3,9}\\s+\\d{1,2},\\s+\\d{4})");
-        Matcher matcher = datePattern.matcher(dateRaw);
-        if (matcher.find()) {
-            String dateStr = matcher.group(1);
-            List<DateTimeFormatter> formatters = Arrays.asList(
-                    DateTimeFormatter.ofPattern("MMM d, uuuu", Locale.ENGLISH),
-                    DateTimeFormatter.ofPattern("MMMM d, uuuu", Locale.ENGLISH)
-            );
-            for (DateTimeFormatter fmt : formatters) {
-                try {
-                    LocalDate ld = LocalDate.parse(dateStr, fmt);
-                    return ld.atStartOfDay(ZoneOffset.UTC).toEpochSecond();
-                } catch (DateTimeParseException ignored) {}
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                for (OutputStream copy : copies) copy.write(b, off, n);
+                bytesRead += n;
             }
+            return n;
+        }
+
+        long bytesRead() {
+            return bytesRead;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            return Math.max(0, read(new byte[(int) Math.min(n, 8192)]));
         }
-        return null;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,371 @@
+package org.example.techstarsscraper.service;
+
+import lombok.extern.log4j.Log4j2;
+import org.example.techstarsscraper.dto.LocationInfo;
+import org.example.techstarsscraper.model.Job;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.nodes.Node;
+import org.jsoup.nodes.TextNode;
+import org.jsoup.parser.Parser;
+import org.jsoup.parser.StreamParser;
+import org.jsoup.select.Evaluator;
+import org.jsoup.select.NodeFilter;
+import org.jsoup.select.NodeTraversor;
+import org.jsoup.select.QueryParser;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Extracts the fields of a job page.
+ * <p>
+ * The anchor elements every field is read from (title, logo, apply link, "posted" line, description)
+ * are located in one walk over the document with selectors parsed once per class, instead of one
+ * full-tree query per field.
+ * <p>
+ * Pages can also be parsed as a stream: the description is serialized child by child while it is parsed
+ * and detached from the tree, and parsing stops as soon as the content element is complete.
+ */
+@Component
+@Log4j2
+public class JobPageExtractor {
+
+    private static final Evaluator CONTENT = QueryParser.parse("[data-testid=content]");
+    private static final Evaluator CAREER_PAGE = QueryParser.parse("[data-testid=careerPage]");
+    private static final Evaluator POSITION = QueryParser.parse("h1, h2");
+    private static final Evaluator LOGO = QueryParser.parse("img[data-testid=image], img[alt]");
+    private static final Evaluator COMPANY_LINK = QueryParser.parse("a[href*=\"/companies/\"]");
+    private static final Evaluator APPLY_BUTTON = QueryParser.parse("a[type=button][data-testid=button]");
+    private static final Evaluator APPLY_NOW_BUTTON = QueryParser.parse("a[type=button][data-testid=button-apply-now]");
+    private static final Evaluator ORGANIZATION_TEXT = QueryParser.parse("p, span, div");
+    private static final Evaluator DATE_TEXT = QueryParser.parse(":matchesOwn([A-Za-z]{3,9}\\s+\\d{1,2},\\s+\\d{4})");
+
+    private static final Pattern DATE_PATTERN = Pattern.compile("([A-Za-z]{3,9}\\s+\\d{1,2},\\s+\\d{4})");
+    private static final List<DateTimeFormatter> DATE_FORMATTERS = List.of(
+            DateTimeFormatter.ofPattern("MMM d, uuuu", Locale.ENGLISH),
+            DateTimeFormatter.ofPattern("MMMM d, uuuu", Locale.ENGLISH));
+
+    static final int POSITION_SLOT = 0;
+    static final int LOGO_SLOT = 1;
+    static final int COMPANY_LINK_SLOT = 2;
+    static final int APPLY_BUTTON_SLOT = 3;
+    static final int APPLY_NOW_BUTTON_SLOT = 4;
+    static final int POSTED_SLOT = 5;
+    private static final Evaluator[] SLOT_EVALUATORS = {POSITION, LOGO, COMPANY_LINK, APPLY_BUTTON, APPLY_NOW_BUTTON};
+
+    public Job extract(Document doc, String jobUrl) {
+        return extract(doc, jobUrl, null);
+    }
+
+    /**
+     * Parses the page from a reader and extracts its fields without building the rest of the document.
+     *
+     * @param maxDescriptionChars description children past this size are dropped
+     */
+    public Job extract(Reader html, String jobUrl, int maxDescriptionChars) throws IOException {
+        DescriptionCapture description = new DescriptionCapture(maxDescriptionChars);
+        try (StreamParser parser = new StreamParser(Parser.htmlParser()).parse(html, jobUrl)) {
+            Document doc = parser.document();
+            doc.outputSettings().prettyPrint(false);
+            boolean contentDone = false;
+            boolean careerPageDone = false;
+            Iterator<Element> elements = parser.iterator();
+            while (!(contentDone && careerPageDone) && elements.hasNext()) {
+                Element el = elements.next();
+                Element parent = el.parent();
+                if (parent != null && CAREER_PAGE.matches(doc, parent)) {
+                    description.appendUpTo(parent, el);
+                } else if (!careerPageDone && CAREER_PAGE.matches(doc, el)) {
+                    description.appendUpTo(el, null);
+                    careerPageDone = true;
+                } else if (!contentDone && CONTENT.matches(doc, el)) {
+                    contentDone = true;
+                }
+            }
+            parser.stop();
+
+            if (description.truncated) {
+                log.warn("Description of {} exceeds {} chars and was truncated", jobUrl, maxDescriptionChars);
+            }
+            return extract(doc, jobUrl, careerPageDone ? description.html() : null);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private Job extract(Document doc, String jobUrl, String capturedDescription) {
+        doc.outputSettings().prettyPrint(false);
+        Anchors anchors = Anchors.find(doc);
+        Element[] slots = anchors.slots();
+        if (anchors.content == null) {
+            log.warn("[data-testid=content] not found, fallback to body");
+        }
+
+        Element logoEl = slots[LOGO_SLOT];
+        String logoUrl = logoEl != null ? toAbsoluteUrl(logoEl, "src", jobUrl) : null;
+
+        Element applyEl = slots[APPLY_BUTTON_SLOT] != null ? slots[APPLY_BUTTON_SLOT] : slots[APPLY_NOW_BUTTON_SLOT];
+        String organizationUrl = applyEl != null ? toAbsoluteUrl(applyEl, "href", jobUrl) : null;
+
+        Element postedEl = slots[POSTED_SLOT];
+        Element locationEl = findLocationElement(postedEl);
+        String locationRaw = locationEl != null ? locationEl.text().trim() : null;
+        LocationInfo location = splitLocation(locationRaw);
+
+        String postedRaw;
+        if (postedEl != null) {
+            postedRaw = postedEl.text();
+        } else {
+            Element dateEl = doc.selectFirst(DATE_TEXT);
+            postedRaw = dateEl != null ? dateEl.text() : null;
+        }
+
+        Element positionEl = slots[POSITION_SLOT];
+        return Job.builder()
+                .jobPageUrl(jobUrl)
+                .positionName(positionEl != null ? positionEl.text().trim() : null)
+                .organizationUrl(organizationUrl)
+                .logoUrl(logoUrl)
+                .organizationTitle(extractOrganizationTitle(logoEl, logoUrl, slots[COMPANY_LINK_SLOT]))
+                .laborFunction(extractLaborFunction(locationEl))
+                .locationRaw(location.raw())
+                .locationCity(location.city())
+                .locationState(location.state())
+                .locationCountry(location.country())
+                .postedDateUnix(parseDateToEpoch(postedRaw))
+                .descriptionHtml(capturedDescription != null ? capturedDescription
+                        : anchors.careerPage != null ? anchors.careerPage.html().trim() : "")
+                .build();
+    }
+
+    /**
+     * Splits a "City, State, Country" location; a single part is taken as the country,
+     * and anything past the third part is kept with the country.
+     */
+    static LocationInfo splitLocation(String locationRaw) {
+        if (locationRaw == null) return new LocationInfo(null, null, null, null);
+
+        List<String> parts = new ArrayList<>(4);
+        int start = 0;
+        while (start <= locationRaw.length()) {
+            int end = locationRaw.indexOf(',', start);
+            if (end < 0) end = locationRaw.length();
+            String part = locationRaw.substring(start, end).trim();
+            if (!part.isEmpty()) parts.add(part);
+            start = end + 1;
+        }
+
+        return switch (parts.size()) {
+            case 0 -> new LocationInfo(locationRaw, null, null, null);
+            case 1 -> new LocationInfo(locationRaw, null, null, parts.get(0));
+            case 2 -> new LocationInfo(locationRaw, parts.get(0), null, parts.get(1));
+            default -> new LocationInfo(locationRaw, parts.get(0), parts.get(1),
+                    String.join(", ", parts.subList(2, parts.size())));
+        };
+    }
+
+    static Long parseDateToEpoch(String dateRaw) {
+        if (dateRaw == null) return null;
+        Matcher matcher = DATE_PATTERN.matcher(dateRaw);
+        if (!matcher.find()) return null;
+
+        String dateStr = matcher.group(1);
+        for (DateTimeFormatter fmt : DATE_FORMATTERS) {
+            try {
+                return LocalDate.parse(dateStr, fmt).atStartOfDay(ZoneOffset.UTC).toEpochSecond();
+            } catch (DateTimeParseException ignored) {}
+        }
+        return null;
+    }
+
+    static String extractOrganizationTitle(Element logoEl, String logoUrl, Element companyLink) {
+        if (logoUrl != null && logoEl != null) {
+            Element parent = logoEl.parent();
+            for (int i = 0; i < 3 && parent != null; i++) {
+                for (Element candidate : parent.select(ORGANIZATION_TEXT)) {
+                    String txt = candidate.text().trim();
+                    if (!txt.isEmpty() && txt.length() <= 100) {
+                        return txt;
+                    }
+                }
+                parent = parent.parent();
+            }
+        }
+        return companyLink != null ? companyLink.text().trim() : null;
+    }
+
+    static String extractLaborFunction(Element locationEl) {
+        if (locationEl == null) return null;
+        Element laborFunctionEl = locationEl.previousElementSibling();
+        if (laborFunctionEl == null) return null;
+        String text = laborFunctionEl.text().trim();
+        return text.isEmpty() ? null : text;
+    }
+
+    /**
+     * The location is the nearest preceding sibling of the "posted" line that contains no digits.
+     */
+    static Element findLocationElement(Element postedEl) {
+        if (postedEl == null) return null;
+        for (Element sibling = postedEl.previousElementSibling(); sibling != null; sibling = sibling.previousElementSibling()) {
+            if (!containsDigit(sibling.text())) {
+                return sibling;
+            }
+        }
+        return null;
+    }
+
+    private static boolean containsDigit(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') return true;
+        }
+        return false;
+    }
+
+    private static boolean isPostedLine(Element el) {
+        if (!el.nameIs("div")) return false;
+        for (TextNode textNode : el.textNodes()) {
+            String text = textNode.getWholeText();
+            for (int i = 0, last = text.length() - 6; i <= last; i++) {
+                if (text.regionMatches(true, i, "posted", 0, 6)) return true;
+            }
+        }
+        return false;
+    }
+
+    static String toAbsoluteUrl(Element el, String attr, String baseUrl) {
+        String absUrl = el.absUrl(attr);
+        if (!absUrl.isEmpty()) return absUrl;
+
+        String val = el.attr(attr);
+        if (!val.isEmpty()) {
+            if (val.startsWith("/")) {
+                try {
+                    URI base = URI.create(baseUrl);
+                    return base.getScheme() + "://" + base.getHost() + val;
+                } catch (Exception ignored) {}
+            }
+            return val;
+        }
+        return null;
+    }
+
+    /**
+     * Serialized description, built from the description's child nodes in document order.
+     * Descriptions are serialized as parsed, without pretty-printing, so that the streamed and
+     * the whole-document serializations are identical.
+     * Captured nodes are removed so that the parsed tree holds at most one child subtree at a time.
+     */
+    private static final class DescriptionCapture {
+        private final int maxChars;
+        private final StringBuilder html = new StringBuilder();
+        private boolean truncated;
+
+        DescriptionCapture(int maxChars) {
+            this.maxChars = maxChars;
+        }
+
+        /**
+         * Appends and detaches the children of the description up to and including {@code last},
+         * or all of them if {@code last} is {@code null}.
+         */
+        void appendUpTo(Element careerPage, Element last) {
+            while (careerPage.childNodeSize() > 0) {
+                Node child = careerPage.childNode(0);
+                if (!truncated) {
+                    String childHtml = child.outerHtml();
+                    if (html.length() + childHtml.length() > maxChars) {
+                        truncated = true;
+                    } else {
+                        html.append(childHtml);
+                    }
+                }
+                child.remove();
+                if (child == last) break;
+            }
+        }
+
+        String html() {
+            return html.toString().trim();
+        }
+    }
+
+    /**
+     * First match of every anchor, both inside the first content element and anywhere in the body
+     * (used when the page has no content element).
+     */
+    static final class Anchors implements NodeFilter {
+        private final Element root;
+        private final Element[] inContent = new Element[POSTED_SLOT + 1];
+        private final Element[] inBody = new Element[POSTED_SLOT + 1];
+        private Element content;
+        private boolean contentDone;
+        private Element careerPage;
+
+        private Anchors(Element root) {
+            this.root = root;
+        }
+
+        static Anchors find(Document doc) {
+            Anchors anchors = new Anchors(doc.body());
+            NodeTraversor.filter(anchors, doc.body());
+            return anchors;
+        }
+
+        Element[] slots() {
+            return content != null ? inContent : inBody;
+        }
+
+        Element careerPage() {
+            return careerPage;
+        }
+
+        @Override
+        public FilterResult head(Node node, int depth) {
+            if (!(node instanceof Element el)) return FilterResult.CONTINUE;
+
+            if (content == null && CONTENT.matches(root, el)) {
+                content = el;
+            }
+            if (careerPage == null && CAREER_PAGE.matches(root, el)) {
+                careerPage = el;
+            }
+            boolean withinContent = content != null && !contentDone;
+            Element[] target = withinContent ? inContent : content == null ? inBody : null;
+            if (target != null) {
+                for (int slot = 0; slot < SLOT_EVALUATORS.length; slot++) {
+                    if (target[slot] == null && SLOT_EVALUATORS[slot].matches(root, el)) {
+                        target[slot] = el;
+                    }
+                }
+                if (target[POSTED_SLOT] == null && isPostedLine(el)) {
+                    target[POSTED_SLOT] = el;
+                }
+            }
+            return FilterResult.CONTINUE;
+        }
+
+        @Override
+        public FilterResult tail(Node node, int depth) {
+            if (node == content) {
+                contentDone = true;
+            }
+            return contentDone && careerPage != null ? FilterResult.STOP : FilterResult.CONTINUE;
+        }
+    }
+}
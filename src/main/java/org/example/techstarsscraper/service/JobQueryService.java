@@ -0,0 +1,113 @@
+package org.example.techstarsscraper.service;
+
+import lombok.extern.log4j.Log4j2;
+import org.example.techstarsscraper.dto.JobFilter;
+import org.example.techstarsscraper.dto.JobPage;
+import org.example.techstarsscraper.dto.JobSearchResult;
+import org.example.techstarsscraper.dto.JobView;
+import org.example.techstarsscraper.repository.JobQueryRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Serves stored jobs page by page with opaque keyset cursors, as one streamed export, or as full-text
+ * search results with facets.
+ */
+@Service
+@Log4j2
+public class JobQueryService {
+
+    private final JobQueryRepository jobQueryRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final int defaultPageSize;
+    private final int maxPageSize;
+    private final int maxSearchOffset;
+    private final int facetSize;
+
+    public JobQueryService(JobQueryRepository jobQueryRepository,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${scrape.api.default-page-size}") int defaultPageSize,
+                           @Value("${scrape.api.max-page-size}") int maxPageSize,
+                           @Value("${scrape.api.search.max-offset}") int maxSearchOffset,
+                           @Value("${scrape.api.search.facet-size}") int facetSize) {
+        this.jobQueryRepository = jobQueryRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.maxPageSize = Math.max(1, maxPageSize);
+        this.defaultPageSize = Math.min(this.maxPageSize, Math.max(1, defaultPageSize));
+        this.maxSearchOffset = Math.max(0, maxSearchOffset);
+        this.facetSize = Math.max(1, facetSize);
+    }
+
+    /**
+     * @param limit  page size, capped at {@code max-page-size}; {@code null} for the default
+     * @param cursor {@code nextCursor} of the previous page, or {@code null} for the first page
+     * @throws IllegalArgumentException if the cursor is malformed or was issued for another sort
+     */
+    public JobPage findPage(JobFilter filter, JobQueryRepository.Sort sort, Integer limit, String cursor,
+                            boolean includeDescription) {
+        int pageSize = limit == null ? defaultPageSize : Math.min(maxPageSize, Math.max(1, limit));
+        JobQueryRepository.Cursor after = cursor == null || cursor.isBlank() ? null : decodeCursor(cursor, sort);
+
+        List<JobView> items = jobQueryRepository.findPage(filter, sort, after, pageSize, includeDescription);
+        String nextCursor = items.size() < pageSize ? null : encodeCursor(items.getLast(), sort);
+        return new JobPage(items, nextCursor);
+    }
+
+    /**
+     * Full-text search with facet counts over all matches.
+     *
+     * @param limit  page size, capped at {@code max-page-size}; {@code null} for the default
+     * @param offset number of hits to skip, at most {@code search.max-offset}
+     * @throws IllegalArgumentException if the offset is negative or too deep
+     */
+    public JobSearchResult search(String query, JobFilter filter, Integer limit, int offset, boolean includeDescription) {
+        if (offset < 0 || offset > maxSearchOffset) {
+            throw new IllegalArgumentException("offset must be between 0 and " + maxSearchOffset);
+        }
+        int pageSize = limit == null ? defaultPageSize : Math.min(maxPageSize, Math.max(1, limit));
+        return readOnlyTransaction.execute(status -> {
+            JobQueryRepository.Facets facets = jobQueryRepository.facets(query, filter, facetSize);
+            List<JobView> items = facets.total() <= offset ? List.of()
+                    : jobQueryRepository.search(query, filter, pageSize, offset, includeDescription);
+            return new JobSearchResult(items, facets.total(), facets.counts());
+        });
+    }
+
+    /**
+     * Hands every matching job to the consumer in id order without holding more than one fetch of rows in memory.
+     */
+    public void export(JobFilter filter, boolean includeDescription, Consumer<JobView> consumer) {
+        readOnlyTransaction.executeWithoutResult(status ->
+                jobQueryRepository.streamAll(filter, includeDescription, consumer));
+    }
+
+    private static String encodeCursor(JobView last, JobQueryRepository.Sort sort) {
+        String raw = sort == JobQueryRepository.Sort.POSTED
+                ? "posted:" + (last.postedDateUnix() == null ? 0 : last.postedDateUnix()) + ":" + last.id()
+                : "id:" + last.id();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static JobQueryRepository.Cursor decodeCursor(String cursor, JobQueryRepository.Sort sort) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":");
+            if (sort == JobQueryRepository.Sort.POSTED && parts.length == 3 && parts[0].equals("posted")) {
+                return new JobQueryRepository.Cursor(Long.parseLong(parts[1]), Long.parseLong(parts[2]));
+            }
+            if (sort == JobQueryRepository.Sort.ID && parts.length == 2 && parts[0].equals("id")) {
+                return new JobQueryRepository.Cursor(null, Long.parseLong(parts[1]));
+            }
+        } catch (IllegalArgumentException e) {
+            log.debug("Malformed cursor '{}': {}", cursor, e.getMessage());
+        }
+        throw new IllegalArgumentException("Invalid cursor for sort " + sort.name().toLowerCase());
+    }
+}
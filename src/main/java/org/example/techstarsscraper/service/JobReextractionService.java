@@ -0,0 +1,192 @@
+package org.example.techstarsscraper.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.log4j.Log4j2;
+import org.example.techstarsscraper.dto.ReextractionResult;
+import org.example.techstarsscraper.model.Job;
+import org.example.techstarsscraper.repository.JobRepository;
+import org.example.techstarsscraper.repository.JobRepositoryCustom;
+import org.jsoup.Jsoup;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Re-extracts stored jobs from the {@link PageArchive} instead of the live site, e.g. after an extractor was fixed.
+ * <p>
+ * The newest archived copy of every job page is parsed with the current {@link JobPageExtractor} and the
+ * configured parse mode, on a pool of {@code parallelism} threads (all cores by default). Tags are taken from the
+ * newest archived listing card of each job; jobs without one keep their stored tags. Parsed jobs are written
+ * {@code batch-size} at a time with {@link JobRepositoryCustom#updateExtracted}, while the next batch is parsed.
+ * Pages of jobs that are no longer stored are skipped. Runs are queued through {@link ScrapeRunManager}, which
+ * allows one at a time.
+ */
+@Service
+@Log4j2
+public class JobReextractionService {
+
+    private final PageArchive pageArchive;
+    private final JobDetailFetcher jobDetailFetcher;
+    private final BrowserListingSource browserListingSource;
+    private final JobRepository jobRepository;
+    private final int parallelism;
+    private final int batchSize;
+    private final Timer reextractTimer;
+    private final Counter updatedCounter;
+    private final Counter unchangedCounter;
+    private final Counter missingCounter;
+    private final Counter failedCounter;
+
+    public JobReextractionService(PageArchive pageArchive,
+                                  JobDetailFetcher jobDetailFetcher,
+                                  BrowserListingSource browserListingSource,
+                                  JobRepository jobRepository,
+                                  @Value("${scrape.archive.reextract.parallelism}") int parallelism,
+                                  @Value("${scrape.archive.reextract.batch-size}") int batchSize,
+                                  MeterRegistry meterRegistry) {
+        this.pageArchive = pageArchive;
+        this.jobDetailFetcher = jobDetailFetcher;
+        this.browserListingSource = browserListingSource;
+        this.jobRepository = jobRepository;
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.batchSize = Math.max(1, batchSize);
+        this.reextractTimer = Timer.builder("scraper.archive.reextract")
+                .description("Time to re-extract all archived job pages and update the stored jobs")
+                .register(meterRegistry);
+        this.updatedCounter = reextractedCounter("updated", meterRegistry);
+        this.unchangedCounter = reextractedCounter("unchanged", meterRegistry);
+        this.missingCounter = reextractedCounter("missing", meterRegistry);
+        this.failedCounter = reextractedCounter("failed", meterRegistry);
+    }
+
+    private static Counter reextractedCounter(String result, MeterRegistry meterRegistry) {
+        return Counter.builder("scraper.archive.reextracted")
+                .description("Archived job pages re-extracted, by what updating the stored job did")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return pageArchive.isEnabled();
+    }
+
+    /**
+     * Replays the archive as it is when called, reporting progress to the given run after every batch; pages
+     * archived meanwhile are left for the next run.
+     *
+     * @throws IllegalStateException if the archive is disabled
+     * @throws java.util.concurrent.CancellationException if the run is cancelled
+     */
+    public ReextractionResult reextract(ScrapeRun scrapeRun) throws IOException {
+        if (!pageArchive.isEnabled()) {
+            throw new IllegalStateException("The page archive is disabled");
+        }
+        long start = System.nanoTime();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try (PageArchive.Snapshot snapshot = pageArchive.snapshot()) {
+            List<PageArchive.Entry> listingEntries = snapshot.entries(PageArchive.Kind.LISTING_CARDS);
+            Map<String, String> tagsByUrl = pool.submit(() -> tagsByUrl(snapshot, listingEntries)).join();
+
+            List<PageArchive.Entry> pages = snapshot.latest(PageArchive.Kind.JOB_PAGE);
+            log.info("Re-extracting {} archived job pages on {} threads", pages.size(), parallelism);
+            AtomicInteger failed = new AtomicInteger();
+            int updated = 0;
+            int unchanged = 0;
+            int missing = 0;
+            scrapeRun.report(new ReextractionResult(pages.size(), listingEntries.size(), 0, 0, 0, 0, elapsedMs(start)));
+            CompletableFuture<List<Job>> next = parseAsync(snapshot, batch(pages, 0), tagsByUrl, failed, pool);
+            for (int from = 0; from < pages.size(); from += batchSize) {
+                scrapeRun.checkNotCancelled();
+                List<Job> jobs = next.join();
+                if (from + batchSize < pages.size()) {
+                    next = parseAsync(snapshot, batch(pages, from + batchSize), tagsByUrl, failed, pool);
+                }
+                JobRepositoryCustom.ReextractResult result = jobRepository.updateExtracted(jobs);
+                updated += result.updated();
+                unchanged += result.unchanged();
+                missing += result.missing();
+                updatedCounter.increment(result.updated());
+                unchangedCounter.increment(result.unchanged());
+                missingCounter.increment(result.missing());
+                scrapeRun.report(new ReextractionResult(pages.size(), listingEntries.size(), failed.get(),
+                        updated, unchanged, missing, elapsedMs(start)));
+            }
+
+            reextractTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            ReextractionResult result = new ReextractionResult(pages.size(), listingEntries.size(), failed.get(),
+                    updated, unchanged, missing, elapsedMs(start));
+            scrapeRun.report(result);
+            log.info("Re-extraction finished: {}", result);
+            return result;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static long elapsedMs(long start) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+    private List<PageArchive.Entry> batch(List<PageArchive.Entry> pages, int from) {
+        return pages.subList(from, Math.min(pages.size(), from + batchSize));
+    }
+
+    private CompletableFuture<List<Job>> parseAsync(PageArchive.Snapshot snapshot, List<PageArchive.Entry> batch,
+                                                    Map<String, String> tagsByUrl, AtomicInteger failed,
+                                                    ForkJoinPool pool) {
+        return CompletableFuture.supplyAsync(() -> batch.parallelStream()
+                .map(entry -> parse(snapshot, entry, tagsByUrl, failed))
+                .filter(Objects::nonNull)
+                .toList(), pool);
+    }
+
+    private Job parse(PageArchive.Snapshot snapshot, PageArchive.Entry entry, Map<String, String> tagsByUrl,
+                      AtomicInteger failed) {
+        String url = null;
+        try {
+            PageArchive.Record record = snapshot.read(entry);
+            url = record.url();
+            Job job = jobDetailFetcher.parse(new ByteArrayInputStream(record.body()), record.charset(), url);
+            job.setTags(tagsByUrl.get(url));
+            return job;
+        } catch (IOException | RuntimeException e) {
+            failed.incrementAndGet();
+            failedCounter.increment();
+            log.warn("Failed to re-extract archived page {} (segment {}, offset {}): {}",
+                    url, entry.segment(), entry.offset(), e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * The tags of every job on the archived listing cards; a later card replaces the tags of an earlier one.
+     */
+    private Map<String, String> tagsByUrl(PageArchive.Snapshot snapshot, List<PageArchive.Entry> entries) {
+        List<Map<String, List<String>>> cards = entries.parallelStream()
+                .map(entry -> {
+                    try {
+                        PageArchive.Record record = snapshot.read(entry);
+                        return browserListingSource.extractJobTagsMap(Jsoup.parseBodyFragment(
+                                new String(record.body(), StandardCharsets.UTF_8), record.url()));
+                    } catch (IOException | RuntimeException e) {
+                        log.warn("Failed to replay archived listing cards (segment {}, offset {}): {}",
+                                entry.segment(), entry.offset(), e.getMessage());
+                        return Map.<String, List<String>>of();
+                    }
+                })
+                .toList();
+        Map<String, String> tagsByUrl = new HashMap<>();
+        cards.forEach(map -> map.forEach((url, tags) -> tagsByUrl.put(url, String.join(", ", tags))));
+        return tagsByUrl;
+    }
+}
@@ -0,0 +1,92 @@
+package org.example.techstarsscraper.service;
+
+import lombok.extern.log4j.Log4j2;
+import org.example.techstarsscraper.dto.JobListing;
+import org.example.techstarsscraper.repository.JobRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Re-checks stored jobs on an adaptive schedule, independently of listing scrapes.
+ * <p>
+ * Each poll fetches up to {@code batch-size} open jobs whose {@code next_check_at} has passed. A job whose
+ * content changed is checked again after half its previous interval, an unchanged one after twice that,
+ * so frequently edited postings are followed closely and stable ones cost little. The poll also closes
+ * jobs that no listing has shown for {@code close-after}. Polls are queued as runs by {@link ScrapeRunManager},
+ * so they do not hold up the scheduler thread.
+ */
+@Service
+@Log4j2
+public class JobRefreshService {
+
+    private final JobRepository jobRepository;
+    private final ScrapePipeline scrapePipeline;
+    private final boolean enabled;
+    private final int batchSize;
+    private final Duration closeAfter;
+
+    public JobRefreshService(JobRepository jobRepository,
+                             ScrapePipeline scrapePipeline,
+                             @Value("${scrape.refresh.enabled}") boolean enabled,
+                             @Value("${scrape.refresh.batch-size}") int batchSize,
+                             @Value("${scrape.refresh.close-after}") Duration closeAfter) {
+        this.jobRepository = jobRepository;
+        this.scrapePipeline = scrapePipeline;
+        this.enabled = enabled;
+        this.batchSize = Math.max(1, batchSize);
+        this.closeAfter = closeAfter;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        if (!enabled) return;
+        int initialized = jobRepository.initializeChangeTracking();
+        if (initialized > 0) {
+            log.info("Scheduled first re-check of {} jobs stored before change tracking", initialized);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Re-checks the jobs that are due, reporting progress to the given run.
+     *
+     * @throws java.util.concurrent.CancellationException if the run is cancelled
+     */
+    public void refreshDueJobs(ScrapeRun scrapeRun) {
+        closeUnlistedJobs();
+
+        List<JobListing> due = jobRepository.findDueForCheck(batchSize);
+        if (due.isEmpty()) return;
+        log.info("Re-checking {} jobs due for refresh", due.size());
+        try (ScrapePipeline.Run run = scrapePipeline.start()) {
+            scrapeRun.attach(run);
+            for (JobListing listing : due) {
+                scrapeRun.checkNotCancelled();
+                run.refresh(listing);
+            }
+            scrapeRun.checkNotCancelled();
+            run.finish();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            scrapeRun.checkNotCancelled();
+            throw new IllegalStateException("Job refresh interrupted", e);
+        }
+    }
+
+    private void closeUnlistedJobs() {
+        if (closeAfter.isZero() || closeAfter.isNegative()) return;
+        int closed = jobRepository.closeUnseenSince(Instant.now().minus(closeAfter));
+        if (closed > 0) {
+            log.info("Closed {} jobs not listed for {}", closed, closeAfter);
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package org.example.techstarsscraper.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.log4j.Log4j2;
+import org.example.techstarsscraper.repository.JobRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.util.stream.Stream;
+
+/**
+ * In-memory index of the job page URLs already stored in the database.
+ * <p>
+ * URLs are kept as 64-bit hashes in an open-addressing table together with the time (epoch seconds)
+ * the page was last fetched, which takes about 12 bytes per job. The index is consulted right after
+ * listing discovery, so known jobs are dropped before any network I/O unless they are due for a
+ * refresh. A hash collision can only make a new job look known; at 64 bits that is negligible.
+ */
+@Component
+@Log4j2
+public class KnownJobIndex {
+
+    private static final long EMPTY = 0L;
+    private static final double MAX_LOAD = 0.6;
+
+    private final JobRepository jobRepository;
+    private final long refreshAfterSeconds;
+
+    private long[] keys = new long[1 << 14];
+    private int[] fetchedAt = new int[1 << 14];
+    private int size;
+
+    public KnownJobIndex(JobRepository jobRepository,
+                         @Value("${scrape.known-jobs.refresh-after}") Duration refreshAfter,
+                         MeterRegistry meterRegistry) {
+        this.jobRepository = jobRepository;
+        this.refreshAfterSeconds = refreshAfter.toSeconds();
+        Gauge.builder("scraper.known-jobs.size", this, KnownJobIndex::size)
+                .description("Job page URLs in the known-job index")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void warmUp() {
+        int now = nowSeconds();
+        try (Stream<String> urls = jobRepository.streamAllJobPageUrls()) {
+            urls.forEach(url -> put(hash(url), now));
+        }
+        log.info("Known-job index warmed up with {} job page URLs", size());
+    }
+
+    /**
+     * Whether the job page should be fetched: it is unknown, or known and due for a refresh.
+     */
+    public synchronized boolean shouldFetch(String jobPageUrl) {
+        int slot = find(hash(jobPageUrl));
+        if (keys[slot] == EMPTY) return true;
+        return refreshAfterSeconds > 0 && nowSeconds() - fetchedAt[slot] >= refreshAfterSeconds;
+    }
+
+    /**
+     * Whether the job page is stored, regardless of when it was fetched.
+     */
+    public synchronized boolean contains(String jobPageUrl) {
+        return keys[find(hash(jobPageUrl))] != EMPTY;
+    }
+
+    /**
+     * Records that the job page is stored and was fetched just now.
+     */
+    public void markFetched(String jobPageUrl) {
+        put(hash(jobPageUrl), nowSeconds());
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    private synchronized void put(long key, int seconds) {
+        int slot = find(key);
+        if (keys[slot] == EMPTY) {
+            keys[slot] = key;
+            size++;
+            if (size > keys.length * MAX_LOAD) {
+                resize();
+                slot = find(key);
+            }
+        }
+        fetchedAt[slot] = seconds;
+    }
+
+    private int find(long key) {
+        int mask = keys.length - 1;
+        int slot = (int) (key ^ (key >>> 32)) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        int[] oldFetchedAt = fetchedAt;
+        keys = new long[oldKeys.length * 2];
+        fetchedAt = new int[oldKeys.length * 2];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = find(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                fetchedAt[slot] = oldFetchedAt[i];
+            }
+        }
+    }
+
+    /**
+     * 64-bit FNV-1a over the URL's chars followed by a murmur3 finalizer; never returns {@link #EMPTY}.
+     */
+    static long hash(String url) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < url.length(); i++) {
+            h ^= url.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h == EMPTY ? 1 : h;
+    }
+
+    private static int nowSeconds() {
+        return (int) (System.currentTimeMillis() / 1000);
+    }
+}
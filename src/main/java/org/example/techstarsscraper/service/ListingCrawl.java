@@ -0,0 +1,59 @@
+package org.example.techstarsscraper.service;
+
+import org.example.techstarsscraper.dto.JobListing;
+
+/**
+ * How far one listing discovery pages through the board.
+ * <p>
+ * A full crawl pages until the board is exhausted. An incremental crawl also stops after the paging step
+ * in which {@code stopAfterKnown} consecutive cards turned out to be stored already: the board lists the
+ * newest postings first, so everything further down has been seen by an earlier crawl.
+ */
+public final class ListingCrawl {
+
+    private static final ListingCrawl FULL = new ListingCrawl(null, 0);
+
+    private final KnownJobIndex knownJobs;
+    private final int stopAfterKnown;
+    private int consecutiveKnown;
+    private int cards;
+
+    private ListingCrawl(KnownJobIndex knownJobs, int stopAfterKnown) {
+        this.knownJobs = knownJobs;
+        this.stopAfterKnown = stopAfterKnown;
+    }
+
+    public static ListingCrawl full() {
+        return FULL;
+    }
+
+    public static ListingCrawl incremental(KnownJobIndex knownJobs, int stopAfterKnown) {
+        return new ListingCrawl(knownJobs, Math.max(1, stopAfterKnown));
+    }
+
+    public boolean isIncremental() {
+        return knownJobs != null;
+    }
+
+    /**
+     * Records a discovered card; cards must be passed in the order the board lists them.
+     */
+    synchronized void seen(JobListing listing) {
+        if (knownJobs == null) return;
+        cards++;
+        consecutiveKnown = knownJobs.contains(listing.jobPageUrl()) ? consecutiveKnown + 1 : 0;
+    }
+
+    /**
+     * Whether the source should stop paging after the current step.
+     */
+    public synchronized boolean reachedKnown() {
+        return knownJobs != null && consecutiveKnown >= stopAfterKnown;
+    }
+
+    @Override
+    public synchronized String toString() {
+        if (knownJobs == null) return "full crawl";
+        return "incremental crawl, " + consecutiveKnown + " consecutive known of " + cards + " cards";
+    }
+}
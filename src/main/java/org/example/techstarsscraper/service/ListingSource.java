@@ -0,0 +1,37 @@
+package org.example.techstarsscraper.service;
+
+import org.example.techstarsscraper.dto.JobListing;
+
+import java.util.function.Consumer;
+
+/**
+ * Strategy for discovering the job postings listed on the board for a job function.
+ * Implementations hand every listing to the consumer as soon as it is found.
+ */
+public interface ListingSource {
+
+    String name();
+
+    /**
+     * Whether this source is configured and may be used.
+     */
+    boolean isAvailable();
+
+    /**
+     * Discovers job listings for the given function filter.
+     *
+     * @param jobFunction the board's {@code filter} query parameter, may be blank for all jobs
+     * @param crawl       checked after every page of results; the source stops paging once it
+     *                    {@linkplain ListingCrawl#reachedKnown() reached known listings}
+     * @param consumer    receives each discovered listing, in the order the board lists them
+     * @throws Exception if discovery fails; listings already handed to the consumer stay valid
+     */
+    void discover(String jobFunction, ListingCrawl crawl, Consumer<JobListing> consumer) throws Exception;
+
+    /**
+     * Discovers every job listing for the given function filter.
+     */
+    default void discover(String jobFunction, Consumer<JobListing> consumer) throws Exception {
+        discover(jobFunction, ListingCrawl.full(), consumer);
+    }
+}
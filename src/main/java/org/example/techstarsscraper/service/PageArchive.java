@@ -0,0 +1,402 @@
+package org.example.techstarsscraper.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.Instant;
+import java.util.*;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Append-only archive of the pages the scraper fetched, so that stored jobs can be re-extracted offline.
+ * <p>
+ * Every page becomes a WARC/1.1 {@code resource} record holding the decoded body, compressed as a gzip member
+ * of its own and appended to the active segment; a segment is a valid {@code .warc.gz} file. Next to the segments,
+ * {@code index.dat} holds one fixed-width entry per record (URL hash, archive time, segment, offset, length, kind)
+ * and is memory-mapped when the archive is replayed, so finding the newest record of every page reads no bodies.
+ * Records are never rewritten; a restart continues in a new segment, and an index entry torn by a crash is dropped.
+ */
+@Component
+@Log4j2
+public class PageArchive {
+
+    private static final String INDEX_FILE = "index.dat";
+    private static final int ENTRY_BYTES = 36;
+    private static final String KIND_HEADER = "Scraper-Record-Kind";
+
+    /**
+     * What an archived page is.
+     */
+    public enum Kind {
+        /**
+         * The body of a job page response.
+         */
+        JOB_PAGE("job-page"),
+        /**
+         * The job cards a listing rendered in the browser, one record per paging step.
+         */
+        LISTING_CARDS("listing-cards");
+
+        private final String label;
+
+        Kind(String label) {
+            this.label = label;
+        }
+
+        public String label() {
+            return label;
+        }
+    }
+
+    private final boolean enabled;
+    private final Path directory;
+    private final long segmentBytes;
+    private final Map<Kind, Counter> recordCounters = new EnumMap<>(Kind.class);
+
+    private FileChannel indexChannel;
+    private FileChannel segmentChannel;
+    private int activeSegment;
+    private long activeSegmentSize;
+
+    public PageArchive(@Value("${scrape.archive.enabled}") boolean enabled,
+                       @Value("${scrape.archive.directory}") String directory,
+                       @Value("${scrape.archive.segment-size}") DataSize segmentSize,
+                       MeterRegistry meterRegistry) {
+        this.directory = Path.of(directory);
+        this.segmentBytes = segmentSize.toBytes();
+        for (Kind kind : Kind.values()) {
+            recordCounters.put(kind, Counter.builder("scraper.archive.records")
+                    .description("Pages written to the page archive, by kind")
+                    .tag("kind", kind.label())
+                    .register(meterRegistry));
+        }
+        this.enabled = enabled && open();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Starts a record whose body is written as it is read; it is appended when {@linkplain PendingRecord#commit()
+     * committed} and discarded when closed without committing.
+     */
+    public PendingRecord begin(Kind kind, String url, String contentType) {
+        return new PendingRecord(kind, url, contentType);
+    }
+
+    /**
+     * Appends a record with the given body.
+     */
+    public void record(Kind kind, String url, String contentType, byte[] body) {
+        if (!enabled) return;
+        try (PendingRecord pending = begin(kind, url, contentType)) {
+            pending.write(body, 0, body.length);
+            pending.commit();
+        }
+    }
+
+    private boolean open() {
+        try {
+            Files.createDirectories(directory);
+            indexChannel = FileChannel.open(directory.resolve(INDEX_FILE),
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            long entries = indexChannel.size() / ENTRY_BYTES;
+            indexChannel.truncate(entries * ENTRY_BYTES);
+            indexChannel.position(entries * ENTRY_BYTES);
+            activeSegment = lastSegment() + 1;
+            log.info("Page archive opened at {} with {} records", directory, entries);
+            return true;
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to open page archive at {}, pages will not be archived: {}", directory, e.getMessage());
+            return false;
+        }
+    }
+
+    private int lastSegment() throws IOException {
+        int last = 0;
+        try (DirectoryStream<Path> segments = Files.newDirectoryStream(directory, "segment-*.warc.gz")) {
+            for (Path segment : segments) {
+                String name = segment.getFileName().toString();
+                try {
+                    last = Math.max(last, Integer.parseInt(name.substring("segment-".length(), name.length() - ".warc.gz".length())));
+                } catch (NumberFormatException e) {
+                    log.debug("Ignoring unexpected archive file {}", name);
+                }
+            }
+        }
+        return last;
+    }
+
+    private synchronized void append(Kind kind, String url, long archivedAt, byte[] compressed) throws IOException {
+        if (segmentChannel == null || (activeSegmentSize > 0 && activeSegmentSize + compressed.length > segmentBytes)) {
+            if (segmentChannel != null) {
+                segmentChannel.close();
+                activeSegment++;
+            }
+            segmentChannel = FileChannel.open(segmentPath(activeSegment),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            activeSegmentSize = segmentChannel.size();
+        }
+        long offset = activeSegmentSize;
+        ByteBuffer record = ByteBuffer.wrap(compressed);
+        while (record.hasRemaining()) segmentChannel.write(record);
+        activeSegmentSize += compressed.length;
+
+        ByteBuffer entry = ByteBuffer.allocate(ENTRY_BYTES).order(ByteOrder.LITTLE_ENDIAN)
+                .putLong(KnownJobIndex.hash(url))
+                .putLong(archivedAt)
+                .putInt(activeSegment)
+                .putLong(offset)
+                .putInt(compressed.length)
+                .putInt(kind.ordinal())
+                .flip();
+        while (entry.hasRemaining()) indexChannel.write(entry);
+        recordCounters.get(kind).increment();
+    }
+
+    /**
+     * Maps the index as it is now; records appended later are not part of the snapshot.
+     */
+    public Snapshot snapshot() throws IOException {
+        if (!enabled) throw new IllegalStateException("The page archive is disabled");
+        return new Snapshot();
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        try {
+            if (segmentChannel != null) segmentChannel.close();
+            if (indexChannel != null) indexChannel.close();
+        } catch (IOException e) {
+            log.warn("Failed to close page archive: {}", e.getMessage());
+        }
+    }
+
+    private Path segmentPath(int segment) {
+        return directory.resolve(String.format("segment-%06d.warc.gz", segment));
+    }
+
+    private static byte[] warcRecord(Kind kind, String url, Instant archivedAt, String contentType, byte[] body)
+            throws IOException {
+        String header = "WARC/1.1\r\n"
+                + "WARC-Type: resource\r\n"
+                + "WARC-Record-ID: <urn:uuid:" + UUID.randomUUID() + ">\r\n"
+                + "WARC-Date: " + archivedAt + "\r\n"
+                + "WARC-Target-URI: " + url + "\r\n"
+                + KIND_HEADER + ": " + kind.label() + "\r\n"
+                + "Content-Type: " + (contentType == null || contentType.isBlank() ? "text/html" : contentType.trim()) + "\r\n"
+                + "Content-Length: " + body.length + "\r\n"
+                + "\r\n";
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(body.length / 4 + 512);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed, 8192)) {
+            gzip.write(header.getBytes(StandardCharsets.UTF_8));
+            gzip.write(body);
+            gzip.write("\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+        }
+        return compressed.toByteArray();
+    }
+
+    /**
+     * A page body collected in memory while it is read.
+     */
+    public final class PendingRecord extends OutputStream {
+        private final Kind kind;
+        private final String url;
+        private final String contentType;
+        private final ByteArrayOutputStream body;
+        private boolean done;
+
+        private PendingRecord(Kind kind, String url, String contentType) {
+            this.kind = kind;
+            this.url = url;
+            this.contentType = contentType;
+            this.body = enabled ? new ByteArrayOutputStream(16 * 1024) : null;
+        }
+
+        @Override
+        public void write(int b) {
+            if (body != null && !done) body.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            if (body != null && !done) body.write(b, off, len);
+        }
+
+        /**
+         * @return {@code false} if the body is discarded because the archive is disabled
+         */
+        public boolean isRecording() {
+            return body != null;
+        }
+
+        /**
+         * Appends the body written so far to the archive; a failed write is logged, never thrown.
+         */
+        public void commit() {
+            if (body == null || done) return;
+            done = true;
+            Instant now = Instant.now();
+            try {
+                append(kind, url, now.toEpochMilli(), warcRecord(kind, url, now, contentType, body.toByteArray()));
+            } catch (IOException e) {
+                log.warn("Failed to archive {}: {}", url, e.getMessage());
+            }
+        }
+
+        @Override
+        public void close() {
+            done = true;
+        }
+    }
+
+    /**
+     * A read-only view of the archive over a memory-mapped copy of its index. Records can be read from
+     * several threads at once.
+     */
+    public final class Snapshot implements Closeable {
+        private final MappedByteBuffer index;
+        private final int entries;
+        private final Map<Integer, FileChannel> segments = new HashMap<>();
+
+        private Snapshot() throws IOException {
+            long size;
+            synchronized (PageArchive.this) {
+                size = indexChannel.size() / ENTRY_BYTES * ENTRY_BYTES;
+            }
+            try (FileChannel channel = FileChannel.open(directory.resolve(INDEX_FILE), StandardOpenOption.READ)) {
+                this.index = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            }
+            this.index.order(ByteOrder.LITTLE_ENDIAN);
+            this.entries = (int) (size / ENTRY_BYTES);
+        }
+
+        public int size() {
+            return entries;
+        }
+
+        /**
+         * The entries of the kind, oldest first.
+         */
+        public List<Entry> entries(Kind kind) {
+            List<Entry> result = new ArrayList<>();
+            for (int i = 0; i < entries; i++) {
+                Entry entry = entry(i);
+                if (entry.kind() == kind) result.add(entry);
+            }
+            return result;
+        }
+
+        /**
+         * The newest entry of the kind for every archived URL. Two URLs with the same 64-bit hash would share
+         * an entry, which is negligible.
+         */
+        public List<Entry> latest(Kind kind) {
+            Map<Long, Entry> latest = new LinkedHashMap<>();
+            for (int i = 0; i < entries; i++) {
+                Entry entry = entry(i);
+                if (entry.kind() == kind) latest.put(entry.urlHash(), entry);
+            }
+            return new ArrayList<>(latest.values());
+        }
+
+        private Entry entry(int i) {
+            int at = i * ENTRY_BYTES;
+            int kind = index.getInt(at + 32);
+            return new Entry(index.getLong(at), index.getLong(at + 8), index.getInt(at + 16), index.getLong(at + 20),
+                    index.getInt(at + 28), kind >= 0 && kind < Kind.values().length ? Kind.values()[kind] : null);
+        }
+
+        /**
+         * Reads and decompresses an archived record.
+         */
+        public Record read(Entry entry) throws IOException {
+            byte[] compressed = new byte[entry.length()];
+            FileChannel channel = segment(entry.segment());
+            ByteBuffer buffer = ByteBuffer.wrap(compressed);
+            long position = entry.offset();
+            while (buffer.hasRemaining()) {
+                int read = channel.read(buffer, position);
+                if (read < 0) throw new EOFException("Archive segment " + entry.segment() + " is truncated");
+                position += read;
+            }
+            try (DataInputStream in = new DataInputStream(new GZIPInputStream(new ByteArrayInputStream(compressed)))) {
+                Map<String, String> headers = new HashMap<>();
+                String line = readLine(in);
+                if (!line.startsWith("WARC/")) throw new IOException("Not a WARC record in segment " + entry.segment());
+                while (!(line = readLine(in)).isEmpty()) {
+                    int colon = line.indexOf(':');
+                    if (colon > 0) headers.put(line.substring(0, colon).trim().toLowerCase(Locale.ROOT), line.substring(colon + 1).trim());
+                }
+                byte[] body = new byte[Integer.parseInt(headers.getOrDefault("content-length", "0"))];
+                in.readFully(body);
+                return new Record(headers.get("warc-target-uri"), Instant.ofEpochMilli(entry.archivedAt()),
+                        headers.get("content-type"), body);
+            }
+        }
+
+        private synchronized FileChannel segment(int segment) throws IOException {
+            FileChannel channel = segments.get(segment);
+            if (channel == null) {
+                channel = FileChannel.open(segmentPath(segment), StandardOpenOption.READ);
+                segments.put(segment, channel);
+            }
+            return channel;
+        }
+
+        private static String readLine(InputStream in) throws IOException {
+            ByteArrayOutputStream line = new ByteArrayOutputStream(128);
+            int b;
+            while ((b = in.read()) != '\n') {
+                if (b < 0) throw new EOFException("Truncated WARC header");
+                if (b != '\r') line.write(b);
+            }
+            return line.toString(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+            for (FileChannel channel : segments.values()) {
+                channel.close();
+            }
+            segments.clear();
+        }
+    }
+
+    public record Entry(
+            long urlHash,
+            long archivedAt,
+            int segment,
+            long offset,
+            int length,
+            Kind kind) {
+    }
+
+    public record Record(
+            String url,
+            Instant archivedAt,
+            String contentType,
+            byte[] body) {
+
+        /**
+         * The {@code charset} of the content type, or {@code null} if there is none.
+         */
+        public String charset() {
+            return ScrapeHttpClient.charset(contentType);
+        }
+    }
+}
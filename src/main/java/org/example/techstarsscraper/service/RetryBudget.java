@@ -0,0 +1,40 @@
+package org.example.techstarsscraper.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caps the retries of one scrape at a fraction of its requests, so a host that is down
+ * does not multiply the load it receives by the maximum number of attempts.
+ */
+public class RetryBudget {
+
+    private final double ratio;
+    private final long minRetries;
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+
+    public RetryBudget(double ratio, long minRetries) {
+        this.ratio = ratio;
+        this.minRetries = minRetries;
+    }
+
+    public void onRequest() {
+        requests.incrementAndGet();
+    }
+
+    /**
+     * Reserves one retry, returning {@code false} when the budget is exhausted.
+     */
+    public boolean tryAcquireRetry() {
+        while (true) {
+            long used = retries.get();
+            long allowed = Math.max(minRetries, (long) (requests.get() * ratio));
+            if (used >= allowed) return false;
+            if (retries.compareAndSet(used, used + 1)) return true;
+        }
+    }
+
+    public long retriesUsed() {
+        return retries.get();
+    }
+}
@@ -0,0 +1,82 @@
+package org.example.techstarsscraper.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Retry settings for job detail fetches: which responses are retried, how long to back off
+ * and how large each scrape's retry budget is.
+ */
+@Component
+public class RetryPolicy {
+
+    private final int maxAttempts;
+    private final long baseDelayMs;
+    private final long maxDelayMs;
+    private final double budgetRatio;
+    private final long budgetMinRetries;
+
+    public RetryPolicy(@Value("${scrape.retry.max-attempts}") int maxAttempts,
+                       @Value("${scrape.retry.base-delay}") Duration baseDelay,
+                       @Value("${scrape.retry.max-delay}") Duration maxDelay,
+                       @Value("${scrape.retry.budget-ratio}") double budgetRatio,
+                       @Value("${scrape.retry.budget-min-retries}") long budgetMinRetries) {
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.baseDelayMs = baseDelay.toMillis();
+        this.maxDelayMs = maxDelay.toMillis();
+        this.budgetRatio = budgetRatio;
+        this.budgetMinRetries = budgetMinRetries;
+    }
+
+    public int maxAttempts() {
+        return maxAttempts;
+    }
+
+    public RetryBudget newBudget() {
+        return new RetryBudget(budgetRatio, budgetMinRetries);
+    }
+
+    public boolean isRetryable(int statusCode) {
+        return statusCode == 408 || statusCode == 429 || statusCode >= 500;
+    }
+
+    public boolean isThrottling(int statusCode) {
+        return statusCode == 429 || statusCode == 503;
+    }
+
+    /**
+     * Exponential backoff with full jitter for the given (1-based) failed attempt.
+     * A server-provided {@code Retry-After} is honoured as the lower bound.
+     */
+    public Duration backoff(int attempt, Duration retryAfter) {
+        long ceiling = Math.min(maxDelayMs, baseDelayMs << Math.min(attempt - 1, 20));
+        long delay = ThreadLocalRandom.current().nextLong(ceiling + 1);
+        if (retryAfter != null) {
+            delay = Math.max(delay, Math.min(retryAfter.toMillis(), maxDelayMs));
+        }
+        return Duration.ofMillis(delay);
+    }
+
+    /**
+     * Parses a {@code Retry-After} header given either as delay seconds or as an HTTP date.
+     */
+    public static Duration parseRetryAfter(String value) {
+        if (value == null || value.isBlank()) return null;
+        String trimmed = value.trim();
+        try {
+            return Duration.ofSeconds(Math.max(0, Long.parseLong(trimmed)));
+        } catch (NumberFormatException ignored) {}
+        try {
+            ZonedDateTime at = ZonedDateTime.parse(trimmed, DateTimeFormatter.RFC_1123_DATE_TIME);
+            Duration delay = Duration.between(ZonedDateTime.now(at.getZone()), at);
+            return delay.isNegative() ? Duration.ZERO : delay;
+        } catch (DateTimeParseException ignored) {}
+        return null;
+    }
+}
@@ -0,0 +1,109 @@
+package org.example.techstarsscraper.service;
+
+import lombok.extern.log4j.Log4j2;
+import org.example.techstarsscraper.repository.DescriptionStore;
+import org.example.techstarsscraper.repository.JobRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.DatabaseMetaData;
+
+/**
+ * Applies the PostgreSQL-specific schema adjustments that Hibernate's {@code ddl-auto} cannot express, after
+ * moving inline descriptions into the {@link DescriptionStore}. Runs before the other startup listeners, which
+ * read and write jobs.
+ */
+@Component
+@Log4j2
+public class SchemaInitializer {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSource dataSource;
+    private final JobRepository jobRepository;
+    private final DescriptionStore descriptionStore;
+    private final int batchSize;
+
+    public SchemaInitializer(JdbcTemplate jdbcTemplate, DataSource dataSource, JobRepository jobRepository,
+                             DescriptionStore descriptionStore,
+                             @Value("${scrape.persistence.batch-size}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dataSource = dataSource;
+        this.jobRepository = jobRepository;
+        this.descriptionStore = descriptionStore;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void initialize() {
+        descriptionStore.migrateInlineDescriptions();
+        if (!isPostgres()) {
+            log.info("Skipping PostgreSQL schema adjustments on a non-PostgreSQL database");
+            return;
+        }
+        alignJobIdSequence();
+        createJobQueryIndexes();
+        createSearchIndex();
+    }
+
+    /**
+     * The full-text {@code search_vector} column behind {@code /api/jobs/search} and its GIN index.
+     * Jobs stored before the column existed are indexed here, from descriptions already moved to the store;
+     * the upsert keeps it current afterwards.
+     */
+    private void createSearchIndex() {
+        jdbcTemplate.execute("ALTER TABLE jobs ADD COLUMN IF NOT EXISTS search_vector tsvector");
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS jobs_search_idx ON jobs USING gin (search_vector)");
+        int indexed = 0;
+        int count;
+        while ((count = jobRepository.indexMissingSearchVectors(batchSize)) > 0) {
+            indexed += count;
+        }
+        if (indexed > 0) {
+            log.info("Built search vectors for {} stored jobs", indexed);
+        }
+    }
+
+    /**
+     * Indexes behind the {@code /api/jobs} keyset sort on posting date and the whole-tag filter.
+     * Both are expression indexes, which JPA's {@code @Index} cannot declare.
+     */
+    private void createJobQueryIndexes() {
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS jobs_posted_keyset_idx " +
+                "ON jobs ((COALESCE(posted_date_unix, 0)) DESC, id DESC)");
+        try {
+            jdbcTemplate.execute("CREATE EXTENSION IF NOT EXISTS pg_trgm");
+            jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS jobs_tags_trgm_idx " +
+                    "ON jobs USING gin ((', ' || tags || ', ') gin_trgm_ops)");
+        } catch (Exception e) {
+            log.warn("Could not create trigram index on jobs.tags, tag filters will scan: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Moves {@code jobs_seq} past the ids of rows inserted before jobs used a sequence (identity ids),
+     * so that pooled id blocks never collide with existing rows.
+     */
+    private void alignJobIdSequence() {
+        jdbcTemplate.queryForObject(
+                "SELECT setval('jobs_seq', GREATEST((SELECT COALESCE(MAX(id), 0) FROM jobs), " +
+                        "(SELECT last_value FROM jobs_seq)))", Long.class);
+    }
+
+    private boolean isPostgres() {
+        try {
+            String product = JdbcUtils.extractDatabaseMetaData(dataSource, DatabaseMetaData::getDatabaseProductName);
+            return "PostgreSQL".equalsIgnoreCase(product);
+        } catch (Exception e) {
+            log.warn("Could not determine database product: {}", e.getMessage());
+            return false;
+        }
+    }
+}
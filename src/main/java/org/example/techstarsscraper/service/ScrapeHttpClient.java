@@ -0,0 +1,255 @@
+package org.example.techstarsscraper.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.brotli.dec.BrotliInputStream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.Closeable;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * The HTTP client shared by everything that fetches from the board.
+ * <p>
+ * One {@link HttpClient} keeps connections alive between requests and, where the server supports it, multiplexes
+ * the requests to a host over one HTTP/2 connection, so a scrape pays for a TLS handshake per host instead of
+ * per job page. Responses are requested compressed and decoded while they are read.
+ * <p>
+ * {@code connect-timeout} bounds connecting. {@code read-timeout} bounds the wait for the response headers and,
+ * once more, reading the body: a body still being read after that is closed and the read fails with an
+ * {@link HttpTimeoutException}. The JDK reads its connection pool settings from system properties once, so
+ * {@code keep-alive} and {@code max-connections} only apply if those properties are not set otherwise.
+ */
+@Component
+@Log4j2
+public class ScrapeHttpClient {
+
+    static final String ACCEPT_ENCODING = "gzip, deflate, br";
+
+    /**
+     * Bytes still read from a body when it is closed, so that its connection can be reused: a decoder stops at the
+     * end of the compressed data without reading the end of the stream, and the JDK closes the connection of a body
+     * closed before its end.
+     */
+    private static final int MAX_DRAIN_BYTES = 16 * 1024;
+
+    private final HttpClient client;
+    private final String userAgent;
+    private final Duration readTimeout;
+    private final ScheduledThreadPoolExecutor deadlines;
+
+    public ScrapeHttpClient(@Value("${scrape.user-agent}") String userAgent,
+                            @Value("${scrape.http.version}") HttpClient.Version version,
+                            @Value("${scrape.http.connect-timeout}") Duration connectTimeout,
+                            @Value("${scrape.http.read-timeout}") Duration readTimeout,
+                            @Value("${scrape.http.keep-alive}") Duration keepAlive,
+                            @Value("${scrape.http.max-connections}") int maxConnections) {
+        setDefault("jdk.httpclient.keepalive.timeout", keepAlive.toSeconds());
+        setDefault("jdk.httpclient.connectionPoolSize", Math.max(0, maxConnections));
+        this.userAgent = userAgent;
+        this.readTimeout = readTimeout;
+        this.client = HttpClient.newBuilder()
+                .version(version)
+                .connectTimeout(connectTimeout)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+        this.deadlines = new ScheduledThreadPoolExecutor(1,
+                Thread.ofPlatform().name("http-read-deadline").daemon().factory());
+        this.deadlines.setRemoveOnCancelPolicy(true);
+    }
+
+    private static void setDefault(String property, long value) {
+        if (System.getProperty(property) == null) {
+            System.setProperty(property, Long.toString(value));
+        }
+    }
+
+    /**
+     * A request to the URL with the user agent, accepted encodings and header timeout already set.
+     */
+    public HttpRequest.Builder newRequest(String url) {
+        return HttpRequest.newBuilder(URI.create(url))
+                .timeout(readTimeout)
+                .header("User-Agent", userAgent)
+                .header("Accept-Encoding", ACCEPT_ENCODING);
+    }
+
+    /**
+     * Sends the request and returns once the response headers arrived; the body is read from the response,
+     * which must be closed.
+     */
+    public Response send(HttpRequest request) throws IOException {
+        HttpResponse<InputStream> response;
+        try {
+            response = client.send(request, HttpResponse.BodyHandlers.ofInputStream());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while requesting " + request.uri());
+        }
+        return new Response(response);
+    }
+
+    /**
+     * The {@code charset} parameter of a {@code Content-Type} value, or {@code null} if there is none.
+     */
+    static String charset(String contentType) {
+        if (contentType == null) return null;
+        for (String parameter : contentType.split(";")) {
+            String trimmed = parameter.trim();
+            if (trimmed.regionMatches(true, 0, "charset=", 0, 8)) {
+                String charset = trimmed.substring(8).trim().replace("\"", "");
+                return charset.isEmpty() ? null : charset;
+            }
+        }
+        return null;
+    }
+
+    @PreDestroy
+    public void close() {
+        deadlines.shutdownNow();
+        client.shutdownNow();
+    }
+
+    /**
+     * A response whose body is decoded according to its {@code Content-Encoding}.
+     */
+    public final class Response implements Closeable {
+        private final HttpResponse<InputStream> response;
+        private final DeadlineInputStream raw;
+        private InputStream body;
+
+        private Response(HttpResponse<InputStream> response) {
+            this.response = response;
+            this.raw = new DeadlineInputStream(response.body(), response.uri());
+        }
+
+        public int statusCode() {
+            return response.statusCode();
+        }
+
+        public String header(String name) {
+            return response.headers().firstValue(name).orElse(null);
+        }
+
+        public URI uri() {
+            return response.uri();
+        }
+
+        public HttpClient.Version version() {
+            return response.version();
+        }
+
+        /**
+         * The {@code charset} of the {@code Content-Type} header, or {@code null} if there is none.
+         */
+        public String charset() {
+            return ScrapeHttpClient.charset(header("Content-Type"));
+        }
+
+        /**
+         * The decoded body, read straight from the connection.
+         */
+        public InputStream body() throws IOException {
+            if (body == null) {
+                String encoding = header("Content-Encoding");
+                body = switch (encoding == null ? "" : encoding.trim().toLowerCase(Locale.ROOT)) {
+                    case "gzip", "x-gzip" -> new GZIPInputStream(raw, 8192);
+                    case "deflate" -> new InflaterInputStream(raw);
+                    case "br" -> new BrotliInputStream(raw);
+                    default -> raw;
+                };
+            }
+            return body;
+        }
+
+        @Override
+        public void close() throws IOException {
+            raw.close();
+        }
+    }
+
+    /**
+     * Closes the body once the read timeout has passed, which fails a read blocked on a stalled connection.
+     */
+    private final class DeadlineInputStream extends FilterInputStream {
+        private final URI uri;
+        private final ScheduledFuture<?> deadline;
+        private volatile boolean expired;
+        private boolean closed;
+
+        private DeadlineInputStream(InputStream in, URI uri) {
+            super(in);
+            this.uri = uri;
+            this.deadline = deadlines.schedule(this::expire, readTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        private void expire() {
+            expired = true;
+            try {
+                in.close();
+            } catch (IOException e) {
+                log.debug("Failed to close expired response body of {}: {}", uri, e.getMessage());
+            }
+        }
+
+        @Override
+        public int read() throws IOException {
+            try {
+                return super.read();
+            } catch (IOException e) {
+                throw expired ? timeout() : e;
+            }
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            try {
+                return super.read(b, off, len);
+            } catch (IOException e) {
+                throw expired ? timeout() : e;
+            }
+        }
+
+        private HttpTimeoutException timeout() {
+            return new HttpTimeoutException("Timed out after " + readTimeout.toMillis() + " ms reading the body of " + uri);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) return;
+            closed = true;
+            if (!expired) drain();
+            deadline.cancel(false);
+            super.close();
+        }
+
+        private void drain() {
+            byte[] buffer = new byte[8192];
+            try {
+                for (int drained = 0; drained <= MAX_DRAIN_BYTES; ) {
+                    int n = in.read(buffer);
+                    if (n < 0) return;
+                    drained += n;
+                }
+            } catch (IOException e) {
+                log.debug("Failed to drain response body of {}: {}", uri, e.getMessage());
+            }
+        }
+    }
+}
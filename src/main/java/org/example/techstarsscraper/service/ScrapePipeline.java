@@ -0,0 +1,576 @@
+package org.example.techstarsscraper.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.log4j.Log4j2;
+import org.example.techstarsscraper.dto.JobListing;
+import org.example.techstarsscraper.model.Job;
+import org.example.techstarsscraper.repository.FrontierRepository;
+import org.example.techstarsscraper.repository.JobRepository;
+import org.example.techstarsscraper.repository.JobRepositoryCustom;
+import org.jsoup.HttpStatusException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToIntFunction;
+
+/**
+ * Staged, back-pressured scrape pipeline: listing discovery → detail fetch → batched persistence.
+ * <p>
+ * Discovered listings are handed to {@link Run#submit(JobListing, Collection)} as soon as they appear. At most
+ * {@code max-pending-fetches} detail fetches may be outstanding, so a fast listing source blocks
+ * instead of queuing the whole board. Fetched jobs go through a bounded queue to a single writer
+ * that upserts them in batches, each in its own short transaction. Stored jobs are only rewritten when
+ * their content changed; pages that answer 404 or 410 close their job, and every listed job is
+ * recorded as seen when the run finishes.
+ * <p>
+ * With {@code scrape.distributed.enabled}, listings that need fetching are written to the shared frontier table
+ * instead, and fetched by whichever nodes' {@link FrontierWorker} claims them; the run then finishes once
+ * the frontier holds none of its listings. A run whose entries stay unsettled for {@code lease-duration} times
+ * {@code max-attempts}, the longest an entry can take before it is dropped, fails: no node is working them.
+ */
+@Component
+@Log4j2
+public class ScrapePipeline {
+
+    private static final Job END_OF_STREAM = new Job();
+
+    private final JobRepository jobRepository;
+    private final JobDetailFetcher jobDetailFetcher;
+    private final DetailFetchExecutor detailFetchExecutor;
+    private final RetryPolicy retryPolicy;
+    private final KnownJobIndex knownJobIndex;
+    private final FrontierRepository frontierRepository;
+    private final boolean distributed;
+    private final Duration frontierPollInterval;
+    private final Duration frontierStallTimeout;
+    private final int maxPendingFetches;
+    private final int writeQueueCapacity;
+    private final int writeBatchSize;
+    private final Duration flushInterval;
+    private final Set<Run> activeRuns = ConcurrentHashMap.newKeySet();
+    private final Counter queuedListings;
+    private final Counter skippedListings;
+
+    public ScrapePipeline(JobRepository jobRepository,
+                          JobDetailFetcher jobDetailFetcher,
+                          DetailFetchExecutor detailFetchExecutor,
+                          RetryPolicy retryPolicy,
+                          KnownJobIndex knownJobIndex,
+                          FrontierRepository frontierRepository,
+                          @Value("${scrape.distributed.enabled}") boolean distributed,
+                          @Value("${scrape.distributed.poll-interval}") Duration frontierPollInterval,
+                          @Value("${scrape.distributed.lease-duration}") Duration leaseDuration,
+                          @Value("${scrape.distributed.max-attempts}") int maxAttempts,
+                          @Value("${scrape.pipeline.max-pending-fetches}") int maxPendingFetches,
+                          @Value("${scrape.pipeline.write-queue-capacity}") int writeQueueCapacity,
+                          @Value("${scrape.persistence.batch-size}") int writeBatchSize,
+                          @Value("${scrape.pipeline.flush-interval}") Duration flushInterval,
+                          MeterRegistry meterRegistry) {
+        this.jobRepository = jobRepository;
+        this.jobDetailFetcher = jobDetailFetcher;
+        this.detailFetchExecutor = detailFetchExecutor;
+        this.retryPolicy = retryPolicy;
+        this.knownJobIndex = knownJobIndex;
+        this.frontierRepository = frontierRepository;
+        this.distributed = distributed;
+        this.frontierPollInterval = frontierPollInterval;
+        this.frontierStallTimeout = leaseDuration.multipliedBy(Math.max(1, maxAttempts));
+        this.maxPendingFetches = Math.max(1, maxPendingFetches);
+        this.writeQueueCapacity = Math.max(1, writeQueueCapacity);
+        this.writeBatchSize = Math.max(1, writeBatchSize);
+        this.flushInterval = flushInterval;
+
+        Gauge.builder("scraper.pipeline.runs.active", activeRuns, Set::size)
+                .description("Pipeline runs in progress")
+                .register(meterRegistry);
+        Gauge.builder("scraper.pipeline.pending-fetches", this,
+                        pipeline -> pipeline.sumOverRuns(run -> maxPendingFetches - run.pendingFetches.availablePermits()))
+                .description("Detail fetches submitted and not yet finished, over all runs")
+                .register(meterRegistry);
+        Gauge.builder("scraper.pipeline.write-queue", this, pipeline -> pipeline.sumOverRuns(run -> run.writeQueue.size()))
+                .description("Fetched jobs waiting for the writer, over all runs")
+                .register(meterRegistry);
+        this.queuedListings = listingCounter("queued", meterRegistry);
+        this.skippedListings = listingCounter("skipped", meterRegistry);
+    }
+
+    private static Counter listingCounter(String outcome, MeterRegistry meterRegistry) {
+        return Counter.builder("scraper.pipeline.listings")
+                .description("Listings submitted to the pipeline, queued for fetching or skipped as known")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private double sumOverRuns(ToIntFunction<Run> value) {
+        int sum = 0;
+        for (Run run : activeRuns) {
+            sum += value.applyAsInt(run);
+        }
+        return sum;
+    }
+
+    public Run start() {
+        return start(FetchListener.NONE);
+    }
+
+    public Run start(FetchListener listener) {
+        return new Run(listener);
+    }
+
+    /**
+     * Told what became of the listings a run fetched. Called from the run's fetch and writer threads.
+     */
+    public interface FetchListener {
+        FetchListener NONE = new FetchListener() {
+            @Override
+            public void settled(Collection<String> jobPageUrls, Outcome outcome) {
+            }
+
+            @Override
+            public void failed(Collection<String> jobPageUrls) {
+            }
+        };
+
+        /**
+         * The jobs were saved, or recorded as unchanged or closed.
+         */
+        void settled(Collection<String> jobPageUrls, Outcome outcome);
+
+        /**
+         * Fetching or saving the jobs failed.
+         */
+        void failed(Collection<String> jobPageUrls);
+    }
+
+    /**
+     * What a settled listing did to its stored job.
+     */
+    public enum Outcome {
+        SAVED,
+        UPDATED,
+        UNCHANGED,
+        NOT_MODIFIED,
+        CLOSED
+    }
+
+    /**
+     * Counters of one pipeline run.
+     */
+    public record Stats(
+            int discovered,
+            int skipped,
+            int fetched,
+            int saved,
+            int updated,
+            int unchanged,
+            int closed,
+            int failed) {
+    }
+
+    /**
+     * One scrape flowing through the pipeline. Closing a run that was not finished cancels it.
+     */
+    public final class Run implements AutoCloseable {
+        private final String id = UUID.randomUUID().toString();
+        private final FetchListener listener;
+        private final List<JobListing> frontierBuffer = new ArrayList<>();
+        private final AtomicInteger enqueuedToFrontier = new AtomicInteger();
+        private volatile Map<String, Long> frontierResults = Map.of();
+        private volatile boolean frontierCollected;
+        private final RetryBudget retryBudget = retryPolicy.newBudget();
+        private final Set<String> seen = ConcurrentHashMap.newKeySet();
+        private final Map<String, Collection<String>> listed = new ConcurrentHashMap<>();
+        private final Queue<String> unchangedUrls = new ConcurrentLinkedQueue<>();
+        private final Queue<String> closedUrls = new ConcurrentLinkedQueue<>();
+        private final Semaphore pendingFetches = new Semaphore(maxPendingFetches);
+        private final Queue<Future<Void>> fetches = new ConcurrentLinkedQueue<>();
+        private final BlockingQueue<Job> writeQueue = new ArrayBlockingQueue<>(writeQueueCapacity);
+        private final List<Job> inserted = Collections.synchronizedList(new ArrayList<>());
+        private final AtomicInteger discovered = new AtomicInteger();
+        private final AtomicInteger skipped = new AtomicInteger();
+        private final AtomicInteger fetched = new AtomicInteger();
+        private final AtomicInteger updated = new AtomicInteger();
+        private final AtomicInteger unchanged = new AtomicInteger();
+        private final AtomicInteger closed = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+        private final Thread writer;
+        private volatile boolean finished;
+        private volatile boolean cancelled;
+
+        private Run(FetchListener listener) {
+            this.listener = listener;
+            this.writer = Thread.ofVirtual().name("scrape-writer").start(this::writeLoop);
+            activeRuns.add(this);
+        }
+
+        /**
+         * Queues a discovered listing for fetching. Blocks while too many fetches are outstanding.
+         *
+         * @param functions labels of the job functions whose listings contained the job
+         */
+        public void submit(JobListing listing, Collection<String> functions) {
+            String jobUrl = listing.jobPageUrl();
+            if (!seen.add(jobUrl)) return;
+            discovered.incrementAndGet();
+            listed.put(jobUrl, functions);
+            if (!knownJobIndex.shouldFetch(jobUrl)) {
+                skipped.incrementAndGet();
+                skippedListings.increment();
+                return;
+            }
+            enqueue(listing);
+        }
+
+        /**
+         * Queues a stored job for a re-check, bypassing the known-job index. Unlike {@link #submit(JobListing, Collection)},
+         * this does not count as the job being seen in a listing.
+         */
+        public void refresh(JobListing listing) {
+            if (!seen.add(listing.jobPageUrl())) return;
+            discovered.incrementAndGet();
+            enqueue(listing);
+        }
+
+        /**
+         * Fetches a listing this node claimed from the frontier, bypassing the known-job index.
+         *
+         * @param stored whether the job is stored, so that the cached page's validators may be sent
+         */
+        public void fetchClaimed(JobListing listing, boolean stored) {
+            if (!seen.add(listing.jobPageUrl())) return;
+            discovered.incrementAndGet();
+            enqueueFetch(listing, stored);
+        }
+
+        private void enqueue(JobListing listing) {
+            if (!distributed) {
+                enqueueFetch(listing, knownJobIndex.contains(listing.jobPageUrl()));
+                return;
+            }
+            queuedListings.increment();
+            List<JobListing> batch = null;
+            synchronized (frontierBuffer) {
+                frontierBuffer.add(listing);
+                if (frontierBuffer.size() >= writeBatchSize) {
+                    batch = List.copyOf(frontierBuffer);
+                    frontierBuffer.clear();
+                }
+            }
+            if (batch != null) enqueueToFrontier(batch);
+        }
+
+        private void flushFrontierBuffer() {
+            List<JobListing> batch;
+            synchronized (frontierBuffer) {
+                batch = List.copyOf(frontierBuffer);
+                frontierBuffer.clear();
+            }
+            if (!batch.isEmpty()) enqueueToFrontier(batch);
+        }
+
+        private void enqueueToFrontier(List<JobListing> batch) {
+            frontierRepository.enqueue(id, batch);
+            enqueuedToFrontier.addAndGet(batch.size());
+        }
+
+        /**
+         * Waits until the nodes working the frontier have settled every listing this run enqueued.
+         *
+         * @throws IllegalStateException if none of the remaining entries settled within the stall timeout
+         */
+        private void awaitFrontier() throws InterruptedException {
+            flushFrontierBuffer();
+            if (enqueuedToFrontier.get() == 0) return;
+            long remaining = frontierRepository.countForRun(id);
+            long stalledSince = System.nanoTime();
+            while (remaining > 0) {
+                if (System.nanoTime() - stalledSince > frontierStallTimeout.toNanos()) {
+                    throw new IllegalStateException("No frontier entry of run " + id + " settled within "
+                            + frontierStallTimeout + ", " + remaining + " remain");
+                }
+                log.debug("Waiting for {} frontier entries of run {}", remaining, id);
+                Thread.sleep(frontierPollInterval);
+                long now = frontierRepository.countForRun(id);
+                if (now < remaining) stalledSince = System.nanoTime();
+                remaining = now;
+            }
+            collectFrontierResults();
+        }
+
+        /**
+         * Keeps the outcomes other nodes recorded for this run's entries and removes them from the frontier tables.
+         */
+        private void collectFrontierResults() {
+            frontierResults = frontierRepository.countResults(id);
+            frontierCollected = true;
+            frontierRepository.deleteResults(id);
+        }
+
+        private void enqueueFetch(JobListing listing, boolean stored) {
+            String jobUrl = listing.jobPageUrl();
+            queuedListings.increment();
+
+            try {
+                pendingFetches.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CancellationException("Interrupted while waiting to fetch " + jobUrl);
+            }
+            Future<Void> fetch = detailFetchExecutor.submit(jobUrl, () -> {
+                try {
+                    fetchOne(listing, stored);
+                } finally {
+                    pendingFetches.release();
+                }
+                return null;
+            });
+            fetches.add(fetch);
+        }
+
+        private void fetchOne(JobListing listing, boolean stored) {
+            String jobUrl = listing.jobPageUrl();
+            if (cancelled) {
+                failed.incrementAndGet();
+                listener.failed(List.of(jobUrl));
+                return;
+            }
+            try {
+                Job job = jobDetailFetcher.fetch(jobUrl, stored, retryBudget);
+                if (job == null) {
+                    log.debug("Job page unchanged since last fetch: {}", jobUrl);
+                    knownJobIndex.markFetched(jobUrl);
+                    unchanged.incrementAndGet();
+                    unchangedUrls.add(jobUrl);
+                    return;
+                }
+                job.setTags(String.join(", ", listing.tags()));
+                fetched.incrementAndGet();
+                while (!writeQueue.offer(job, 1, TimeUnit.SECONDS)) {
+                    if (cancelled) {
+                        discard(List.of(jobUrl));
+                        return;
+                    }
+                }
+                // close() may have drained the queue just before the offer
+                if (cancelled && writeQueue.remove(job)) {
+                    discard(List.of(jobUrl));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                discard(List.of(jobUrl));
+            } catch (Exception e) {
+                if (isGone(e)) {
+                    closed.incrementAndGet();
+                    closedUrls.add(jobUrl);
+                    jobDetailFetcher.invalidate(jobUrl);
+                    log.info("Job page is gone, closing job: {}", jobUrl);
+                    return;
+                }
+                failed.incrementAndGet();
+                jobDetailFetcher.invalidate(jobUrl);
+                listener.failed(List.of(jobUrl));
+                log.warn("Failed to fetch job at {}: {}", jobUrl, e.getMessage());
+                log.debug("Stacktrace:", e);
+            }
+        }
+
+        private static boolean isGone(Exception e) {
+            return e instanceof HttpStatusException statusException
+                    && (statusException.getStatusCode() == 404 || statusException.getStatusCode() == 410);
+        }
+
+        /**
+         * Counts fetched jobs that will not be saved as failed, and forgets their cached pages.
+         */
+        private void discard(List<String> jobUrls) {
+            failed.addAndGet(jobUrls.size());
+            jobUrls.forEach(jobDetailFetcher::invalidate);
+            listener.failed(jobUrls);
+        }
+
+        private void writeLoop() {
+            List<Job> batch = new ArrayList<>(writeBatchSize);
+            long flushAt = System.nanoTime() + flushInterval.toNanos();
+            try {
+                while (true) {
+                    Job job = writeQueue.poll(Math.max(0, flushAt - System.nanoTime()), TimeUnit.NANOSECONDS);
+                    if (job == END_OF_STREAM) break;
+                    if (job != null) batch.add(job);
+                    if (batch.size() >= writeBatchSize || System.nanoTime() >= flushAt) {
+                        flush(batch);
+                    }
+                    if (System.nanoTime() >= flushAt) {
+                        flushAt = System.nanoTime() + flushInterval.toNanos();
+                    }
+                }
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                List<Job> unsaved = new ArrayList<>(batch);
+                writeQueue.drainTo(unsaved);
+                unsaved.remove(END_OF_STREAM);
+                if (!unsaved.isEmpty()) {
+                    discard(unsaved.stream().map(Job::getJobPageUrl).toList());
+                    log.info("Discarded {} fetched jobs of cancelled run {}", unsaved.size(), id);
+                }
+            }
+        }
+
+        private void flush(List<Job> batch) {
+            flushCheckResults();
+            if (batch.isEmpty()) return;
+            try {
+                JobRepositoryCustom.UpsertResult result = jobRepository.upsertAll(batch);
+                batch.forEach(job -> knownJobIndex.markFetched(job.getJobPageUrl()));
+                inserted.addAll(result.inserted());
+                updated.addAndGet(result.updated().size());
+                unchanged.addAndGet(result.unchanged().size());
+                settle(result.inserted(), Outcome.SAVED);
+                settle(result.updated(), Outcome.UPDATED);
+                settle(result.unchanged(), Outcome.UNCHANGED);
+                log.info("Saved {} new jobs, updated {} existing jobs, {} unchanged",
+                        result.inserted().size(), result.updated().size(), result.unchanged().size());
+            } catch (RuntimeException e) {
+                failed.addAndGet(batch.size());
+                batch.forEach(job -> jobDetailFetcher.invalidate(job.getJobPageUrl()));
+                listener.failed(batch.stream().map(Job::getJobPageUrl).toList());
+                log.error("Failed to save batch of {} jobs: {}", batch.size(), e.getMessage());
+                log.debug("Stacktrace:", e);
+            } finally {
+                batch.clear();
+            }
+        }
+
+        private void settle(List<Job> jobs, Outcome outcome) {
+            if (!jobs.isEmpty()) listener.settled(jobs.stream().map(Job::getJobPageUrl).toList(), outcome);
+        }
+
+        /**
+         * Records re-checks of pages that answered 304 and closes jobs whose pages are gone.
+         */
+        private void flushCheckResults() {
+            List<String> unchangedBatch = drain(unchangedUrls);
+            List<String> closedBatch = drain(closedUrls);
+            if (unchangedBatch.isEmpty() && closedBatch.isEmpty()) return;
+            List<String> checked = new ArrayList<>(unchangedBatch);
+            checked.addAll(closedBatch);
+            try {
+                if (!unchangedBatch.isEmpty()) jobRepository.markUnchanged(unchangedBatch);
+                if (!closedBatch.isEmpty()) jobRepository.markClosed(closedBatch);
+                if (!unchangedBatch.isEmpty()) listener.settled(unchangedBatch, Outcome.NOT_MODIFIED);
+                if (!closedBatch.isEmpty()) listener.settled(closedBatch, Outcome.CLOSED);
+            } catch (RuntimeException e) {
+                listener.failed(checked);
+                log.error("Failed to record {} unchanged and {} closed jobs: {}",
+                        unchangedBatch.size(), closedBatch.size(), e.getMessage());
+                log.debug("Stacktrace:", e);
+            }
+        }
+
+        private static List<String> drain(Queue<String> queue) {
+            List<String> drained = new ArrayList<>();
+            String url;
+            while ((url = queue.poll()) != null) {
+                drained.add(url);
+            }
+            return drained;
+        }
+
+        /**
+         * Waits for all submitted fetches and the final write, and returns the newly inserted jobs.
+         */
+        public List<Job> finish() throws InterruptedException {
+            Future<Void> fetch;
+            while ((fetch = fetches.poll()) != null) {
+                try {
+                    fetch.get();
+                } catch (ExecutionException | CancellationException ignored) {
+                }
+            }
+            writeQueue.put(END_OF_STREAM);
+            writer.join();
+            awaitFrontier();
+            finished = true;
+            activeRuns.remove(this);
+            markListedAsSeen();
+
+            if (retryBudget.retriesUsed() > 0) {
+                log.info("Used {} retries while fetching {} job pages", retryBudget.retriesUsed(), discovered.get() - skipped.get());
+            }
+            Stats stats = stats();
+            log.info("Scrape finished: {} discovered, {} skipped as known, {} fetched, {} saved, {} updated, " +
+                            "{} unchanged, {} closed, {} failed",
+                    stats.discovered(), stats.skipped(), stats.fetched(), stats.saved(), stats.updated(),
+                    stats.unchanged(), stats.closed(), stats.failed());
+            return List.copyOf(inserted);
+        }
+
+        private void markListedAsSeen() {
+            if (listed.isEmpty()) return;
+            try {
+                int touched = jobRepository.markSeen(listed.keySet());
+                int tagged = jobRepository.addMatchedFunctions(listed);
+                log.debug("Recorded sighting of {} listed jobs, {} rows written, {} newly matched functions",
+                        listed.size(), touched, tagged);
+            } catch (RuntimeException e) {
+                log.error("Failed to record sighting of {} listed jobs: {}", listed.size(), e.getMessage());
+                log.debug("Stacktrace:", e);
+            }
+        }
+
+        /**
+         * The run's counters; in distributed mode including the listings other nodes fetched for it.
+         */
+        public Stats stats() {
+            if (enqueuedToFrontier.get() == 0) {
+                return new Stats(discovered.get(), skipped.get(), fetched.get(), inserted.size(), updated.get(),
+                        unchanged.get(), closed.get(), failed.get());
+            }
+            Map<String, Long> results = frontierResults;
+            if (!frontierCollected) {
+                try {
+                    results = frontierRepository.countResults(id);
+                } catch (RuntimeException e) {
+                    log.debug("Failed to count frontier results of run {}: {}", id, e.getMessage());
+                }
+            }
+            int saved = result(results, Outcome.SAVED);
+            int updatedRemotely = result(results, Outcome.UPDATED);
+            int unchangedRemotely = result(results, Outcome.UNCHANGED);
+            return new Stats(discovered.get(), skipped.get(),
+                    fetched.get() + saved + updatedRemotely + unchangedRemotely,
+                    inserted.size() + saved,
+                    updated.get() + updatedRemotely,
+                    unchanged.get() + unchangedRemotely + result(results, Outcome.NOT_MODIFIED),
+                    closed.get() + result(results, Outcome.CLOSED),
+                    failed.get() + results.getOrDefault("failed", 0L).intValue());
+        }
+
+        private static int result(Map<String, Long> results, Outcome outcome) {
+            return results.getOrDefault(outcome.name().toLowerCase(Locale.ROOT), 0L).intValue();
+        }
+
+        @Override
+        public void close() {
+            activeRuns.remove(this);
+            if (finished) return;
+            cancelled = true;
+            fetches.forEach(f -> f.cancel(true));
+            writer.interrupt();
+            if (enqueuedToFrontier.get() > 0) {
+                try {
+                    frontierRepository.deleteUnleased(id);
+                    if (!frontierCollected) collectFrontierResults();
+                } catch (RuntimeException e) {
+                    log.warn("Failed to remove frontier entries of cancelled run {}: {}", id, e.getMessage());
+                }
+            }
+        }
+    }
+}
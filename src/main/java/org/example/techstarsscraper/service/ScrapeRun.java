@@ -0,0 +1,175 @@
+package org.example.techstarsscraper.service;
+
+import org.example.techstarsscraper.dto.ReextractionResult;
+import org.example.techstarsscraper.dto.ScrapeRunStatus;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Future;
+
+/**
+ * State and live progress of one asynchronous scrape of one or more job functions, one re-check of the stored jobs
+ * due for refresh, or one re-extraction of the page archive.
+ */
+public class ScrapeRun {
+
+    public enum State { QUEUED, RUNNING, SUCCEEDED, FAILED, CANCELLED }
+
+    public enum Type { SCRAPE, REFRESH, REEXTRACTION }
+
+    private static final ScrapePipeline.Stats NO_STATS = new ScrapePipeline.Stats(0, 0, 0, 0, 0, 0, 0, 0);
+
+    private final String id;
+    private final Type type;
+    private final List<String> functions;
+    private final boolean fullCrawl;
+    private final Instant createdAt = Instant.now();
+    private volatile State state = State.QUEUED;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile String error;
+    private volatile ScrapePipeline.Run pipelineRun;
+    private volatile ScrapePipeline.Stats finalStats;
+    private volatile ReextractionResult reextraction;
+    private volatile Future<?> future;
+
+    public ScrapeRun(String id, List<String> functions, boolean fullCrawl) {
+        this(id, Type.SCRAPE, functions, fullCrawl);
+    }
+
+    private ScrapeRun(String id, Type type, List<String> functions, boolean fullCrawl) {
+        this.id = id;
+        this.type = type;
+        this.functions = List.copyOf(functions);
+        this.fullCrawl = fullCrawl;
+    }
+
+    /**
+     * A run that re-checks the stored jobs due for refresh instead of scraping listings.
+     */
+    public static ScrapeRun refresh(String id) {
+        return new ScrapeRun(id, Type.REFRESH, List.of(), false);
+    }
+
+    /**
+     * A run that re-extracts the stored jobs from the page archive instead of scraping.
+     */
+    public static ScrapeRun reextraction(String id) {
+        return new ScrapeRun(id, Type.REEXTRACTION, List.of(), false);
+    }
+
+    public String id() {
+        return id;
+    }
+
+    public Type type() {
+        return type;
+    }
+
+    public List<String> functions() {
+        return functions;
+    }
+
+    /**
+     * Whether this run sweeps several functions at once.
+     */
+    public boolean isSweep() {
+        return functions.size() > 1;
+    }
+
+    /**
+     * Whether listing discovery must crawl the full board instead of stopping at already stored listings.
+     */
+    public boolean fullCrawl() {
+        return fullCrawl;
+    }
+
+    /**
+     * Identifies runs over the same set of functions and crawl mode, which are coalesced. All refreshes share
+     * one key, and so do all re-extractions, so at most one of each is queued or running.
+     */
+    String key() {
+        if (type != Type.SCRAPE) return "\n" + type.name();
+        return String.join("\n", functions) + (fullCrawl ? "\nfull" : "");
+    }
+
+    public State state() {
+        return state;
+    }
+
+    public boolean isDone() {
+        return state != State.QUEUED && state != State.RUNNING;
+    }
+
+    /**
+     * Throws if the run was cancelled; called by the scrape between units of work.
+     */
+    public void checkNotCancelled() {
+        if (state == State.CANCELLED) {
+            throw new CancellationException("Scrape run " + id + " was cancelled");
+        }
+    }
+
+    void attach(ScrapePipeline.Run pipelineRun) {
+        this.pipelineRun = pipelineRun;
+    }
+
+    /**
+     * Publishes the progress of a re-extraction; called after every batch.
+     */
+    void report(ReextractionResult progress) {
+        this.reextraction = progress;
+    }
+
+    void setFuture(Future<?> future) {
+        this.future = future;
+    }
+
+    synchronized boolean markRunning() {
+        if (state != State.QUEUED) return false;
+        state = State.RUNNING;
+        startedAt = Instant.now();
+        return true;
+    }
+
+    synchronized void markFinished(State finalState, String error) {
+        if (isDone()) return;
+        ScrapePipeline.Run run = pipelineRun;
+        this.finalStats = run != null ? run.stats() : NO_STATS;
+        this.pipelineRun = null;
+        this.error = error;
+        this.finishedAt = Instant.now();
+        this.state = finalState;
+    }
+
+    /**
+     * Cancels the run; a running scrape is interrupted and stops at its next check.
+     *
+     * @return {@code false} if the run had already finished
+     */
+    synchronized boolean cancel() {
+        if (isDone()) return false;
+        markFinished(State.CANCELLED, null);
+        Future<?> f = future;
+        if (f != null) f.cancel(true);
+        return true;
+    }
+
+    public ScrapeRunStatus toStatus() {
+        ScrapePipeline.Stats stats = finalStats;
+        if (stats == null) {
+            ScrapePipeline.Run run = pipelineRun;
+            stats = run != null ? run.stats() : NO_STATS;
+        }
+        Instant start = startedAt;
+        Instant end = finishedAt != null ? finishedAt : Instant.now();
+        long elapsedMs = start != null ? Duration.between(start, end).toMillis() : 0;
+        return new ScrapeRunStatus(id, type.name(), type == Type.SCRAPE && !isSweep() ? functions.getFirst() : null,
+                functions, fullCrawl, state.name(),
+                stats.discovered(), stats.skipped(), stats.fetched(), stats.saved(), stats.updated(),
+                stats.unchanged(), stats.closed(), stats.failed(), reextraction,
+                elapsedMs, createdAt, startedAt, finishedAt, error);
+    }
+}
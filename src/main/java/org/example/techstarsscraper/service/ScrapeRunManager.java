@@ -0,0 +1,223 @@
+package org.example.techstarsscraper.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Runs scrapes, refreshes of stored jobs and re-extractions of the page archive asynchronously on a bounded queue.
+ * <p>
+ * A request for a function, or set of functions, that already has a queued or running scrape is coalesced into that run,
+ * and so is a refresh or re-extraction requested while another is queued or running. A refresh is requested every
+ * {@code scrape.refresh.poll-interval} when {@code scrape.refresh.enabled}.
+ * Finished runs are kept for status queries until {@code history-size} newer runs have finished.
+ */
+@Service
+@Log4j2
+public class ScrapeRunManager {
+
+    private final ScraperService scraperService;
+    private final JobRefreshService jobRefreshService;
+    private final JobReextractionService jobReextractionService;
+    private final ThreadPoolExecutor executor;
+    private final int historySize;
+
+    private final Map<String, ScrapeRun> runs = new ConcurrentHashMap<>();
+    private final Map<String, ScrapeRun> activeByKey = new HashMap<>();
+    private final Deque<String> finishedIds = new ArrayDeque<>();
+
+    public ScrapeRunManager(ScraperService scraperService,
+                            JobRefreshService jobRefreshService,
+                            JobReextractionService jobReextractionService,
+                            @Value("${scrape.runs.max-concurrent}") int maxConcurrent,
+                            @Value("${scrape.runs.queue-capacity}") int queueCapacity,
+                            @Value("${scrape.runs.history-size}") int historySize,
+                            MeterRegistry meterRegistry) {
+        this.scraperService = scraperService;
+        this.jobRefreshService = jobRefreshService;
+        this.jobReextractionService = jobReextractionService;
+        this.historySize = Math.max(1, historySize);
+        this.executor = new ThreadPoolExecutor(maxConcurrent, maxConcurrent, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                Thread.ofPlatform().name("scrape-run-", 0).factory(),
+                new ThreadPoolExecutor.AbortPolicy());
+        new ExecutorServiceMetrics(executor, "scrape.runs", List.of()).bindTo(meterRegistry);
+    }
+
+    public record Submission(
+            ScrapeRun run,
+            boolean coalesced) {
+    }
+
+    /**
+     * Enqueues a scrape for the function, or returns the queued or running scrape for it.
+     *
+     * @throws RejectedExecutionException if the run queue is full
+     */
+    public Submission submit(String jobFunction) {
+        return submit(jobFunction, false);
+    }
+
+    /**
+     * Enqueues a scrape for the function, or returns the queued or running scrape for it in the same crawl mode.
+     *
+     * @param fullCrawl whether listing discovery must crawl the full board
+     * @throws RejectedExecutionException if the run queue is full
+     */
+    public Submission submit(String jobFunction, boolean fullCrawl) {
+        return submit(List.of(jobFunction == null ? "" : jobFunction), fullCrawl);
+    }
+
+    /**
+     * Enqueues one sweep over all given functions, or returns the queued or running sweep over the same set.
+     * Blank and duplicate functions are ignored unless nothing else is left.
+     *
+     * @throws RejectedExecutionException if the run queue is full
+     */
+    public Submission submit(Collection<String> jobFunctions) {
+        return submit(jobFunctions, false);
+    }
+
+    /**
+     * Enqueues one sweep over all given functions, or returns the queued or running sweep over the same set
+     * in the same crawl mode.
+     *
+     * @param fullCrawl whether listing discovery must crawl the full board
+     * @throws RejectedExecutionException if the run queue is full
+     */
+    public synchronized Submission submit(Collection<String> jobFunctions, boolean fullCrawl) {
+        List<String> functions = normalize(jobFunctions);
+        Submission submission = enqueue(new ScrapeRun(UUID.randomUUID().toString(), functions, fullCrawl));
+        if (!submission.coalesced()) {
+            log.info("Queued scrape run {} for functions {}", submission.run().id(), functions);
+        }
+        return submission;
+    }
+
+    /**
+     * Enqueues a re-check of the stored jobs due for refresh, unless one is already queued or running.
+     */
+    @Scheduled(fixedDelayString = "${scrape.refresh.poll-interval}", initialDelayString = "${scrape.refresh.poll-interval}")
+    public void scheduleRefresh() {
+        if (!jobRefreshService.isEnabled()) return;
+        try {
+            submitRefresh();
+        } catch (RejectedExecutionException e) {
+            log.warn("Scrape queue is full, skipping this job refresh");
+        }
+    }
+
+    /**
+     * Enqueues a re-check of the stored jobs due for refresh, or returns the queued or running one.
+     *
+     * @throws RejectedExecutionException if the run queue is full
+     */
+    public synchronized Submission submitRefresh() {
+        Submission submission = enqueue(ScrapeRun.refresh(UUID.randomUUID().toString()));
+        if (!submission.coalesced()) {
+            log.debug("Queued refresh run {}", submission.run().id());
+        }
+        return submission;
+    }
+
+    /**
+     * Enqueues a re-extraction of the stored jobs from the page archive, or returns the queued or running one.
+     *
+     * @throws IllegalStateException if the page archive is disabled
+     * @throws RejectedExecutionException if the run queue is full
+     */
+    public synchronized Submission submitReextraction() {
+        if (!jobReextractionService.isEnabled()) {
+            throw new IllegalStateException("The page archive is disabled");
+        }
+        Submission submission = enqueue(ScrapeRun.reextraction(UUID.randomUUID().toString()));
+        if (!submission.coalesced()) {
+            log.info("Queued re-extraction run {}", submission.run().id());
+        }
+        return submission;
+    }
+
+    private Submission enqueue(ScrapeRun candidate) {
+        ScrapeRun active = activeByKey.get(candidate.key());
+        if (active != null && !active.isDone()) {
+            return new Submission(active, true);
+        }
+
+        Future<?> future = executor.submit(() -> execute(candidate));
+        candidate.setFuture(future);
+        runs.put(candidate.id(), candidate);
+        activeByKey.put(candidate.key(), candidate);
+        return new Submission(candidate, false);
+    }
+
+    public Optional<ScrapeRun> find(String id) {
+        return Optional.ofNullable(runs.get(id));
+    }
+
+    /**
+     * @return {@code false} if no such run exists or it has already finished
+     */
+    public boolean cancel(String id) {
+        ScrapeRun run = runs.get(id);
+        if (run == null || !run.cancel()) return false;
+        log.info("Cancelled scrape run {}", id);
+        onFinished(run);
+        return true;
+    }
+
+    private void execute(ScrapeRun run) {
+        if (!run.markRunning()) return;
+        try {
+            switch (run.type()) {
+                case REFRESH -> jobRefreshService.refreshDueJobs(run);
+                case REEXTRACTION -> jobReextractionService.reextract(run);
+                case SCRAPE -> {
+                    if (run.isSweep()) {
+                        scraperService.sweep(run.functions(), run);
+                    } else {
+                        scraperService.scrapeByFunction(run.functions().getFirst(), run);
+                    }
+                }
+            }
+            run.markFinished(ScrapeRun.State.SUCCEEDED, null);
+        } catch (CancellationException e) {
+            run.markFinished(ScrapeRun.State.CANCELLED, null);
+        } catch (Exception e) {
+            if (run.state() != ScrapeRun.State.CANCELLED) {
+                log.error("{} run {} failed", run.type(), run.id(), e);
+            }
+            run.markFinished(ScrapeRun.State.FAILED, e.getMessage());
+        } finally {
+            onFinished(run);
+        }
+    }
+
+    private synchronized void onFinished(ScrapeRun run) {
+        activeByKey.remove(run.key(), run);
+        if (finishedIds.contains(run.id())) return;
+        finishedIds.addLast(run.id());
+        while (finishedIds.size() > historySize) {
+            runs.remove(finishedIds.removeFirst());
+        }
+    }
+
+    private static List<String> normalize(Collection<String> jobFunctions) {
+        SortedSet<String> functions = new TreeSet<>();
+        for (String function : jobFunctions) {
+            if (function != null && !function.isBlank()) functions.add(function.trim());
+        }
+        return functions.isEmpty() ? List.of("") : List.copyOf(functions);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -1,271 +1,267 @@
 package org.example.techstarsscraper.service;
 
-import io.github.bonigarcia.wdm.WebDriverManager;
-import jakarta.transaction.Transactional;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.log4j.Log4j2;
+import org.example.techstarsscraper.dto.JobListing;
 import org.example.techstarsscraper.model.Job;
-import org.example.techstarsscraper.repository.JobRepository;
-import org.jsoup.Jsoup;
-import org.jsoup.nodes.Document;
-import org.jsoup.nodes.Element;
-import org.jsoup.select.Elements;
-import org.openqa.selenium.*;
-import org.openqa.selenium.chrome.ChromeDriver;
-import org.openqa.selenium.chrome.ChromeOptions;
-import org.openqa.selenium.support.ui.ExpectedConditions;
-import org.openqa.selenium.support.ui.WebDriverWait;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
 
-import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.time.Instant;
 import java.util.*;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.stream.Collectors;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 @Service
 @Log4j2
 public class ScraperService {
 
-    private final JobRepository jobRepository;
-    private final JobDetailFetcher jobDetailFetcher;
-    private final GoogleSheetsService googleSheetsService;
-    private final String baseScrapeUrl;
-    private final String userAgent;
-    private final boolean googleSheetsUploadEnabled;
-    private final ExecutorService executor;
-
-    public ScraperService(JobRepository jobRepository,
-                          JobDetailFetcher jobDetailFetcher,
-                          @Nullable GoogleSheetsService googleSheetsService,
-                          @Value("${scrape.base-url}") String baseScrapeUrl,
-                          @Value("${scrape.user-agent}") String userAgent,
-                          @Value("${scrape.google-sheets.upload.enabled}") boolean googleSheetsUploadEnabled) {
-        this.jobRepository = jobRepository;
-        this.jobDetailFetcher = jobDetailFetcher;
-        this.googleSheetsService = googleSheetsService;
-        this.baseScrapeUrl = baseScrapeUrl;
-        this.userAgent = userAgent;
-        this.googleSheetsUploadEnabled = googleSheetsUploadEnabled;
-        this.executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+    private final List<ListingSource> listingSources;
+    private final ScrapePipeline scrapePipeline;
+    private final KnownJobIndex knownJobIndex;
+    private final ObjectMapper objectMapper;
+    private final int maxParallelDiscoveries;
+    private final boolean incrementalEnabled;
+    private final int stopAfterKnown;
+    private final Duration fullCrawlInterval;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Instant> lastFullCrawl = new ConcurrentHashMap<>();
+
+    public ScraperService(List<ListingSource> listingSources,
+                          ScrapePipeline scrapePipeline,
+                          KnownJobIndex knownJobIndex,
+                          ObjectMapper objectMapper,
+                          @Value("${scrape.sweep.max-parallel-discoveries}") int maxParallelDiscoveries,
+                          @Value("${scrape.listing.incremental.enabled}") boolean incrementalEnabled,
+                          @Value("${scrape.listing.incremental.stop-after-known}") int stopAfterKnown,
+                          @Value("${scrape.listing.incremental.full-crawl-interval}") Duration fullCrawlInterval,
+                          MeterRegistry meterRegistry) {
+        this.listingSources = listingSources;
+        this.scrapePipeline = scrapePipeline;
+        this.knownJobIndex = knownJobIndex;
+        this.objectMapper = objectMapper;
+        this.maxParallelDiscoveries = Math.max(1, maxParallelDiscoveries);
+        this.incrementalEnabled = incrementalEnabled;
+        this.stopAfterKnown = stopAfterKnown;
+        this.fullCrawlInterval = fullCrawlInterval;
+        this.meterRegistry = meterRegistry;
     }
 
-    @Transactional
-    public List<Job> scrapeByFunction(String jobFunction) {
-        String url = buildListUrl(jobFunction);
-        // I will only fetch some of the job listings, not all
-        Document doc = fetchDocument(url, 1, 4);
-        Map<String, List<String>> jobTagsMap = extractJobTagsMap(doc);
-        List<Job> savedJobs = fetchAndSaveJobs(jobTagsMap);
-
-        if (!savedJobs.isEmpty() && googleSheetsUploadEnabled && googleSheetsService != null) {
-            try {
-                googleSheetsService.appendJobsToSheet(savedJobs);
-            } catch (Exception e) {
-                throw new RuntimeException("Google Sheets upload failed", e);
-            }
+    /**
+     * Scrapes the listings of one job function, reporting progress to the given run.
+     *
+     * @throws java.util.concurrent.CancellationException if the run is cancelled
+     */
+    public List<Job> scrapeByFunction(String jobFunction, ScrapeRun scrapeRun) {
+        List<Job> savedJobs;
+        List<String> functions = functionLabels(jobFunction);
+        try (ScrapePipeline.Run run = scrapePipeline.start()) {
+            scrapeRun.attach(run);
+            discoverListings(jobFunction, scrapeRun.fullCrawl(), listing -> {
+                scrapeRun.checkNotCancelled();
+                run.submit(listing, functions);
+            });
+            scrapeRun.checkNotCancelled();
+            savedJobs = run.finish();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            scrapeRun.checkNotCancelled();
+            throw new IllegalStateException("Scrape interrupted", e);
         }
 
         return savedJobs;
     }
 
-    public List<Job> findAll() {
-        return jobRepository.findAll();
-    }
+    /**
+     * Scrapes the listings of several job functions in one run.
+     * <p>
+     * Listings are discovered for up to {@code max-parallel-discoveries} functions at a time; browser
+     * discovery is further bounded by the browser pool. All listings are merged by job page URL before
+     * any detail page is fetched, so a job listed under several functions is fetched once, with the
+     * union of its tags, and tagged with every function that listed it. Discovery failing for some
+     * functions does not stop the others; the sweep fails only if it fails for all of them.
+     *
+     * @throws java.util.concurrent.CancellationException if the run is cancelled
+     */
+    public List<Job> sweep(List<String> jobFunctions, ScrapeRun scrapeRun) {
+        Map<String, MergedListing> merged = discoverAll(jobFunctions, scrapeRun);
+        log.info("Sweep over {} functions discovered {} distinct job listings", jobFunctions.size(), merged.size());
+
+        List<Job> savedJobs;
+        try (ScrapePipeline.Run run = scrapePipeline.start()) {
+            scrapeRun.attach(run);
+            for (MergedListing listing : merged.values()) {
+                scrapeRun.checkNotCancelled();
+                run.submit(new JobListing(listing.jobPageUrl, listing.tags()), listing.functions);
+            }
+            scrapeRun.checkNotCancelled();
+            savedJobs = run.finish();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            scrapeRun.checkNotCancelled();
+            throw new IllegalStateException("Sweep interrupted", e);
+        }
 
-    private String buildListUrl(String jobFunction) {
-        if (jobFunction == null || jobFunction.isBlank()) return baseScrapeUrl;
-        String encoded = URLEncoder.encode(jobFunction, StandardCharsets.UTF_8);
-        return baseScrapeUrl + "?filter=" + encoded;
+        return savedJobs;
     }
 
-    private Document fetchDocument(String url, int loadMoreClicks, int maxScrolls) {
-        WebDriver driver = createWebDriver();
-        try {
-            log.info("Fetching URL: {}, wait...", url);
-            driver.get(url);
-            WebDriverWait wait = new WebDriverWait(driver, Duration.ofSeconds(15));
-
-            By jobSelector = By.cssSelector("[itemtype='https://schema.org/JobPosting']");
-            By loadMoreSelector = By.cssSelector("button[data-testid='load-more']");
-
-            waitForJobPostingElement(wait, jobSelector);
-            hideOnetrustPolicyBanner(driver);
-
-            for (int i = 0; i < loadMoreClicks; i++) {
-                if (!clickLoadMore(driver, wait, jobSelector, loadMoreSelector)) {
-                    break;
-                }
+    private Map<String, MergedListing> discoverAll(List<String> jobFunctions, ScrapeRun scrapeRun) {
+        Map<String, MergedListing> merged = new ConcurrentHashMap<>();
+        List<Future<?>> discoveries = new ArrayList<>();
+        int threads = Math.min(maxParallelDiscoveries, jobFunctions.size());
+        Map<String, Exception> failures = new ConcurrentHashMap<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads,
+                Thread.ofVirtual().name("sweep-discovery-", 0).factory())) {
+            for (int i = 0; i < jobFunctions.size(); i++) {
+                String jobFunction = jobFunctions.get(i);
+                int order = i;
+                List<String> functions = functionLabels(jobFunction);
+                discoveries.add(executor.submit(() -> {
+                    try {
+                        discoverListings(jobFunction, scrapeRun.fullCrawl(), listing -> {
+                            scrapeRun.checkNotCancelled();
+                            merged.computeIfAbsent(listing.jobPageUrl(), MergedListing::new).add(order, listing, functions);
+                        });
+                    } catch (CancellationException e) {
+                        throw e;
+                    } catch (Exception e) {
+                        failures.put(jobFunction, e);
+                        log.warn("Listing discovery failed for function '{}': {}", jobFunction, e.getMessage());
+                    }
+                }));
             }
-
-            for (int s = 0; s < maxScrolls; s++) {
-                if (!scrollDownAndWaitForNewElements(driver, wait, jobSelector)) {
-                    break;
+            try {
+                for (Future<?> discovery : discoveries) {
+                    discovery.get();
                 }
+            } catch (InterruptedException e) {
+                executor.shutdownNow();
+                Thread.currentThread().interrupt();
+                scrapeRun.checkNotCancelled();
+                throw new IllegalStateException("Sweep interrupted", e);
+            } catch (ExecutionException e) {
+                executor.shutdownNow();
+                if (e.getCause() instanceof CancellationException cancellation) throw cancellation;
+                throw new IllegalStateException("Listing discovery failed", e.getCause());
             }
-
-            String pageSource = driver.getPageSource();
-            if (pageSource == null) {
-                throw new IllegalStateException("Page source is null for URL: " + url);
-            }
-            return Jsoup.parse(pageSource, url);
-        } finally {
-            driver.quit();
         }
-    }
-
-    private WebDriver createWebDriver() {
-        WebDriverManager.chromedriver().setup();
-        ChromeOptions options = new ChromeOptions();
-
-        options.addArguments("--headless=new");
-        options.addArguments("--window-size=1920,1080");
-        options.addArguments("--no-sandbox");
-        options.addArguments("--disable-dev-shm-usage");
-        options.addArguments("--user-agent=" + userAgent);
-        return new ChromeDriver(options);
-    }
-
-    private void waitForJobPostingElement(WebDriverWait wait, By jobSelector) {
-        wait.until(ExpectedConditions.presenceOfElementLocated(jobSelector));
-    }
 
-    private void hideOnetrustPolicyBanner(WebDriver driver) {
-        ((JavascriptExecutor) driver).executeScript(
-                "var elem = document.getElementById('onetrust-policy-text');" +
-                        "if (elem) { elem.style.display='none'; }"
-        );
+        if (failures.size() == jobFunctions.size()) {
+            throw new IllegalStateException("Listing discovery failed for all functions",
+                    failures.values().iterator().next());
+        }
+        return merged;
     }
 
-    private boolean clickLoadMore(WebDriver driver, WebDriverWait wait, By jobSelector, By loadMoreSelector) {
-        int beforeCount = driver.findElements(jobSelector).size();
-
-        List<WebElement> loadMoreButtons = driver.findElements(loadMoreSelector);
-        if (loadMoreButtons.isEmpty()) {
-            return false;
+    /**
+     * A job listing merged across the functions that listed it. Tags are merged in the order the functions
+     * were requested, not the order discoveries finished, so that repeated sweeps store the same tags.
+     */
+    private static final class MergedListing {
+        private final String jobPageUrl;
+        private final SortedMap<Integer, List<String>> tagsByFunction = new TreeMap<>();
+        private final Set<String> functions = new TreeSet<>();
+
+        private MergedListing(String jobPageUrl) {
+            this.jobPageUrl = jobPageUrl;
         }
 
-        try {
-            WebElement loadMoreBtn = wait.until(ExpectedConditions.elementToBeClickable(loadMoreSelector));
-            ((JavascriptExecutor) driver).executeScript("arguments[0].scrollIntoView(true);", loadMoreBtn);
-            loadMoreBtn.click();
+        synchronized void add(int functionOrder, JobListing listing, Collection<String> matchedFunctions) {
+            tagsByFunction.putIfAbsent(functionOrder, listing.tags());
+            functions.addAll(matchedFunctions);
+        }
 
-            return wait.until(driverInstance -> {
-                int afterCount = driverInstance.findElements(jobSelector).size();
-                return afterCount > beforeCount;
-            });
-        } catch (TimeoutException e) {
-            return false;
+        synchronized List<String> tags() {
+            Set<String> tags = new LinkedHashSet<>();
+            tagsByFunction.values().forEach(tags::addAll);
+            return List.copyOf(tags);
         }
     }
 
-    private boolean scrollDownAndWaitForNewElements(WebDriver driver, WebDriverWait wait, By jobSelector) {
-        int previousCount = driver.findElements(jobSelector).size();
-        ((JavascriptExecutor) driver).executeScript("window.scrollBy(0, document.body.scrollHeight);");
-
+    /**
+     * Readable labels for a function filter: the function names in its {@code job_functions},
+     * or the filter itself if it cannot be decoded. A blank filter matches all jobs and has no label.
+     */
+    List<String> functionLabels(String jobFunction) {
+        if (jobFunction == null || jobFunction.isBlank()) return List.of();
         try {
-            return wait.until(driverInstance -> {
-                int afterCount = driverInstance.findElements(jobSelector).size();
-                return afterCount > previousCount;
+            JsonNode names = objectMapper.readTree(new String(Base64.getDecoder().decode(jobFunction.trim()),
+                    StandardCharsets.UTF_8)).path("job_functions");
+            List<String> labels = new ArrayList<>();
+            names.forEach(name -> {
+                if (name.isTextual() && !name.asText().isBlank()) labels.add(name.asText().trim());
             });
-        } catch (TimeoutException e) {
-            return false;
+            if (!labels.isEmpty()) return labels;
+        } catch (Exception e) {
+            log.debug("Function filter '{}' is not base64-encoded JSON: {}", jobFunction, e.getMessage());
         }
+        return List.of(jobFunction.trim());
     }
 
-
-    private Map<String, List<String>> extractJobTagsMap(Document doc) {
-        Map<String, List<String>> result = new LinkedHashMap<>();
-        if (doc == null) return result;
-
-        Elements jobElements = doc.select("[itemtype='https://schema.org/JobPosting']");
-        for (Element jobEl : jobElements) {
-            Optional<String> jobUrlOpt = extractJobUrl(jobEl);
-            if (jobUrlOpt.isPresent()) {
-                String cleanLink = cleanLink(jobUrlOpt.get());
-                List<String> tags = extractTags(jobEl);
-                result.put(cleanLink, tags);
-                log.info("Job link found: {} | Tags: {}", cleanLink, tags);
-            }
-        }
-        return result;
+    /**
+     * Whether discovery for the function may stop at already stored listings: it is not asked to crawl the
+     * full board, and the function's last full crawl is younger than {@code full-crawl-interval}, so jobs
+     * further down the board are still recorded as listed regularly.
+     */
+    private boolean crawlsIncrementally(String jobFunction, boolean fullCrawl) {
+        if (!incrementalEnabled || fullCrawl) return false;
+        if (fullCrawlInterval.isZero()) return true;
+        Instant last = lastFullCrawl.get(jobFunction == null ? "" : jobFunction.trim());
+        return last != null && last.plus(fullCrawlInterval).isAfter(Instant.now());
     }
 
-    private Optional<String> extractJobUrl(Element jobEl) {
-        if (jobEl == null) return Optional.empty();
-
-        Elements linkEls = jobEl.select("a[href]");
-        for (Element a : linkEls) {
-            String href = a.absUrl("href");
-            if (href != null && !href.isBlank()
-                    && href.contains("/jobs/")
-                    && href.contains("jobs.techstars.com")) {
-                return Optional.of(href);
+    private void discoverListings(String jobFunction, boolean fullCrawl, Consumer<JobListing> consumer) {
+        boolean incremental = crawlsIncrementally(jobFunction, fullCrawl);
+        Exception lastFailure = null;
+        for (ListingSource source : listingSources) {
+            if (!source.isAvailable()) continue;
+            long start = System.nanoTime();
+            String outcome = "error";
+            AtomicInteger count = new AtomicInteger();
+            ListingCrawl crawl = incremental ? ListingCrawl.incremental(knownJobIndex, stopAfterKnown) : ListingCrawl.full();
+            try {
+                source.discover(jobFunction, crawl, listing -> {
+                    count.incrementAndGet();
+                    crawl.seen(listing);
+                    consumer.accept(listing);
+                });
+                outcome = "success";
+                if (!incremental) {
+                    lastFullCrawl.put(jobFunction == null ? "" : jobFunction.trim(), Instant.now());
+                }
+                log.info("Discovered {} job listings via {} source ({})", count.get(), source.name(), crawl);
+                return;
+            } catch (CancellationException e) {
+                outcome = "cancelled";
+                throw e;
+            } catch (Exception e) {
+                lastFailure = e;
+                log.warn("Listing discovery via {} source failed, trying next source: {}", source.name(), e.getMessage());
+                log.debug("Stacktrace:", e);
+            } finally {
+                recordDiscovery(source.name(), outcome, start, count.get());
             }
         }
-        return Optional.empty();
+        throw new IllegalStateException("All listing sources failed", lastFailure);
     }
 
-
-    private List<String> extractTags(Element jobEl) {
-        if (jobEl == null) return Collections.emptyList();
-        return jobEl.select("[data-testid=tag]")
-                .stream()
-                .map(Element::text)
-                .filter(Objects::nonNull)
-                .map(String::trim)
-                .filter(s -> !s.isEmpty())
-                .collect(Collectors.toList());
-    }
-
-    private String cleanLink(String link) {
-        if (link == null) return null;
-        int q = link.indexOf('?');
-        return (q >= 0) ? link.substring(0, q) : link;
-    }
-
-    private List<Job> fetchAndSaveJobs(Map<String, List<String>> jobTagsMap) {
-        List<Job> saved = new ArrayList<>();
-        if (jobTagsMap == null || jobTagsMap.isEmpty()) return Collections.emptyList();
-
-        List<CompletableFuture<Job>> futures = jobTagsMap.entrySet().stream()
-                .map(entry -> CompletableFuture.supplyAsync(() -> {
-                    String jobUrl = entry.getKey();
-                    List<String> tags = entry.getValue();
-                    try {
-                        Job job = jobDetailFetcher.fetch(jobUrl);
-                        if (job == null) {
-                            log.debug("JobDetailFetcher returned null for URL: {}", jobUrl);
-                            return null;
-                        }
-
-                        boolean alreadyPresent = !jobRepository.findByJobPageUrl(job.getJobPageUrl()).isEmpty();
-                        if (!alreadyPresent) {
-                            job.setTags(String.join(", ", tags));
-                            Job savedJob = jobRepository.save(job);
-                            log.info("Saved job: {} (source url {})", savedJob.getId(), jobUrl);
-                            return savedJob;
-                        } else {
-                            log.debug("Job already exists in repository: {}", job.getJobPageUrl());
-                        }
-                    } catch (Exception e) {
-                        log.warn("Failed to fetch/save job at {}: {}", jobUrl, e.getMessage());
-                        log.debug("Stacktrace:", e);
-                    }
-                    return null;
-                }, executor))
-                .toList();
-
-        List<Job> savedJobs = futures.stream()
-                .map(CompletableFuture::join)
-                .filter(Objects::nonNull)
-                .toList();
-
-        return savedJobs;
-
+    private void recordDiscovery(String source, String outcome, long startNanos, int listings) {
+        Timer.builder("scraper.listing.discovery")
+                .description("Time to discover the listings of one function, including time blocked on a full pipeline")
+                .tags("source", source, "outcome", outcome)
+                .register(meterRegistry)
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        Counter.builder("scraper.listing.discovered")
+                .description("Job listings discovered")
+                .tag("source", source)
+                .register(meterRegistry)
+                .increment(listings);
     }
 }
@@ -0,0 +1,85 @@
+package org.example.techstarsscraper.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.log4j.Log4j2;
+import org.example.techstarsscraper.dto.JobView;
+import org.example.techstarsscraper.repository.JobQueryRepository;
+import org.example.techstarsscraper.repository.SheetsOutboxRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drains the Sheets outbox to the Google Sheet.
+ * <p>
+ * Each batch is claimed, appended and deleted in one transaction, so a failed upload leaves its entries
+ * in the outbox for the next poll and concurrent dispatchers never claim the same entries. An upload
+ * that reached the sheet but whose transaction did not commit is delivered again, and
+ * {@link GoogleSheetsService} skips the rows whose ids are already in the sheet.
+ */
+@Service
+@Log4j2
+@ConditionalOnProperty(prefix = "scrape.google-sheets.upload", name = "enabled", havingValue = "true")
+public class SheetsOutboxDispatcher {
+
+    private final SheetsOutboxRepository sheetsOutbox;
+    private final JobQueryRepository jobQueryRepository;
+    private final GoogleSheetsService googleSheetsService;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final AtomicLong backlog = new AtomicLong();
+
+    public SheetsOutboxDispatcher(SheetsOutboxRepository sheetsOutbox,
+                                  JobQueryRepository jobQueryRepository,
+                                  GoogleSheetsService googleSheetsService,
+                                  TransactionTemplate transactionTemplate,
+                                  @Value("${scrape.google-sheets.upload.outbox.batch-size}") int batchSize,
+                                  MeterRegistry meterRegistry) {
+        this.sheetsOutbox = sheetsOutbox;
+        this.jobQueryRepository = jobQueryRepository;
+        this.googleSheetsService = googleSheetsService;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = Math.max(1, batchSize);
+        Gauge.builder("scraper.sheets.outbox.backlog", backlog, AtomicLong::get)
+                .description("Jobs in the Sheets outbox as of the last dispatch")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${scrape.google-sheets.upload.outbox.poll-interval}",
+            initialDelayString = "${scrape.google-sheets.upload.outbox.poll-interval}")
+    public void dispatch() {
+        try {
+            int delivered;
+            do {
+                delivered = transactionTemplate.execute(status -> dispatchBatch());
+            } while (delivered == batchSize);
+        } catch (RuntimeException e) {
+            log.warn("Sheets outbox dispatch failed, will retry: {}", e.getMessage());
+        } finally {
+            backlog.set(sheetsOutbox.count());
+        }
+    }
+
+    private int dispatchBatch() {
+        List<Long> jobIds = sheetsOutbox.claim(batchSize);
+        if (jobIds.isEmpty()) return 0;
+        List<JobView> jobs = jobQueryRepository.findByIds(jobIds, true);
+        try {
+            googleSheetsService.appendJobsToSheet(jobs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while uploading to Google Sheets", e);
+        } catch (Exception e) {
+            throw new IllegalStateException("Google Sheets upload failed", e);
+        }
+        sheetsOutbox.delete(jobIds);
+        log.info("Delivered {} jobs from the Sheets outbox", jobIds.size());
+        return jobIds.size();
+    }
+}
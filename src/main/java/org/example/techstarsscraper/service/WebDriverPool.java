@@ -0,0 +1,312 @@
+package org.example.techstarsscraper.service;
+
+import io.github.bonigarcia.wdm.WebDriverManager;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.chrome.ChromeOptions;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded pool of headless Chrome sessions.
+ * <p>
+ * Sessions are leased for the duration of one listing scrape and reset (cookies, storage, extra tabs)
+ * when they are returned. A session is retired instead of being reused when it fails the health check,
+ * exceeds its maximum age or has served its maximum number of leases. Each session is started with the
+ * {@link BrowserResourceBlocker} profile applied.
+ */
+@Component
+@Log4j2
+public class WebDriverPool {
+
+    private final BrowserResourceBlocker resourceBlocker;
+    private final String userAgent;
+    private final int maxSize;
+    private final int minIdle;
+    private final Duration leaseTimeout;
+    private final Duration maxSessionAge;
+    private final int maxUsesPerSession;
+
+    private final LinkedBlockingDeque<PooledSession> idle = new LinkedBlockingDeque<>();
+    private final Semaphore permits;
+    private final AtomicInteger open = new AtomicInteger();
+    private final Timer leaseWaitTimer;
+    private final Timer sessionAgeTimer;
+    private final Timer sessionStartTimer;
+
+    private volatile boolean driverResolved;
+    private volatile boolean closed;
+
+    public WebDriverPool(BrowserResourceBlocker resourceBlocker,
+                         @Value("${scrape.user-agent}") String userAgent,
+                         @Value("${scrape.browser.pool.max-size}") int maxSize,
+                         @Value("${scrape.browser.pool.min-idle}") int minIdle,
+                         @Value("${scrape.browser.pool.lease-timeout}") Duration leaseTimeout,
+                         @Value("${scrape.browser.pool.max-session-age}") Duration maxSessionAge,
+                         @Value("${scrape.browser.pool.max-uses-per-session}") int maxUsesPerSession,
+                         MeterRegistry meterRegistry) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("scrape.browser.pool.max-size must be at least 1");
+        }
+        this.resourceBlocker = resourceBlocker;
+        this.userAgent = userAgent;
+        this.maxSize = maxSize;
+        this.minIdle = Math.min(minIdle, maxSize);
+        this.leaseTimeout = leaseTimeout;
+        this.maxSessionAge = maxSessionAge;
+        this.maxUsesPerSession = maxUsesPerSession;
+        this.permits = new Semaphore(maxSize, true);
+
+        this.leaseWaitTimer = Timer.builder("scraper.browser.lease.wait")
+                .description("Time spent waiting for a browser session lease")
+                .register(meterRegistry);
+        this.sessionAgeTimer = Timer.builder("scraper.browser.session.age")
+                .description("Age of browser sessions when they are retired")
+                .register(meterRegistry);
+        this.sessionStartTimer = Timer.builder("scraper.browser.session.start")
+                .description("Time to launch a browser session")
+                .register(meterRegistry);
+        Gauge.builder("scraper.browser.sessions.open", open, AtomicInteger::get)
+                .description("Browser sessions currently open")
+                .register(meterRegistry);
+        Gauge.builder("scraper.browser.sessions.idle", idle, LinkedBlockingDeque::size)
+                .description("Browser sessions waiting to be leased")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (minIdle == 0) return;
+        resolveDriver();
+        for (int i = 0; i < minIdle; i++) {
+            try {
+                idle.offer(createSession());
+            } catch (Exception e) {
+                log.warn("Failed to pre-start browser session: {}", e.getMessage());
+                log.debug("Stacktrace:", e);
+                break;
+            }
+        }
+        log.info("Browser pool warmed up with {} idle session(s)", idle.size());
+    }
+
+    /**
+     * Leases a healthy session, starting a new one if no idle session is available.
+     * The returned lease must be closed to give the session back to the pool.
+     */
+    public Lease lease() {
+        long waitStart = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(leaseTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                throw new IllegalStateException("Timed out after " + leaseTimeout + " waiting for a browser session");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a browser session", e);
+        }
+        leaseWaitTimer.record(System.nanoTime() - waitStart, TimeUnit.NANOSECONDS);
+
+        try {
+            PooledSession session;
+            while ((session = idle.pollFirst()) != null) {
+                if (isReusable(session)) {
+                    session.uses++;
+                    return new Lease(session);
+                }
+                retire(session);
+            }
+            session = createSession();
+            session.uses++;
+            return new Lease(session);
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private boolean isReusable(PooledSession session) {
+        if (session.age().compareTo(maxSessionAge) > 0) {
+            log.debug("Retiring browser session older than {}", maxSessionAge);
+            return false;
+        }
+        if (maxUsesPerSession > 0 && session.uses >= maxUsesPerSession) {
+            log.debug("Retiring browser session after {} uses", session.uses);
+            return false;
+        }
+        try {
+            Object result = ((JavascriptExecutor) session.driver).executeScript("return 1;");
+            return result != null;
+        } catch (Exception e) {
+            log.debug("Browser session failed health check: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private void release(PooledSession session, boolean broken) {
+        try {
+            if (closed || broken || !reset(session)) {
+                retire(session);
+            } else {
+                idle.offerFirst(session);
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    private boolean reset(PooledSession session) {
+        WebDriver driver = session.driver;
+        try {
+            List<String> handles = new ArrayList<>(driver.getWindowHandles());
+            for (int i = 1; i < handles.size(); i++) {
+                driver.switchTo().window(handles.get(i));
+                driver.close();
+            }
+            driver.switchTo().window(handles.get(0));
+            ((JavascriptExecutor) driver).executeScript(
+                    "try { window.localStorage.clear(); window.sessionStorage.clear(); } catch (e) {}");
+            driver.manage().deleteAllCookies();
+            driver.get("about:blank");
+            return true;
+        } catch (Exception e) {
+            log.debug("Failed to reset browser session: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private void retire(PooledSession session) {
+        sessionAgeTimer.record(session.age());
+        open.decrementAndGet();
+        try {
+            session.driver.quit();
+        } catch (Exception e) {
+            log.debug("Failed to quit browser session: {}", e.getMessage());
+        }
+    }
+
+    private PooledSession createSession() {
+        resolveDriver();
+        ChromeOptions options = new ChromeOptions();
+
+        options.addArguments("--headless=new");
+        options.addArguments("--window-size=1920,1080");
+        options.addArguments("--no-sandbox");
+        options.addArguments("--disable-dev-shm-usage");
+        options.addArguments("--user-agent=" + userAgent);
+        long start = System.nanoTime();
+        WebDriver driver = new ChromeDriver(options);
+        BrowserResourceBlocker.RequestCounts requests;
+        try {
+            requests = resourceBlocker.install(driver);
+        } catch (RuntimeException e) {
+            try {
+                driver.quit();
+            } catch (Exception quitFailure) {
+                e.addSuppressed(quitFailure);
+            }
+            throw e;
+        }
+        sessionStartTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        open.incrementAndGet();
+        log.info("Started browser session ({} open, max {})", open.get(), maxSize);
+        return new PooledSession(driver, requests);
+    }
+
+    private void resolveDriver() {
+        if (driverResolved) return;
+        synchronized (this) {
+            if (!driverResolved) {
+                WebDriverManager.chromedriver().setup();
+                driverResolved = true;
+            }
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        closed = true;
+        PooledSession session;
+        while ((session = idle.pollFirst()) != null) {
+            retire(session);
+        }
+    }
+
+    private static final class PooledSession {
+        private final WebDriver driver;
+        private final BrowserResourceBlocker.RequestCounts requests;
+        private final long createdAtNanos = System.nanoTime();
+        private int uses;
+
+        private PooledSession(WebDriver driver, BrowserResourceBlocker.RequestCounts requests) {
+            this.driver = driver;
+            this.requests = requests;
+        }
+
+        private Duration age() {
+            return Duration.ofNanos(System.nanoTime() - createdAtNanos);
+        }
+    }
+
+    /**
+     * A leased browser session. Closing the lease returns the session to the pool;
+     * call {@link #invalidate()} first if the session should be discarded instead.
+     */
+    public final class Lease implements AutoCloseable {
+        private final PooledSession session;
+        private final long blockedAtStart;
+        private final long allowedAtStart;
+        private boolean broken;
+        private boolean released;
+
+        private Lease(PooledSession session) {
+            this.session = session;
+            this.blockedAtStart = session.requests.blocked();
+            this.allowedAtStart = session.requests.allowed();
+        }
+
+        public WebDriver driver() {
+            return session.driver;
+        }
+
+        /**
+         * Requests the resource-blocking profile blocked during this lease.
+         */
+        public long blockedRequests() {
+            return session.requests.blocked() - blockedAtStart;
+        }
+
+        /**
+         * Requests the browser made during this lease that were let through.
+         */
+        public long allowedRequests() {
+            return session.requests.allowed() - allowedAtStart;
+        }
+
+        public void invalidate() {
+            this.broken = true;
+        }
+
+        @Override
+        public void close() {
+            if (released) return;
+            released = true;
+            release(session, broken);
+        }
+    }
+}
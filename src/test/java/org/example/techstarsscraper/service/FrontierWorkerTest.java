@@ -0,0 +1,139 @@
+package org.example.techstarsscraper.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.techstarsscraper.repository.FrontierRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Two nodes sharing one frontier, on H2. Entries are inserted directly: H2 lacks the {@code ON CONFLICT} that
+ * {@link FrontierRepository#enqueue} uses.
+ */
+class FrontierWorkerTest {
+
+    private static final String RUN = "run-1";
+    private static final Duration LEASE = Duration.ofMinutes(1);
+    private static final int MAX_ATTEMPTS = 2;
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private FrontierRepository repositoryA;
+    private FrontierRepository repositoryB;
+    private FrontierWorker nodeA;
+    private FrontierWorker nodeB;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        jdbcTemplate.execute("CREATE TABLE jobs (id BIGINT PRIMARY KEY, job_page_url VARCHAR(255) NOT NULL UNIQUE)");
+        jdbcTemplate.execute("CREATE TABLE scrape_frontier (job_page_url VARCHAR(255) PRIMARY KEY, tags VARCHAR(1000), " +
+                "run_id VARCHAR(36), enqueued_at TIMESTAMP(6) WITH TIME ZONE NOT NULL, lease_owner VARCHAR(255), " +
+                "lease_expires_at TIMESTAMP(6) WITH TIME ZONE, attempts INT NOT NULL)");
+        jdbcTemplate.execute("CREATE TABLE scrape_frontier_results (id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, " +
+                "run_id VARCHAR(36) NOT NULL, outcome VARCHAR(20) NOT NULL, jobs INT NOT NULL, " +
+                "recorded_at TIMESTAMP(6) WITH TIME ZONE NOT NULL)");
+
+        repositoryA = new FrontierRepository(jdbcTemplate);
+        repositoryB = new FrontierRepository(jdbcTemplate);
+        nodeA = worker(repositoryA, "node-a");
+        nodeB = worker(repositoryB, "node-b");
+    }
+
+    private static FrontierWorker worker(FrontierRepository repository, String nodeId) {
+        return new FrontierWorker(repository, mock(ScrapePipeline.class), false, nodeId, 10, LEASE,
+                Duration.ofSeconds(10), Duration.ofSeconds(1), MAX_ATTEMPTS, Duration.ofHours(1), new SimpleMeterRegistry());
+    }
+
+    private void enqueue(String... jobPageUrls) {
+        Instant enqueuedAt = Instant.now();
+        for (String url : jobPageUrls) {
+            enqueuedAt = enqueuedAt.plusMillis(1);
+            jdbcTemplate.update("INSERT INTO scrape_frontier (job_page_url, tags, run_id, enqueued_at, attempts) " +
+                    "VALUES (?, 'backend, remote', ?, ?, 0)", url, RUN, enqueuedAt.atOffset(ZoneOffset.UTC));
+        }
+    }
+
+    private static List<String> urls(List<FrontierRepository.Claim> claims) {
+        return claims.stream().map(claim -> claim.listing().jobPageUrl()).toList();
+    }
+
+    @Test
+    void concurrentClaimsSkipEntriesLockedOrLeasedByTheOtherNode() {
+        enqueue("a", "b", "c", "d");
+        jdbcTemplate.update("INSERT INTO jobs (id, job_page_url) VALUES (1, 'c')");
+
+        transactionTemplate.executeWithoutResult(status -> {
+            assertEquals(List.of("a", "b"), urls(repositoryA.claim(nodeA.nodeId(), 2, LEASE)));
+            // A's transaction still holds its row locks, so B skips them rather than waiting; H2 locks every
+            // row A's query read, where PostgreSQL locks only those returned
+            List<FrontierRepository.Claim> whileLocked = CompletableFuture.supplyAsync(() -> transactionTemplate.execute(
+                    inner -> repositoryB.claim(nodeB.nodeId(), 10, LEASE))).join();
+            assertFalse(urls(whileLocked).contains("a"));
+            assertFalse(urls(whileLocked).contains("b"));
+            whileLocked.forEach(claim -> repositoryB.abandon(nodeB.nodeId(), List.of(claim.listing().jobPageUrl())));
+        });
+
+        List<FrontierRepository.Claim> claimedByB = repositoryB.claim(nodeB.nodeId(), 10, LEASE);
+        assertEquals(List.of("c", "d"), urls(claimedByB));
+        assertEquals(List.of("backend", "remote"), claimedByB.get(0).listing().tags());
+        assertTrue(claimedByB.get(0).stored());
+        assertFalse(claimedByB.get(1).stored());
+        assertTrue(repositoryA.claim(nodeA.nodeId(), 10, LEASE).isEmpty());
+        assertTrue(repositoryB.claim(nodeB.nodeId(), 10, LEASE).isEmpty());
+    }
+
+    @Test
+    void entryWhoseLeaseExpiredIsClaimedByTheOtherNode() throws InterruptedException {
+        enqueue("a");
+        assertEquals(List.of("a"), urls(repositoryA.claim(nodeA.nodeId(), 10, Duration.ofMillis(50))));
+        assertTrue(repositoryB.claim(nodeB.nodeId(), 10, LEASE).isEmpty());
+
+        Thread.sleep(100);
+        assertEquals(List.of("a"), urls(repositoryB.claim(nodeB.nodeId(), 10, LEASE)));
+
+        // A finishing late must not settle an entry it no longer holds
+        nodeA.settled(List.of("a"), ScrapePipeline.Outcome.SAVED);
+        assertEquals(1, repositoryA.countForRun(RUN));
+        assertTrue(repositoryA.countResults(RUN).isEmpty());
+
+        nodeB.settled(List.of("a"), ScrapePipeline.Outcome.UPDATED);
+        assertEquals(0, repositoryA.countForRun(RUN));
+        assertEquals(Map.of("updated", 1L), repositoryA.countResults(RUN));
+    }
+
+    @Test
+    void releasedEntryIsRetriedByTheOtherNodeAndDroppedAfterMaxAttempts() {
+        enqueue("a", "b");
+        assertEquals(List.of("a", "b"), urls(repositoryA.claim(nodeA.nodeId(), 10, LEASE)));
+        nodeA.settled(List.of("b"), ScrapePipeline.Outcome.SAVED);
+        nodeA.failed(List.of("a"));
+
+        assertEquals(List.of("a"), urls(repositoryB.claim(nodeB.nodeId(), 10, LEASE)));
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT attempts FROM scrape_frontier WHERE job_page_url = 'a'", Integer.class));
+        nodeB.failed(List.of("a"));
+
+        assertEquals(0, repositoryB.countForRun(RUN));
+        assertEquals(Map.of("saved", 1L, "failed", 1L), repositoryB.countResults(RUN));
+
+        repositoryA.deleteResults(RUN);
+        assertTrue(repositoryB.countResults(RUN).isEmpty());
+    }
+}
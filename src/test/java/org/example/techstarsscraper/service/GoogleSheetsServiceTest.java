@@ -0,0 +1,155 @@
+package org.example.techstarsscraper.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.api.client.http.javanet.NetHttpTransport;
+import com.google.api.client.json.gson.GsonFactory;
+import com.google.api.services.sheets.v4.Sheets;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.techstarsscraper.dto.JobView;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GoogleSheetsServiceTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<JsonNode> appends = new CopyOnWriteArrayList<>();
+    private final AtomicInteger headerReads = new AtomicInteger();
+    private final AtomicInteger throttledAppends = new AtomicInteger();
+    private final AtomicInteger idReads = new AtomicInteger();
+    private volatile String idColumn = "{\"range\":\"Sheet1!A1:A1000\"}";
+    private HttpServer server;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/v4/spreadsheets/sheet-id/values/", exchange -> {
+            String path = exchange.getRequestURI().getPath();
+            if (path.endsWith(":append")) {
+                if (throttledAppends.getAndDecrement() > 0) {
+                    respond(exchange, 429, "{\"error\":{\"code\":429,\"message\":\"Quota exceeded\"}}");
+                    return;
+                }
+                InputStream body = exchange.getRequestBody();
+                if ("gzip".equals(exchange.getRequestHeaders().getFirst("Content-Encoding"))) {
+                    body = new GZIPInputStream(body);
+                }
+                appends.add(objectMapper.readTree(body));
+                respond(exchange, 200, "{}");
+            } else if (path.endsWith("!A:A")) {
+                idReads.incrementAndGet();
+                respond(exchange, 200, idColumn);
+            } else {
+                headerReads.incrementAndGet();
+                respond(exchange, 200, "{\"range\":\"Sheet1!A1:Z1\"}");
+            }
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private GoogleSheetsService service(int maxCells) {
+        Sheets client = new Sheets.Builder(new NetHttpTransport(), GsonFactory.getDefaultInstance(), null)
+                .setRootUrl("http://localhost:" + server.getAddress().getPort() + "/")
+                .setApplicationName("test")
+                .build();
+        return new GoogleSheetsService(client, "sheet-id", maxCells, DataSize.ofMegabytes(2),
+                Duration.ZERO, 3, Duration.ofMillis(10), Duration.ofMillis(50), new SimpleMeterRegistry());
+    }
+
+    private static List<JobView> jobs(int from, int to) {
+        List<JobView> jobs = new ArrayList<>();
+        for (long id = from; id < to; id++) {
+            jobs.add(new JobView(id, "https://jobs.techstars.com/companies/acme/jobs/" + id, "Engineer", null, null,
+                    "Acme", null, null, null, null, null, null, "<p>Job " + id + "</p>", "AI", null, null, null, null));
+        }
+        return jobs;
+    }
+
+    @Test
+    void writesHeaderOnceAndSplitsRowsIntoChunks() throws Exception {
+        GoogleSheetsService service = service(14 * 2);
+
+        service.appendJobsToSheet(jobs(0, 3));
+        service.appendJobsToSheet(jobs(3, 4));
+
+        assertEquals(1, headerReads.get());
+        assertEquals(3, appends.size());
+        assertEquals("ID", appends.get(0).at("/values/0/0").asText());
+        assertEquals(2, appends.get(0).path("values").size());
+        assertEquals(2, appends.get(1).path("values").size());
+        assertEquals("2", appends.get(1).at("/values/1/0").asText());
+        assertEquals("<p>Job 2</p>", appends.get(1).at("/values/1/13").asText());
+        assertEquals("3", appends.get(2).at("/values/0/0").asText());
+    }
+
+    @Test
+    void retriesThrottledRequests() throws Exception {
+        throttledAppends.set(2);
+
+        service(1000).appendJobsToSheet(jobs(0, 2));
+
+        assertEquals(1, appends.size());
+        assertEquals(3, appends.get(0).path("values").size());
+    }
+
+    @Test
+    void skipsJobsAlreadyInSheet() throws Exception {
+        idColumn = "{\"range\":\"Sheet1!A1:A1000\",\"values\":[[\"ID\"],[\"0\"]]}";
+        GoogleSheetsService service = service(1000);
+
+        service.appendJobsToSheet(jobs(0, 2));
+        service.appendJobsToSheet(jobs(0, 3));
+
+        assertEquals(2, appends.size());
+        assertEquals("1", appends.get(0).at("/values/1/0").asText());
+        assertEquals(2, appends.get(0).path("values").size());
+        assertEquals("2", appends.get(1).at("/values/0/0").asText());
+        assertEquals(1, appends.get(1).path("values").size());
+        assertEquals(1, idReads.get());
+    }
+
+    @Test
+    void rereadsIdsAfterFailedAppend() throws Exception {
+        throttledAppends.set(3);
+        GoogleSheetsService service = service(1000);
+
+        assertThrows(IOException.class, () -> service.appendJobsToSheet(jobs(0, 2)));
+        idColumn = "{\"range\":\"Sheet1!A1:A1000\",\"values\":[[\"ID\"],[\"0\"],[\"1\"]]}";
+        service.appendJobsToSheet(jobs(0, 2));
+
+        assertEquals(0, appends.size());
+        assertEquals(2, idReads.get());
+    }
+}
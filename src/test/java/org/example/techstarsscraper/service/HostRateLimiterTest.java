@@ -0,0 +1,59 @@
+package org.example.techstarsscraper.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.InterruptedIOException;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HostRateLimiterTest {
+
+    private static final String URL = "https://jobs.techstars.com/companies/acme/jobs/1-backend-engineer";
+
+    private SimpleMeterRegistry meterRegistry;
+    private HostRateLimiter rateLimiter;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        rateLimiter = new HostRateLimiter(8, 0.5, 32, 8, 0.25, 0.5, Duration.ofSeconds(5), meterRegistry);
+    }
+
+    private double rate() {
+        return meterRegistry.get("scraper.rate-limit.rate").tag("host", "jobs.techstars.com").gauge().value();
+    }
+
+    @Test
+    void throttledResponsesToRequestsInFlightTogetherCutTheRateOnce() throws InterruptedIOException {
+        rateLimiter.acquire(URL);
+        // eight requests sent a minute ago, all answering 429 now
+        for (int i = 0; i < 8; i++) {
+            rateLimiter.onThrottled(URL, Duration.ofMinutes(1).toNanos(), null);
+        }
+        assertEquals(4, rate());
+
+        // a request sent after the cut sees the lowered rate, so its 429 cuts again
+        rateLimiter.onThrottled(URL, 0, null);
+        assertEquals(2, rate());
+    }
+
+    @Test
+    void fastResponsesRaiseTheRateAgainAfterACut() throws InterruptedIOException {
+        rateLimiter.acquire(URL);
+        rateLimiter.onThrottled(URL, 0, null);
+        assertEquals(4, rate());
+
+        for (int i = 0; i < 8; i++) {
+            rateLimiter.onSuccess(URL, Duration.ofMillis(100).toNanos());
+        }
+        assertEquals(6, rate());
+
+        for (int i = 0; i < 200; i++) {
+            rateLimiter.onSuccess(URL, Duration.ofMillis(100).toNanos());
+        }
+        assertEquals(32, rate());
+    }
+}
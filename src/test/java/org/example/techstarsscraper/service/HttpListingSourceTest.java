@@ -0,0 +1,112 @@
+package org.example.techstarsscraper.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.techstarsscraper.dto.JobListing;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HttpListingSourceTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<JsonNode> requests = new CopyOnWriteArrayList<>();
+    private HttpServer server;
+    private int status = 200;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/search/jobs", exchange -> {
+            JsonNode request = objectMapper.readTree(exchange.getRequestBody());
+            requests.add(request);
+            int page = request.path("page").asInt();
+            String body = page == 0
+                    ? """
+                    {"results":{"count":3,"jobs":[
+                      {"slug":"backend-1","organization":{"slug":"acme","industry_tags":["Health","Hospital & Health Care"],"head_count":"20 - 30"}},
+                      {"slug":"frontend-2","organization":{"slug":"acme","industry_tags":[]}}
+                    ]}}"""
+                    : """
+                    {"results":{"count":3,"jobs":[
+                      {"slug":"data-3","organization":{"slug":"globex","industry_tags":["Fintech"]}}
+                    ]}}""";
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(status, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    private HttpListingSource source() {
+        String searchUrl = "http://localhost:" + server.getAddress().getPort() + "/search/jobs";
+        ScrapeHttpClient httpClient = new ScrapeHttpClient("test-agent", HttpClient.Version.HTTP_1_1,
+                Duration.ofSeconds(5), Duration.ofSeconds(5), Duration.ofMinutes(1), 0);
+        return new HttpListingSource(objectMapper, httpClient, true, searchUrl,
+                "https://jobs.techstars.com/companies/{organization}/jobs/{job}#content",
+                2, 10);
+    }
+
+    @Test
+    void pagesThroughSearchEndpointAndStreamsListings() throws Exception {
+        String filter = Base64.getEncoder().encodeToString(
+                "{\"job_functions\":[\"Software Engineering\"]}".getBytes(StandardCharsets.UTF_8));
+        List<JobListing> listings = new ArrayList<>();
+
+        source().discover(filter, listings::add);
+
+        assertEquals(3, listings.size());
+        assertEquals("https://jobs.techstars.com/companies/acme/jobs/backend-1#content", listings.get(0).jobPageUrl());
+        assertEquals(List.of("Health", "Hospital & Health Care", "20 - 30 employees"), listings.get(0).tags());
+        assertEquals("https://jobs.techstars.com/companies/globex/jobs/data-3#content", listings.get(2).jobPageUrl());
+
+        assertEquals(2, requests.size());
+        assertEquals("Software Engineering", requests.get(0).path("filters").path("job_functions").get(0).asText());
+        assertEquals(1, requests.get(1).path("page").asInt());
+    }
+
+    @Test
+    void incrementalCrawlStopsAfterPageOfKnownListings() throws Exception {
+        KnownJobIndex knownJobs = new KnownJobIndex(null, Duration.ZERO, new SimpleMeterRegistry());
+        knownJobs.markFetched("https://jobs.techstars.com/companies/acme/jobs/backend-1#content");
+        knownJobs.markFetched("https://jobs.techstars.com/companies/acme/jobs/frontend-2#content");
+        ListingCrawl crawl = ListingCrawl.incremental(knownJobs, 2);
+        List<JobListing> listings = new ArrayList<>();
+
+        source().discover("", crawl, listing -> {
+            crawl.seen(listing);
+            listings.add(listing);
+        });
+
+        assertEquals(2, listings.size());
+        assertEquals(1, requests.size());
+    }
+
+    @Test
+    void failsOnErrorStatusSoThatCallerCanFallBack() {
+        status = 503;
+        assertThrows(IOException.class, () -> source().discover("", listing -> {}));
+    }
+}
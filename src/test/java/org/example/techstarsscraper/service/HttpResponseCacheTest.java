@@ -0,0 +1,55 @@
+package org.example.techstarsscraper.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HttpResponseCacheTest {
+
+    private static final String URL = "https://jobs.techstars.com/companies/acme/jobs/%d-engineer";
+
+    @TempDir
+    Path directory;
+
+    private HttpResponseCache open() {
+        return new HttpResponseCache(true, directory.toString(), DataSize.ofMegabytes(1), DataSize.ofBytes(512));
+    }
+
+    @Test
+    void compactsSegmentsWhoseEntriesWereReplaced() throws IOException {
+        HttpResponseCache cache = open();
+        for (int i = 0; i < 20; i++) {
+            cache.put(URL.formatted(i), "\"v1-" + i + "\"", null, ("<p>v1 " + i + "</p>").getBytes(StandardCharsets.UTF_8));
+        }
+        long segmentsBefore = segmentCount();
+        for (int i = 0; i < 20; i++) {
+            if (i % 4 == 0) continue;
+            cache.put(URL.formatted(i), "\"v2-" + i + "\"", null, ("<p>v2 " + i + "</p>").getBytes(StandardCharsets.UTF_8));
+        }
+        assertFalse(Files.exists(directory.resolve("segment-000001.dat")), "first segment was not compacted");
+        assertTrue(segmentCount() <= segmentsBefore, "replaced entries left " + segmentCount() + " segments");
+
+        cache.close();
+        cache = open();
+        for (int i = 0; i < 20; i++) {
+            String version = i % 4 == 0 ? "v1" : "v2";
+            assertEquals("\"" + version + "-" + i + "\"", cache.lookup(URL.formatted(i)).orElseThrow().etag());
+            assertEquals("<p>" + version + " " + i + "</p>", new String(cache.body(URL.formatted(i)), StandardCharsets.UTF_8));
+        }
+        cache.close();
+    }
+
+    private long segmentCount() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().startsWith("segment-")).count();
+        }
+    }
+}
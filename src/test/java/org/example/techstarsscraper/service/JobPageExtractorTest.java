@@ -0,0 +1,69 @@
+package org.example.techstarsscraper.service;
+
+import org.example.techstarsscraper.model.Job;
+import org.jsoup.Jsoup;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Both extraction paths of {@link JobPageExtractor} against the extractor it replaced, over the saved pages the
+ * benchmarks parse.
+ */
+class JobPageExtractorTest {
+
+    private static final String JOB_URL = "https://jobs.techstars.com/companies/company/jobs/1#content";
+
+    private final JobPageExtractor extractor = new JobPageExtractor();
+    private final LegacyJobPageExtractor legacyExtractor = new LegacyJobPageExtractor();
+
+    static List<Path> fixtures() throws IOException {
+        try (Stream<Path> files = Files.list(Path.of("src/jmh/resources/fixtures/detail"))) {
+            return files.filter(f -> f.toString().endsWith(".html")).sorted().toList();
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("fixtures")
+    void domAndStreamExtractionMatchTheLegacyExtractor(Path fixture) throws IOException {
+        String html = Files.readString(fixture, StandardCharsets.UTF_8);
+        Job expected = legacyExtractor.extract(Jsoup.parse(html, JOB_URL), JOB_URL);
+        assertNotNull(expected.getPositionName());
+        assertFalse(expected.getDescriptionHtml().isEmpty());
+
+        assertSameJob(expected, extractor.extract(Jsoup.parse(html, JOB_URL), JOB_URL));
+        assertSameJob(expected, extractor.extract(new StringReader(html), JOB_URL, Integer.MAX_VALUE));
+    }
+
+    private static void assertSameJob(Job expected, Job actual) {
+        assertAll(
+                () -> assertEquals(expected.getJobPageUrl(), actual.getJobPageUrl()),
+                () -> assertEquals(expected.getPositionName(), actual.getPositionName()),
+                () -> assertEquals(expected.getOrganizationUrl(), actual.getOrganizationUrl()),
+                () -> assertEquals(expected.getLogoUrl(), actual.getLogoUrl()),
+                () -> assertEquals(expected.getOrganizationTitle(), actual.getOrganizationTitle()),
+                () -> assertEquals(expected.getLaborFunction(), actual.getLaborFunction()),
+                () -> assertEquals(expected.getLocationRaw(), actual.getLocationRaw()),
+                () -> assertEquals(expected.getLocationCity(), actual.getLocationCity()),
+                () -> assertEquals(expected.getLocationState(), actual.getLocationState()),
+                () -> assertEquals(expected.getLocationCountry(), actual.getLocationCountry()),
+                () -> assertEquals(expected.getPostedDateUnix(), actual.getPostedDateUnix()),
+                () -> assertEquals(normalize(expected.getDescriptionHtml()), normalize(actual.getDescriptionHtml())));
+    }
+
+    /**
+     * The legacy extractor pretty-prints the description; {@link JobPageExtractor} keeps the source whitespace.
+     */
+    private static String normalize(String descriptionHtml) {
+        return Jsoup.parseBodyFragment(descriptionHtml).body().html();
+    }
+}
@@ -0,0 +1,84 @@
+package org.example.techstarsscraper.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PageArchiveTest {
+
+    private static final String JOB_URL = "https://jobs.techstars.com/companies/acme/jobs/1-backend-engineer";
+    private static final String LISTING_URL = "https://jobs.techstars.com/jobs";
+
+    @TempDir
+    Path directory;
+
+    private PageArchive open(DataSize segmentSize) {
+        return new PageArchive(true, directory.toString(), segmentSize, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void replaysNewestRecordOfEachPageAcrossRestartsAndSegments() throws IOException {
+        PageArchive archive = open(DataSize.ofBytes(1));
+        archive.record(PageArchive.Kind.JOB_PAGE, JOB_URL, "text/html; charset=ISO-8859-1", "<p>v1</p>".getBytes(StandardCharsets.ISO_8859_1));
+        archive.record(PageArchive.Kind.LISTING_CARDS, LISTING_URL, "text/html; charset=utf-8", "<div>cards</div>".getBytes(StandardCharsets.UTF_8));
+        try (PageArchive.PendingRecord discarded = archive.begin(PageArchive.Kind.JOB_PAGE, JOB_URL, "text/html")) {
+            discarded.write("<p>not committed</p>".getBytes(StandardCharsets.UTF_8));
+        }
+        archive.close();
+
+        archive = open(DataSize.ofMegabytes(1));
+        archive.record(PageArchive.Kind.JOB_PAGE, JOB_URL, "text/html; charset=ISO-8859-1", "<p>v2 café</p>".getBytes(StandardCharsets.ISO_8859_1));
+        try (PageArchive.Snapshot snapshot = archive.snapshot()) {
+            assertEquals(3, snapshot.size());
+            assertEquals(1, snapshot.entries(PageArchive.Kind.LISTING_CARDS).size());
+
+            List<PageArchive.Entry> latest = snapshot.latest(PageArchive.Kind.JOB_PAGE);
+            assertEquals(1, latest.size());
+            PageArchive.Record record = snapshot.read(latest.get(0));
+            assertEquals(JOB_URL, record.url());
+            assertEquals("ISO-8859-1", record.charset());
+            assertEquals("<p>v2 café</p>", new String(record.body(), StandardCharsets.ISO_8859_1));
+        }
+        archive.close();
+
+        try (Stream<Path> segments = Files.list(directory)) {
+            List<Path> warcs = segments.filter(path -> path.toString().endsWith(".warc.gz")).sorted().toList();
+            assertEquals(3, warcs.size());
+            try (InputStream in = new GZIPInputStream(Files.newInputStream(warcs.get(0)))) {
+                String warc = new String(in.readAllBytes(), StandardCharsets.ISO_8859_1);
+                assertTrue(warc.startsWith("WARC/1.1\r\nWARC-Type: resource\r\n"), warc);
+                assertTrue(warc.contains("WARC-Target-URI: " + JOB_URL + "\r\n"), warc);
+            }
+        }
+    }
+
+    @Test
+    void dropsIndexEntryTornByCrash() throws IOException {
+        PageArchive archive = open(DataSize.ofMegabytes(1));
+        archive.record(PageArchive.Kind.JOB_PAGE, JOB_URL, "text/html", "<p>v1</p>".getBytes(StandardCharsets.UTF_8));
+        archive.close();
+        Files.write(directory.resolve("index.dat"), new byte[]{1, 2, 3}, StandardOpenOption.APPEND);
+
+        archive = open(DataSize.ofMegabytes(1));
+        archive.record(PageArchive.Kind.JOB_PAGE, JOB_URL, "text/html", "<p>v2</p>".getBytes(StandardCharsets.UTF_8));
+        try (PageArchive.Snapshot snapshot = archive.snapshot()) {
+            assertEquals(2, snapshot.size());
+            PageArchive.Record record = snapshot.read(snapshot.latest(PageArchive.Kind.JOB_PAGE).get(0));
+            assertEquals("<p>v2</p>", new String(record.body(), StandardCharsets.UTF_8));
+        }
+        archive.close();
+    }
+}
@@ -0,0 +1,113 @@
+package org.example.techstarsscraper.service;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScrapeHttpClientTest {
+
+    private static final String PAGE = "<html><head><title>Backend Engineer</title></head><body>Café</body></html>";
+
+    private final List<String> acceptEncodings = new CopyOnWriteArrayList<>();
+    private final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private HttpServer server;
+    private ScrapeHttpClient client;
+
+    @BeforeEach
+    void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/jobs/", exchange -> {
+            acceptEncodings.add(exchange.getRequestHeaders().getFirst("Accept-Encoding"));
+            clientPorts.add(exchange.getRemoteAddress().getPort());
+            ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+            try (GZIPOutputStream gzip = new GZIPOutputStream(gzipped)) {
+                gzip.write(PAGE.getBytes(StandardCharsets.UTF_8));
+            }
+            exchange.getResponseHeaders().add("Content-Type", "text/html; charset=UTF-8");
+            exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+            respond(exchange, gzipped.toByteArray());
+        });
+        server.createContext("/stalled", exchange -> {
+            exchange.sendResponseHeaders(200, 0);
+            OutputStream out = exchange.getResponseBody();
+            out.write("<html>".getBytes(StandardCharsets.UTF_8));
+            out.flush();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            out.close();
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        client = new ScrapeHttpClient("test-agent", HttpClient.Version.HTTP_1_1,
+                Duration.ofSeconds(2), Duration.ofMillis(500), Duration.ofMinutes(1), 0);
+    }
+
+    @AfterEach
+    void stop() {
+        release.countDown();
+        client.close();
+        server.stop(0);
+    }
+
+    private static void respond(HttpExchange exchange, byte[] body) throws IOException {
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private String url(String path) {
+        return "http://localhost:" + server.getAddress().getPort() + path;
+    }
+
+    @Test
+    void decodesCompressedBodiesAndReusesTheConnection() throws IOException {
+        for (int i = 0; i < 5; i++) {
+            try (ScrapeHttpClient.Response response = client.send(client.newRequest(url("/jobs/" + i)).build());
+                 InputStream body = response.body()) {
+                assertEquals(200, response.statusCode());
+                assertEquals("UTF-8", response.charset());
+                assertEquals(PAGE, new String(body.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+
+        assertEquals(List.of(ScrapeHttpClient.ACCEPT_ENCODING), acceptEncodings.stream().distinct().toList());
+        assertEquals(1, clientPorts.size());
+    }
+
+    @Test
+    void failsReadingBodyThatStallsPastReadTimeout() throws IOException {
+        try (ScrapeHttpClient.Response response = client.send(client.newRequest(url("/stalled")).build());
+             InputStream body = response.body()) {
+            long start = System.nanoTime();
+            assertThrows(HttpTimeoutException.class, body::readAllBytes);
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+        }
+    }
+}